@@ -2,6 +2,7 @@ plugins {
 	java
 	id("org.springframework.boot") version "3.5.6"
 	id("io.spring.dependency-management") version "1.1.7"
+	id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.hamamoto"
@@ -24,6 +25,8 @@ repositories {
 	mavenCentral()
 }
 
+val loadtest by sourceSets.creating
+
 dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-actuator")
 	implementation("org.springframework.boot:spring-boot-starter-data-jpa")
@@ -32,15 +35,37 @@ dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-data-redis")
 	implementation("org.liquibase:liquibase-core")
 	implementation("org.hashids:hashids:1.0.3")
+	implementation("com.github.ben-manes.caffeine:caffeine")
 	compileOnly("org.projectlombok:lombok")
 	developmentOnly("org.springframework.boot:spring-boot-devtools")
 	runtimeOnly("org.postgresql:postgresql")
+	runtimeOnly("io.micrometer:micrometer-registry-prometheus")
 	annotationProcessor("org.projectlombok:lombok")
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 	testRuntimeOnly("com.h2database:h2")
+	jmh("org.springframework:spring-test")
+	"loadtestImplementation"("com.fasterxml.jackson.core:jackson-databind")
+	"loadtestImplementation"("org.hdrhistogram:HdrHistogram:2.2.2")
 }
 
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+jmh {
+	profilers = listOf("gc")
+	resultFormat = "JSON"
+	resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+	warmupIterations = 3
+	iterations = 5
+	fork = 1
+	findProperty("jmhIncludes")?.let { includes = listOf(it.toString()) }
+}
+
+tasks.register<JavaExec>("loadTest") {
+	group = "verification"
+	description = "Drives a running instance with shorten and redirect traffic; pass options with --args"
+	classpath = loadtest.runtimeClasspath
+	mainClass = "com.hamamoto.shortifier.loadtest.LoadGenerator"
+}
@@ -0,0 +1,123 @@
+package com.hamamoto.shortifier.benchmark;
+
+import com.hamamoto.shortifier.cache.CachedUrl;
+import com.hamamoto.shortifier.cache.UrlCache;
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import com.hamamoto.shortifier.entity.UrlMapping;
+import com.hamamoto.shortifier.monitoring.ShortifierMetrics;
+import com.hamamoto.shortifier.repository.ArchivedMappingRepository;
+import com.hamamoto.shortifier.repository.UrlMappingRepository;
+import com.hamamoto.shortifier.service.AccessCountService;
+import com.hamamoto.shortifier.service.IssuedIdFilter;
+import com.hamamoto.shortifier.service.RedisCounterService;
+import com.hamamoto.shortifier.service.UrlDeduplicator;
+import com.hamamoto.shortifier.service.UrlShortenerService;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import com.hamamoto.shortifier.trending.HotKeyTracker;
+import com.hamamoto.shortifier.writebehind.WriteBehindLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory stand-ins for the service's collaborators, so benchmarks measure our own code
+ * rather than PostgreSQL or Redis round trips.
+ */
+final class BenchmarkFixtures {
+    static final String SALT = "benchmark-salt";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Builds a {@link UrlShortenerService} over an in-memory repository of {@code count} mappings
+     * with IDs {@code 1..count}.
+     */
+    static UrlShortenerService newService(ShortCodeGenerator shortCodeGenerator, UrlCache urlCache,
+                                          MeterRegistry meterRegistry, int count) {
+        var mappings = new HashMap<Long, UrlMapping>();
+        for (long id = 1; id <= count; id++) {
+            mappings.put(id, UrlMapping.builder()
+                    .id(id)
+                    .shortCode(shortCodeGenerator.generate(id))
+                    .originalUrl("https://example.com/articles/" + id)
+                    .accessCount(0L)
+                    .build());
+        }
+
+        var jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource());
+        var redisCounterService = new RedisCounterService(new RedisTemplate<>(), meterRegistry,
+                100, 10_000, Duration.ofSeconds(10), 0.25, Duration.ofMinutes(1), false);
+        var issuedIdFilter = new IssuedIdFilter(redisCounterService, jdbcTemplate, ShardRouter.single(), null, null, meterRegistry,
+                false, false, 1, 0.01, Duration.ofMinutes(1));
+        var writeBehindLog = new WriteBehindLog(null, redisCounterService, ShardRouter.single(), urlCache, null, meterRegistry,
+                false, Path.of("wal"), 1, 1, 1, 1, Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(1));
+        return new UrlShortenerService(
+                inMemoryRepository(mappings),
+                redisCounterService,
+                shortCodeGenerator,
+                urlCache,
+                new AccessCountService(jdbcTemplate, ShardRouter.single(), writeBehindLog, meterRegistry, 500),
+                new UrlDeduplicator(null, jdbcTemplate, ShardRouter.single(), null, meterRegistry, false, 1, 0.01),
+                issuedIdFilter,
+                new ShortifierMetrics(meterRegistry),
+                ShardRouter.single(),
+                emptyArchive(jdbcTemplate),
+                new HotKeyTracker(meterRegistry, true, 100, 4096, 4),
+                writeBehindLog);
+    }
+
+    private static ArchivedMappingRepository emptyArchive(JdbcTemplate jdbcTemplate) {
+        return new ArchivedMappingRepository(jdbcTemplate) {
+            @Override
+            public Optional<UrlMapping> findById(long id) {
+                return Optional.empty();
+            }
+        };
+    }
+
+    /**
+     * A repository answering {@code findById} from the map; every other method is unsupported.
+     */
+    static UrlMappingRepository inMemoryRepository(Map<Long, UrlMapping> mappings) {
+        return (UrlMappingRepository) Proxy.newProxyInstance(
+                UrlMappingRepository.class.getClassLoader(),
+                new Class<?>[]{UrlMappingRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(mappings.get((Long) args[0]));
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryUrlMappingRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * A cache that never hits, so every lookup goes to the repository.
+     */
+    static UrlCache noCache() {
+        return new UrlCache(null, null) {
+            @Override
+            public CachedUrl getLocal(String shortCode) {
+                return null;
+            }
+
+            @Override
+            public CachedUrl getShared(String shortCode) {
+                return null;
+            }
+
+            @Override
+            public void put(String shortCode, CachedUrl url) {
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.hamamoto.shortifier.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hamamoto.shortifier.analytics.ClickEventCollector;
+import com.hamamoto.shortifier.analytics.ClickRollupRepository;
+import com.hamamoto.shortifier.cache.LocalUrlCache;
+import com.hamamoto.shortifier.cache.RedisUrlCache;
+import com.hamamoto.shortifier.cache.UrlCache;
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import com.hamamoto.shortifier.config.web.RedirectFilter;
+import com.hamamoto.shortifier.controller.UrlShortenerController;
+import com.hamamoto.shortifier.exception.GlobalExceptionHandler;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * A cached redirect and a 404 served by {@link RedirectFilter} versus the same requests dispatched
+ * to {@link UrlShortenerController} through Spring MVC. Both go through MockMvc, so the difference
+ * between the two handlers is the cost of MVC dispatch and {@code RedirectView}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RedirectBenchmark {
+    private static final int MAPPINGS = 10_000;
+
+    public enum Handler {FILTER, MVC}
+
+    @Param({"FILTER", "MVC"})
+    public Handler handler;
+
+    private MockMvc mockMvc;
+    private String[] paths;
+
+    @Setup
+    public void setUp() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var shortCodeGenerator = new ShortCodeGenerator(BenchmarkFixtures.SALT, false);
+        var urlCache = new UrlCache(new LocalUrlCache(meterRegistry, MAPPINGS * 2L, 0),
+                new RedisUrlCache(new RedisTemplate<>(), false, Duration.ofDays(1)));
+        var urlShortenerService = BenchmarkFixtures.newService(shortCodeGenerator, urlCache, meterRegistry, MAPPINGS);
+        var clickEventCollector = new ClickEventCollector(
+                new ClickRollupRepository(new JdbcTemplate(new DriverManagerDataSource())),
+                shortCodeGenerator, ShardRouter.single(), meterRegistry, 1 << 10, 1, 1);
+        ObjectMapper objectMapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        var exceptionHandler = new GlobalExceptionHandler();
+
+        var builder = MockMvcBuilders
+                .standaloneSetup(new UrlShortenerController(urlShortenerService, null, clickEventCollector))
+                .setControllerAdvice(exceptionHandler)
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper));
+        if (handler == Handler.FILTER) {
+            builder.addFilters(new RedirectFilter(urlShortenerService, clickEventCollector, exceptionHandler, objectMapper));
+        }
+        mockMvc = builder.build();
+
+        paths = new String[MAPPINGS];
+        for (int i = 0; i < MAPPINGS; i++) {
+            paths[i] = "/" + shortCodeGenerator.generate(i + 1L);
+            urlShortenerService.getOriginalUrl(paths[i].substring(1));
+        }
+    }
+
+    @Benchmark
+    public MvcResult redirect() throws Exception {
+        return mockMvc.perform(get(paths[ThreadLocalRandom.current().nextInt(MAPPINGS)])).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult notFound() throws Exception {
+        return mockMvc.perform(get("/zz" + ThreadLocalRandom.current().nextInt(MAPPINGS))).andReturn();
+    }
+}
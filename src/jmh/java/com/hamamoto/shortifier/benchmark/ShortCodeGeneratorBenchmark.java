@@ -0,0 +1,53 @@
+package com.hamamoto.shortifier.benchmark;
+
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import org.hashids.Hashids;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding cost of short codes for IDs of increasing magnitude, next to the
+ * Hashids codec the generator used before, for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShortCodeGeneratorBenchmark {
+
+    @Param({"1", "100000", "100000000", "100000000000"})
+    public long id;
+
+    private ShortCodeGenerator shortCodeGenerator;
+    private String shortCode;
+    private Hashids hashids;
+    private String hashidsCode;
+
+    @Setup
+    public void setUp() {
+        shortCodeGenerator = new ShortCodeGenerator(BenchmarkFixtures.SALT, false);
+        shortCode = shortCodeGenerator.generate(id);
+        hashids = new Hashids(BenchmarkFixtures.SALT, 7);
+        hashidsCode = hashids.encode(id);
+    }
+
+    @Benchmark
+    public String generate() {
+        return shortCodeGenerator.generate(id);
+    }
+
+    @Benchmark
+    public long decode() {
+        return shortCodeGenerator.decode(shortCode);
+    }
+
+    @Benchmark
+    public String hashidsEncode() {
+        return hashids.encode(id);
+    }
+
+    @Benchmark
+    public long[] hashidsDecode() {
+        return hashids.decode(hashidsCode);
+    }
+}
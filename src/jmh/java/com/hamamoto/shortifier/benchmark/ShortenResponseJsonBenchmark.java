@@ -0,0 +1,44 @@
+package com.hamamoto.shortifier.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hamamoto.shortifier.dto.ShortenResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the shorten response with the ObjectMapper settings Spring Boot applies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShortenResponseJsonBenchmark {
+
+    private ObjectWriter writer;
+    private ShortenResponse response;
+
+    @Setup
+    public void setUp() {
+        writer = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writerFor(ShortenResponse.class);
+        response = ShortenResponse.builder()
+                .shortCode("aBc12dE")
+                .originalUrl("https://example.com/articles/2025/10/a-reasonably-long-article-slug")
+                .shortUrl("http://localhost:8080/aBc12dE")
+                .createdAt(LocalDateTime.of(2025, 10, 26, 10, 30))
+                .expiresAt(LocalDateTime.of(2025, 11, 26, 10, 30))
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return writer.writeValueAsBytes(response);
+    }
+}
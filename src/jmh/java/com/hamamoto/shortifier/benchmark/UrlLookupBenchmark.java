@@ -0,0 +1,65 @@
+package com.hamamoto.shortifier.benchmark;
+
+import com.hamamoto.shortifier.cache.LocalUrlCache;
+import com.hamamoto.shortifier.cache.RedisUrlCache;
+import com.hamamoto.shortifier.cache.UrlCache;
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import com.hamamoto.shortifier.exception.ShortUrlNotFoundException;
+import com.hamamoto.shortifier.service.UrlShortenerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UrlShortenerService#getOriginalUrl} against in-memory stand-ins:
+ * a local cache hit, a repository lookup with caching disabled, and a code that does not decode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UrlLookupBenchmark {
+    private static final int MAPPINGS = 100_000;
+
+    public enum Path {LOCAL_CACHE, REPOSITORY, MALFORMED}
+
+    @Param({"LOCAL_CACHE", "REPOSITORY", "MALFORMED"})
+    public Path path;
+
+    private UrlShortenerService urlShortenerService;
+    private String[] shortCodes;
+
+    @Setup
+    public void setUp() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var shortCodeGenerator = new ShortCodeGenerator(BenchmarkFixtures.SALT, false);
+        var urlCache = path == Path.LOCAL_CACHE
+                ? new UrlCache(new LocalUrlCache(meterRegistry, MAPPINGS * 2L, 0),
+                        new RedisUrlCache(new RedisTemplate<>(), false, Duration.ofDays(1)))
+                : BenchmarkFixtures.noCache();
+        urlShortenerService = BenchmarkFixtures.newService(shortCodeGenerator, urlCache, meterRegistry, MAPPINGS);
+
+        shortCodes = new String[MAPPINGS];
+        for (int i = 0; i < MAPPINGS; i++) {
+            shortCodes[i] = path == Path.MALFORMED ? "zz" + i : shortCodeGenerator.generate(i + 1L);
+        }
+        if (path == Path.LOCAL_CACHE) {
+            for (var shortCode : shortCodes) {
+                urlShortenerService.getOriginalUrl(shortCode);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object getOriginalUrl() {
+        var shortCode = shortCodes[ThreadLocalRandom.current().nextInt(MAPPINGS)];
+        try {
+            return urlShortenerService.getOriginalUrl(shortCode);
+        } catch (ShortUrlNotFoundException e) {
+            return e;
+        }
+    }
+}
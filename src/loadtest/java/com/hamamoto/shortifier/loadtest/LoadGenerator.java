@@ -0,0 +1,278 @@
+package com.hamamoto.shortifier.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a running instance with a mix of {@code POST /api/shorten} and {@code GET /{shortCode}}
+ * requests and reports latency percentiles.
+ * The load is open-loop: request {@code i} is due at {@code start + i / rate} and its latency is
+ * measured from that moment, not from when it was actually sent. A stalled server therefore shows
+ * up as the queueing delay real clients would see instead of quietly lowering the request rate
+ * (coordinated omission). Each request runs on its own virtual thread, and once
+ * {@code max-in-flight} requests are outstanding further ones are counted as dropped.
+ * Redirects pick their short code from keys created up front, with Zipfian popularity.
+ */
+public final class LoadGenerator {
+    private static final int SETUP_BATCH_SIZE = 1000;
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final long SCHEDULING_LAG_WARNING_MICROS = 10_000;
+
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client;
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong urlSequence = new AtomicLong();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAccumulator maxSchedulingLagMicros = new LongAccumulator(Math::max, 0);
+
+    private final Operation redirect = new Operation("redirect", 302);
+    private final Operation shorten = new Operation("shorten", 201);
+
+    private List<String> shortCodes;
+    private ZipfianDistribution popularity;
+    private long measureFromNanos;
+
+    LoadGenerator(LoadTestOptions options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(options.timeout())
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (List.of(args).contains("--help")) {
+            System.out.print(LoadTestOptions.USAGE);
+            return;
+        }
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        new LoadGenerator(options).run();
+    }
+
+    void run() throws IOException, InterruptedException {
+        System.out.printf("Target %s: %.0f req/s for %s after %s warmup, %.0f%% shortens%n", options.target(),
+                options.rate(), options.duration(), options.warmup(), options.shortenRatio() * 100);
+
+        shortCodes = createKeys();
+        popularity = new ZipfianDistribution(shortCodes.size(), options.zipfExponent());
+        System.out.printf("Created %d keys, Zipf exponent %.2f%n", shortCodes.size(), options.zipfExponent());
+
+        var reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(this::reportProgress, 1, 1, TimeUnit.SECONDS);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            generate(executor);
+        } finally {
+            reporter.shutdown();
+            reporter.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        reportProgress();
+        reportSummary();
+    }
+
+    /**
+     * Starts requests on schedule until the run is over. Requests due during the warmup are sent
+     * but not recorded.
+     */
+    private void generate(ExecutorService executor) {
+        var nanosPerRequest = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        var start = System.nanoTime();
+        measureFromNanos = start + options.warmup().toNanos();
+        var end = measureFromNanos + options.duration().toNanos();
+
+        for (long i = 0; ; i++) {
+            var intended = start + (long) (i * nanosPerRequest);
+            if (intended >= end) {
+                return;
+            }
+            waitUntil(intended);
+            maxSchedulingLagMicros.accumulate((System.nanoTime() - intended) / 1000);
+
+            var operation = ThreadLocalRandom.current().nextDouble() < options.shortenRatio() ? shorten : redirect;
+            if (inFlight.sum() >= options.maxInFlight()) {
+                if (intended >= measureFromNanos) {
+                    operation.dropped.increment();
+                }
+                continue;
+            }
+            inFlight.increment();
+            executor.execute(() -> {
+                try {
+                    send(operation, intended);
+                } finally {
+                    inFlight.decrement();
+                }
+            });
+        }
+    }
+
+    private void send(Operation operation, long intended) {
+        var request = operation == shorten ? shortenRequest() : redirectRequest();
+        var ok = false;
+        try {
+            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == operation.expectedStatus;
+        } catch (IOException e) {
+            // counted as an error below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (intended >= measureFromNanos) {
+            operation.recorder.recordValue(Math.max(1, (System.nanoTime() - intended) / 1000));
+            if (!ok) {
+                operation.errors.increment();
+            }
+        }
+    }
+
+    private HttpRequest shortenRequest() {
+        return HttpRequest.newBuilder(options.target().resolve("/api/shorten"))
+                .timeout(options.timeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"url\":\"" + nextUrl() + "\"}"))
+                .build();
+    }
+
+    private HttpRequest redirectRequest() {
+        var shortCode = shortCodes.get(popularity.sample(ThreadLocalRandom.current()));
+        return HttpRequest.newBuilder(options.target().resolve("/" + shortCode))
+                .timeout(options.timeout())
+                .GET()
+                .build();
+    }
+
+    private String nextUrl() {
+        return "https://example.com/loadtest/" + runId + "/" + urlSequence.incrementAndGet();
+    }
+
+    /**
+     * Shortens {@code keys} URLs through the batch endpoint and returns their codes, most popular first.
+     */
+    private List<String> createKeys() throws IOException, InterruptedException {
+        var codes = new ArrayList<String>(options.keys());
+        while (codes.size() < options.keys()) {
+            var count = Math.min(SETUP_BATCH_SIZE, options.keys() - codes.size());
+            var body = objectMapper.createArrayNode();
+            for (int i = 0; i < count; i++) {
+                body.addObject().put("url", nextUrl());
+            }
+
+            var request = HttpRequest.newBuilder(options.target().resolve("/api/shorten/batch"))
+                    .timeout(options.timeout().multipliedBy(10))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+            var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Creating keys failed with HTTP " + response.statusCode()
+                        + ": " + response.body());
+            }
+            var created = codes.size();
+            for (var result : objectMapper.readTree(response.body()).path("results")) {
+                var shortCode = result.path("result").path("shortCode");
+                if (shortCode.isTextual()) {
+                    codes.add(shortCode.asText());
+                }
+            }
+            if (codes.size() == created) {
+                throw new IllegalStateException("Creating keys failed: " + response.body());
+            }
+        }
+        return codes;
+    }
+
+    private static void waitUntil(long deadline) {
+        for (var remaining = deadline - System.nanoTime(); remaining > 0; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void reportProgress() {
+        var line = new StringBuilder();
+        for (var operation : List.of(redirect, shorten)) {
+            var interval = operation.recorder.getIntervalHistogram();
+            operation.total.add(interval);
+            if (interval.getTotalCount() > 0) {
+                line.append(String.format("  %s %d req p99=%.2fms", operation.name, interval.getTotalCount(),
+                        interval.getValueAtPercentile(99) / 1000.0));
+            }
+        }
+        if (!line.isEmpty()) {
+            System.out.println("Interval:" + line);
+        }
+    }
+
+    private void reportSummary() throws IOException {
+        var seconds = options.duration().toNanos() / 1e9;
+        Files.createDirectories(options.reportDirectory());
+
+        System.out.println();
+        System.out.printf("%-9s %10s %9s %8s %8s %9s %9s %9s %9s %9s%n", "operation", "requests", "req/s",
+                "errors", "dropped", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms");
+        for (var operation : List.of(redirect, shorten)) {
+            var histogram = operation.total;
+            System.out.printf("%-9s %10d %9.1f %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation.name,
+                    histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    operation.errors.sum(), operation.dropped.sum(),
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+
+            var file = options.reportDirectory().resolve(operation.name + ".hgrm");
+            try (var out = new PrintStream(Files.newOutputStream(file))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.println("Percentile distributions (ms) written to " + options.reportDirectory().toAbsolutePath());
+
+        if (maxSchedulingLagMicros.get() > SCHEDULING_LAG_WARNING_MICROS) {
+            System.out.printf("Warning: requests started up to %.1fms late; the generator itself may be saturated%n",
+                    maxSchedulingLagMicros.get() / 1000.0);
+        }
+    }
+
+    /**
+     * Latencies of one request type in microseconds, measured from the intended start.
+     */
+    private static final class Operation {
+        final String name;
+        final int expectedStatus;
+        final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+        final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+        final LongAdder errors = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+
+        Operation(String name, int expectedStatus) {
+            this.name = name;
+            this.expectedStatus = expectedStatus;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.hamamoto.shortifier.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+
+/**
+ * Command line options of {@link LoadGenerator}, given as {@code --name=value}.
+ */
+record LoadTestOptions(URI target,
+                       double rate,
+                       Duration duration,
+                       Duration warmup,
+                       double shortenRatio,
+                       int keys,
+                       double zipfExponent,
+                       int maxInFlight,
+                       Duration timeout,
+                       Path reportDirectory) {
+
+    static final String USAGE = """
+            Options (all optional):
+              --target=http://localhost:8080   base URL of the running instance
+              --rate=1000                      requests per second, started on schedule regardless of responses
+              --duration=PT60S                 measured run length
+              --warmup=PT10S                   run length before measuring starts
+              --shorten-ratio=0.1              share of requests that are POST /api/shorten, the rest are redirects
+              --keys=10000                     short codes created before the run for redirects to pick from
+              --zipf-exponent=1.0              skew of redirect key popularity, 0 for uniform
+              --max-in-flight=10000            outstanding requests before new ones are counted as dropped
+              --timeout=PT5S                   per-request timeout
+              --report-dir=build/results/loadtest  where the .hgrm percentile distributions are written
+            """;
+
+    static LoadTestOptions parse(String[] args) {
+        var values = new HashMap<String, String>();
+        for (var arg : args) {
+            var separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        var options = new LoadTestOptions(
+                URI.create(stripTrailingSlash(values.getOrDefault("target", "http://localhost:8080"))),
+                Double.parseDouble(values.getOrDefault("rate", "1000")),
+                Duration.parse(values.getOrDefault("duration", "PT60S")),
+                Duration.parse(values.getOrDefault("warmup", "PT10S")),
+                Double.parseDouble(values.getOrDefault("shorten-ratio", "0.1")),
+                Integer.parseInt(values.getOrDefault("keys", "10000")),
+                Double.parseDouble(values.getOrDefault("zipf-exponent", "1.0")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "10000")),
+                Duration.parse(values.getOrDefault("timeout", "PT5S")),
+                Path.of(values.getOrDefault("report-dir", "build/results/loadtest")));
+
+        var unknown = new HashMap<>(values);
+        for (var known : new String[]{"target", "rate", "duration", "warmup", "shorten-ratio", "keys",
+                "zipf-exponent", "max-in-flight", "timeout", "report-dir"}) {
+            unknown.remove(known);
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + unknown.keySet());
+        }
+        if (options.rate <= 0 || options.keys <= 0 || options.maxInFlight <= 0
+                || options.shortenRatio < 0 || options.shortenRatio > 1 || options.zipfExponent < 0) {
+            throw new IllegalArgumentException("rate, keys and max-in-flight must be positive, "
+                    + "shorten-ratio within [0, 1] and zipf-exponent not negative");
+        }
+        return options;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,31 @@
+package com.hamamoto.shortifier.loadtest;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Samples ranks in {@code [0, n)} where rank {@code k} is drawn with probability proportional to
+ * {@code 1 / (k + 1)^exponent}, so a few keys take most of the traffic as real short links do.
+ * The cumulative distribution is computed once and sampled with a binary search.
+ */
+final class ZipfianDistribution {
+    private final double[] cumulative;
+
+    ZipfianDistribution(int n, double exponent) {
+        cumulative = new double[n];
+        var sum = 0.0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    int sample(RandomGenerator random) {
+        var index = Arrays.binarySearch(cumulative, random.nextDouble());
+        var rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
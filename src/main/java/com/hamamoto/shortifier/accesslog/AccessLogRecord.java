@@ -0,0 +1,12 @@
+package com.hamamoto.shortifier.accesslog;
+
+/**
+ * One completed request, captured on the request thread and formatted later by the writer.
+ */
+record AccessLogRecord(long timestampMillis,
+                       String method,
+                       String path,
+                       int status,
+                       long durationNanos,
+                       String remoteAddress) {
+}
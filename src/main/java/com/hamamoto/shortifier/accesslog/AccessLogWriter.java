@@ -0,0 +1,188 @@
+package com.hamamoto.shortifier.accesslog;
+
+import com.hamamoto.shortifier.util.BoundedRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Writes one compact JSON line per sampled request to the {@code shortifier.access} logger.
+ * Request threads only decide whether to sample and offer a record to a bounded lock-free buffer;
+ * formatting and the logger call happen on a single background thread, so a slow appender can
+ * never stall a request. When the buffer is full the {@link DropPolicy} decides which record is
+ * lost, and every loss is counted.
+ */
+@Component
+@Slf4j
+public class AccessLogWriter implements SmartLifecycle {
+    static final String LOGGER_NAME = "shortifier.access";
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger(LOGGER_NAME);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    public enum DropPolicy {
+        /** Keep what is queued and discard the record being offered. */
+        DROP_NEWEST,
+        /** Discard the oldest queued record to make room, favouring recent traffic. */
+        DROP_OLDEST
+    }
+
+    private final BoundedRingBuffer<AccessLogRecord> records;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final double errorSampleRate;
+    private final DropPolicy dropPolicy;
+    private final int batchSize;
+
+    private final Counter writtenRecords;
+    private final Counter droppedRecords;
+
+    private Thread writerThread;
+    private volatile boolean running;
+
+    public AccessLogWriter(MeterRegistry meterRegistry,
+                           @Value("${shortifier.access-log.enabled:true}") boolean enabled,
+                           @Value("${shortifier.access-log.queue-capacity:16384}") int queueCapacity,
+                           @Value("${shortifier.access-log.sample-rate:1.0}") double sampleRate,
+                           @Value("${shortifier.access-log.error-sample-rate:1.0}") double errorSampleRate,
+                           @Value("${shortifier.access-log.drop-policy:DROP_NEWEST}") DropPolicy dropPolicy,
+                           @Value("${shortifier.access-log.batch-size:256}") int batchSize) {
+        this.records = new BoundedRingBuffer<>(queueCapacity);
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.errorSampleRate = errorSampleRate;
+        this.dropPolicy = dropPolicy;
+        this.batchSize = batchSize;
+
+        this.writtenRecords = Counter.builder("shortifier.access-log.written")
+                .description("Access log records written")
+                .register(meterRegistry);
+        this.droppedRecords = Counter.builder("shortifier.access-log.dropped")
+                .tag("policy", dropPolicy.name().toLowerCase(Locale.ROOT))
+                .description("Sampled access log records lost because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("shortifier.access-log.queue.size", records, BoundedRingBuffer::size)
+                .description("Access log records waiting to be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Samples and enqueues a completed request without blocking. Responses with status 400 and
+     * above are sampled at {@code error-sample-rate}, everything else at {@code sample-rate}.
+     */
+    public void record(HttpServletRequest request, int status, long durationNanos) {
+        var rate = status >= 400 ? errorSampleRate : sampleRate;
+        if (rate < 1.0 && ThreadLocalRandom.current().nextDouble() >= rate) {
+            return;
+        }
+        offer(new AccessLogRecord(System.currentTimeMillis(), request.getMethod(), request.getRequestURI(),
+                status, durationNanos, request.getRemoteAddr()));
+    }
+
+    void offer(AccessLogRecord record) {
+        if (records.offer(record)) {
+            return;
+        }
+        if (dropPolicy == DropPolicy.DROP_OLDEST && records.poll() != null && records.offer(record)) {
+            droppedRecords.increment();
+            return;
+        }
+        droppedRecords.increment();
+    }
+
+    /**
+     * Formats and writes up to {@code batch-size} queued records.
+     *
+     * @return the number of records written
+     */
+    int writeAvailable(Consumer<String> output) {
+        var written = records.drain(record -> output.accept(format(record)), batchSize);
+        writtenRecords.increment(written);
+        return written;
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                if (writeAvailable(ACCESS_LOG::info) == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Access log writer failed: {}", e.getMessage());
+            }
+        }
+        while (writeAvailable(ACCESS_LOG::info) > 0) {
+            // drain what was queued before shutdown
+        }
+    }
+
+    static String format(AccessLogRecord record) {
+        var line = new StringBuilder(128)
+                .append("{\"ts\":\"").append(Instant.ofEpochMilli(record.timestampMillis()))
+                .append("\",\"method\":\"");
+        appendEscaped(line, record.method());
+        line.append("\",\"path\":\"");
+        appendEscaped(line, record.path());
+        line.append("\",\"status\":").append(record.status())
+                .append(",\"micros\":").append(record.durationNanos() / 1000)
+                .append(",\"remote\":\"");
+        appendEscaped(line, record.remoteAddress());
+        return line.append("\"}").toString();
+    }
+
+    private static void appendEscaped(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writerThread = Thread.ofPlatform().daemon().name("access-log-writer").start(this::writeLoop);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (writerThread != null) {
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writerThread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
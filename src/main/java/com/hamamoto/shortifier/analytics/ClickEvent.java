@@ -0,0 +1,7 @@
+package com.hamamoto.shortifier.analytics;
+
+/**
+ * A single successful redirect, as captured on the request thread.
+ */
+public record ClickEvent(String shortCode, long timestampMillis) {
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.hamamoto.shortifier.analytics;
+
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import com.hamamoto.shortifier.util.BoundedRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * Captures redirect events and rolls them up into per-minute and per-hour click counts.
+ * Request threads only offer an event to a bounded lock-free buffer; when the buffer is full the
+ * event is dropped and counted rather than delaying the redirect. A scheduled drain folds events
+ * into per-minute counts in memory, and a slower flush persists them to {@code click_rollup} on the
+ * shard of each mapping.
+ */
+@Component
+@Slf4j
+public class ClickEventCollector {
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+
+    private final BoundedRingBuffer<ClickEvent> events;
+    private final ClickRollupRepository clickRollupRepository;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final ShardRouter shardRouter;
+    private final int maxPendingBuckets;
+    private final int batchSize;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Map<MinuteBucket, Long> pending = new HashMap<>();
+
+    private final Counter droppedEvents;
+    private final DistributionSummary flushedRows;
+
+    public ClickEventCollector(ClickRollupRepository clickRollupRepository,
+                               ShortCodeGenerator shortCodeGenerator,
+                               ShardRouter shardRouter,
+                               MeterRegistry meterRegistry,
+                               @Value("${shortifier.analytics.queue-capacity:65536}") int queueCapacity,
+                               @Value("${shortifier.analytics.max-pending-buckets:100000}") int maxPendingBuckets,
+                               @Value("${shortifier.analytics.batch-size:500}") int batchSize) {
+        this.events = new BoundedRingBuffer<>(queueCapacity);
+        this.clickRollupRepository = clickRollupRepository;
+        this.shortCodeGenerator = shortCodeGenerator;
+        this.shardRouter = shardRouter;
+        this.maxPendingBuckets = maxPendingBuckets;
+        this.batchSize = batchSize;
+
+        this.droppedEvents = Counter.builder("shortifier.analytics.events.dropped")
+                .description("Click events discarded because the capture queue or pending rollups were full")
+                .register(meterRegistry);
+        this.flushedRows = DistributionSummary.builder("shortifier.analytics.flush.rows")
+                .description("Rollup rows written per flush")
+                .register(meterRegistry);
+        Gauge.builder("shortifier.analytics.queue.size", events, BoundedRingBuffer::size)
+                .description("Click events waiting to be aggregated")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a redirect without blocking. Safe to call from any request thread.
+     */
+    public void record(String shortCode) {
+        if (!events.offer(new ClickEvent(shortCode, System.currentTimeMillis()))) {
+            droppedEvents.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shortifier.analytics.drain-interval:PT1S}")
+    public synchronized void drain() {
+        events.drain(this::aggregate, Integer.MAX_VALUE);
+    }
+
+    private void aggregate(ClickEvent event) {
+        var bucket = new MinuteBucket(event.shortCode(), event.timestampMillis() / MILLIS_PER_MINUTE);
+        if (pending.size() >= maxPendingBuckets && !pending.containsKey(bucket)) {
+            droppedEvents.increment();
+            return;
+        }
+        pending.merge(bucket, 1L, Long::sum);
+    }
+
+    @Scheduled(fixedDelayString = "${shortifier.analytics.flush-interval:PT30S}")
+    public synchronized void flush() {
+        drain();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        var rollups = new HashMap<ClickRollupKey, Long>();
+        pending.forEach((bucket, clicks) -> {
+            var id = shortCodeGenerator.decode(bucket.shortCode());
+            if (id <= 0) {
+                return;
+            }
+            var minuteStart = LocalDateTime.ofInstant(Instant.ofEpochMilli(bucket.minute() * MILLIS_PER_MINUTE), zone);
+            rollups.merge(new ClickRollupKey(id, RollupGranularity.MINUTE, minuteStart), clicks, Long::sum);
+            rollups.merge(new ClickRollupKey(id, RollupGranularity.HOUR, minuteStart.truncatedTo(ChronoUnit.HOURS)),
+                    clicks, Long::sum);
+        });
+
+        var written = 0;
+        var failedShards = new HashSet<Integer>();
+        for (var shardRows : shardRouter.partition(rollups.entrySet(), row -> row.getKey().urlMappingId()).entrySet()) {
+            var shardRollups = new HashMap<ClickRollupKey, Long>();
+            shardRows.getValue().forEach(row -> shardRollups.put(row.getKey(), row.getValue()));
+            try {
+                ShardContext.run(shardRows.getKey(), () -> clickRollupRepository.addClicks(shardRollups, batchSize));
+                written += shardRollups.size();
+            } catch (DataAccessException e) {
+                log.warn("Click rollup flush of {} rows failed, retrying on next run: {}", shardRollups.size(), e.getMessage());
+                failedShards.add(shardRows.getKey());
+            }
+        }
+
+        if (failedShards.isEmpty()) {
+            pending.clear();
+        } else {
+            pending.keySet().removeIf(bucket -> {
+                var id = shortCodeGenerator.decode(bucket.shortCode());
+                return id <= 0 || !failedShards.contains(shardRouter.shardFor(id));
+            });
+        }
+        flushedRows.record(written);
+        log.debug("Flushed {} click rollup rows", written);
+    }
+
+    @PreDestroy
+    void drainOnShutdown() {
+        flush();
+    }
+
+    private record MinuteBucket(String shortCode, long minute) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.hamamoto.shortifier.analytics;
+
+import java.time.LocalDateTime;
+
+/**
+ * Identifies one row of {@code click_rollup}.
+ */
+public record ClickRollupKey(long urlMappingId, RollupGranularity granularity, LocalDateTime bucketStart) {
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.hamamoto.shortifier.analytics;
+
+import com.hamamoto.shortifier.dto.ClickBucket;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads and writes the per-bucket click counts in {@code click_rollup}.
+ * On PostgreSQL deltas are added with {@code INSERT ... ON CONFLICT}, since its MERGE fails with a
+ * unique violation when two instances create the same bucket at once; other databases, such as
+ * the H2 schema used in tests, use MERGE.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ClickRollupRepository {
+    private static final String MERGE_SQL = """
+            MERGE INTO click_rollup r
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS VARCHAR(6)), CAST(? AS TIMESTAMP), CAST(? AS BIGINT)))
+                AS s (url_mapping_id, granularity, bucket_start, clicks)
+            ON r.url_mapping_id = s.url_mapping_id AND r.granularity = s.granularity AND r.bucket_start = s.bucket_start
+            WHEN MATCHED THEN UPDATE SET clicks = r.clicks + s.clicks
+            WHEN NOT MATCHED THEN INSERT (url_mapping_id, granularity, bucket_start, clicks)
+                VALUES (s.url_mapping_id, s.granularity, s.bucket_start, s.clicks)
+            """;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO click_rollup (url_mapping_id, granularity, bucket_start, clicks)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (url_mapping_id, granularity, bucket_start)
+            DO UPDATE SET clicks = click_rollup.clicks + EXCLUDED.clicks
+            """;
+
+    private static final String BUCKETS_SQL = """
+            SELECT bucket_start, clicks FROM click_rollup
+            WHERE url_mapping_id = ? AND granularity = ? AND bucket_start >= ? AND bucket_start < ?
+            ORDER BY bucket_start
+            """;
+
+    private static final String TOTAL_SQL = """
+            SELECT COALESCE(SUM(clicks), 0) FROM click_rollup
+            WHERE url_mapping_id = ? AND granularity = 'HOUR'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    /**
+     * Adds the given click deltas to their buckets, creating missing rows, in a single transaction.
+     */
+    @Transactional
+    public void addClicks(Map<ClickRollupKey, Long> deltas, int batchSize) {
+        var rows = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(isPostgres() ? UPSERT_SQL : MERGE_SQL, rows, batchSize, (statement, row) -> {
+            statement.setLong(1, row.getKey().urlMappingId());
+            statement.setString(2, row.getKey().granularity().name());
+            statement.setTimestamp(3, Timestamp.valueOf(row.getKey().bucketStart()));
+            statement.setLong(4, row.getValue());
+        });
+    }
+
+    public List<ClickBucket> findBuckets(long urlMappingId, RollupGranularity granularity,
+                                         LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(BUCKETS_SQL,
+                (resultSet, rowNum) -> ClickBucket.builder()
+                        .bucketStart(resultSet.getTimestamp("bucket_start").toLocalDateTime())
+                        .clicks(resultSet.getLong("clicks"))
+                        .build(),
+                urlMappingId, granularity.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    public long totalClicks(long urlMappingId) {
+        var total = jdbcTemplate.queryForObject(TOTAL_SQL, Long.class, urlMappingId);
+        return total != null ? total : 0L;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            var product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = product != null && product.toLowerCase(Locale.ROOT).contains("postgres");
+        }
+        return postgres;
+    }
+}
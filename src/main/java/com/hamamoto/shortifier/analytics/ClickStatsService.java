@@ -0,0 +1,59 @@
+package com.hamamoto.shortifier.analytics;
+
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import com.hamamoto.shortifier.dto.UrlStatsResponse;
+import com.hamamoto.shortifier.exception.ShortUrlNotFoundException;
+import com.hamamoto.shortifier.repository.ArchivedMappingRepository;
+import com.hamamoto.shortifier.repository.UrlMappingRepository;
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Answers traffic queries for a short code from the persisted rollups only, on the shard that
+ * stores the mapping. Queries run read-only, so they are served by a read replica when configured.
+ */
+@Service
+@RequiredArgsConstructor
+public class ClickStatsService {
+
+    private final ClickRollupRepository clickRollupRepository;
+    private final UrlMappingRepository urlMappingRepository;
+    private final ArchivedMappingRepository archivedMappingRepository;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final ShardRouter shardRouter;
+
+    @Transactional(readOnly = true)
+    public UrlStatsResponse getStats(String shortCode, RollupGranularity granularity,
+                                     LocalDateTime from, LocalDateTime to) {
+        var id = shortCodeGenerator.decode(shortCode);
+        if (id <= 0) {
+            throw new ShortUrlNotFoundException(shortCode);
+        }
+        return ShardContext.call(shardRouter.shardFor(id), () -> getStats(id, shortCode, granularity, from, to));
+    }
+
+    private UrlStatsResponse getStats(long id, String shortCode, RollupGranularity granularity,
+                                      LocalDateTime from, LocalDateTime to) {
+        if (!urlMappingRepository.existsById(id) && !archivedMappingRepository.existsById(id)) {
+            throw new ShortUrlNotFoundException(shortCode);
+        }
+
+        var end = to != null ? to : LocalDateTime.now();
+        var start = from != null ? from : end.minus(granularity.defaultWindow());
+        start = start.truncatedTo(granularity.unit());
+
+        return UrlStatsResponse.builder()
+                .shortCode(shortCode)
+                .granularity(granularity.name())
+                .from(start)
+                .to(end)
+                .totalClicks(clickRollupRepository.totalClicks(id))
+                .buckets(clickRollupRepository.findBuckets(id, granularity, start, end))
+                .build();
+    }
+}
\ No newline at end of file
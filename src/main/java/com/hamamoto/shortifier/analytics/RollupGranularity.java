@@ -0,0 +1,28 @@
+package com.hamamoto.shortifier.analytics;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bucket widths that click rollups are kept at, with the window a stats query covers by default.
+ */
+public enum RollupGranularity {
+    MINUTE(ChronoUnit.MINUTES, Duration.ofHours(1)),
+    HOUR(ChronoUnit.HOURS, Duration.ofDays(1));
+
+    private final ChronoUnit unit;
+    private final Duration defaultWindow;
+
+    RollupGranularity(ChronoUnit unit, Duration defaultWindow) {
+        this.unit = unit;
+        this.defaultWindow = defaultWindow;
+    }
+
+    public ChronoUnit unit() {
+        return unit;
+    }
+
+    public Duration defaultWindow() {
+        return defaultWindow;
+    }
+}
\ No newline at end of file
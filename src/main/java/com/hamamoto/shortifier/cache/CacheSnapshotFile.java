@@ -0,0 +1,146 @@
+package com.hamamoto.shortifier.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Binary file format for cache snapshots.
+ * A fixed header (magic, format version, entry count, creation time and the CRC32 of the
+ * payload) is followed by one record per entry: ID, {@code expiresAt} as seconds and nanos,
+ * then the short code and URL as length-prefixed UTF-8. Files are written to a temporary file
+ * and atomically moved into place, so readers see either the old or the new snapshot, and
+ * read through a memory mapping, so loading does not copy the file onto the heap first.
+ */
+public final class CacheSnapshotFile {
+    static final int MAGIC = 0x53484353;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 8;
+    private static final long NO_EXPIRY = Long.MIN_VALUE;
+
+    private CacheSnapshotFile() {
+    }
+
+    /**
+     * @return the number of entries written
+     */
+    public static int write(Path path, Map<String, CachedUrl> entries) throws IOException {
+        var bytes = new ByteArrayOutputStream(entries.size() * 96);
+        var payload = new DataOutputStream(bytes);
+        for (var entry : entries.entrySet()) {
+            var url = entry.getValue();
+            payload.writeLong(url.id());
+            if (url.expiresAt() == null) {
+                payload.writeLong(NO_EXPIRY);
+                payload.writeInt(0);
+            } else {
+                payload.writeLong(url.expiresAt().toEpochSecond(ZoneOffset.UTC));
+                payload.writeInt(url.expiresAt().getNano());
+            }
+            var shortCode = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            payload.writeShort(shortCode.length);
+            payload.write(shortCode);
+            var originalUrl = url.originalUrl().getBytes(StandardCharsets.UTF_8);
+            payload.writeInt(originalUrl.length);
+            payload.write(originalUrl);
+        }
+        payload.flush();
+        var body = bytes.toByteArray();
+
+        var crc = new CRC32();
+        crc.update(body);
+        var header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(entries.size())
+                .putLong(System.currentTimeMillis())
+                .putLong(crc.getValue())
+                .flip();
+
+        var directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        var temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (var channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                var buffers = new ByteBuffer[]{header, ByteBuffer.wrap(body)};
+                while (buffers[1].hasRemaining()) {
+                    channel.write(buffers);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return entries.size();
+    }
+
+    /**
+     * Passes every entry not yet expired at {@code now} to the consumer.
+     *
+     * @return the number of entries passed on
+     * @throws IOException if the file cannot be read, or has the wrong format, version or checksum
+     */
+    public static int read(Path path, LocalDateTime now, BiConsumer<String, CachedUrl> consumer) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a cache snapshot: " + size + " bytes");
+            }
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a cache snapshot: bad magic number");
+            }
+            var version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported cache snapshot version " + version);
+            }
+            var count = buffer.getInt();
+            buffer.getLong();
+            var expectedCrc = buffer.getLong();
+            var crc = new CRC32();
+            crc.update(buffer.slice());
+            if (crc.getValue() != expectedCrc) {
+                throw new IOException("Cache snapshot checksum mismatch");
+            }
+
+            var loaded = 0;
+            for (int i = 0; i < count; i++) {
+                var id = buffer.getLong();
+                var expirySeconds = buffer.getLong();
+                var expiryNanos = buffer.getInt();
+                var shortCode = readString(buffer, Short.toUnsignedInt(buffer.getShort()));
+                var originalUrl = readString(buffer, buffer.getInt());
+                var expiresAt = expirySeconds == NO_EXPIRY
+                        ? null
+                        : LocalDateTime.ofEpochSecond(expirySeconds, expiryNanos, ZoneOffset.UTC);
+                var url = new CachedUrl(id, originalUrl, expiresAt);
+                if (!url.isExpired(now)) {
+                    consumer.accept(shortCode, url);
+                    loaded++;
+                }
+            }
+            return loaded;
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed cache snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        var bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
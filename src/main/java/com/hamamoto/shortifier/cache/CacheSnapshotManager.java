@@ -0,0 +1,134 @@
+package com.hamamoto.shortifier.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the hottest {@link LocalUrlCache} entries to a {@link CacheSnapshotFile} every
+ * {@code interval} and at shutdown, and loads them back on startup, so a restarted instance
+ * starts with a warm cache instead of sending all its redirects to the database.
+ * It starts in an early lifecycle phase, before the web server accepts connections and long
+ * before the readiness probe reports UP, and stops after the web server has drained. A missing,
+ * corrupt or outdated snapshot is logged and the instance simply starts cold.
+ */
+@Component
+@Slf4j
+public class CacheSnapshotManager implements SmartLifecycle {
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final LocalUrlCache localUrlCache;
+    private final boolean enabled;
+    private final Path path;
+    private final int maxEntries;
+
+    private final Counter loadedEntries;
+    private final Timer writeTimer;
+
+    private volatile boolean running;
+
+    public CacheSnapshotManager(LocalUrlCache localUrlCache,
+                                MeterRegistry meterRegistry,
+                                @Value("${shortifier.cache.snapshot.enabled:false}") boolean enabled,
+                                @Value("${shortifier.cache.snapshot.path:shortifier-cache.snapshot}") Path path,
+                                @Value("${shortifier.cache.snapshot.max-entries:100000}") int maxEntries) {
+        this.localUrlCache = localUrlCache;
+        this.enabled = enabled;
+        this.path = path;
+        this.maxEntries = maxEntries;
+
+        this.loadedEntries = Counter.builder("shortifier.cache.snapshot.loaded")
+                .description("Cache entries restored from the snapshot at startup")
+                .register(meterRegistry);
+        this.writeTimer = Timer.builder("shortifier.cache.snapshot.write")
+                .description("Time spent writing the cache snapshot")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shortifier.cache.snapshot.interval:PT5M}",
+            initialDelayString = "${shortifier.cache.snapshot.interval:PT5M}")
+    public void scheduledSave() {
+        if (running) {
+            save();
+        }
+    }
+
+    /**
+     * @return the number of entries written, or {@code -1} if the snapshot could not be written
+     */
+    public synchronized int save() {
+        var start = System.nanoTime();
+        try {
+            var written = CacheSnapshotFile.write(path, localUrlCache.hottest(maxEntries));
+            writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.debug("Wrote {} cache entries to {}", written, path);
+            return written;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write cache snapshot {}: {}", path, e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * @return the number of entries restored
+     */
+    public synchronized int load() {
+        if (!Files.exists(path)) {
+            log.info("No cache snapshot at {}, starting cold", path);
+            return 0;
+        }
+        var start = System.nanoTime();
+        try {
+            var loaded = CacheSnapshotFile.read(path, LocalDateTime.now(), localUrlCache::put);
+            loadedEntries.increment(loaded);
+            log.info("Restored {} cache entries from {} in {} ms", loaded, path,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return loaded;
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            log.warn("Ignoring cache snapshot {}: {}", path, e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        load();
+        running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        save();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,13 @@
+package com.hamamoto.shortifier.cache;
+
+import java.time.LocalDateTime;
+
+/**
+ * The part of a {@link com.hamamoto.shortifier.entity.UrlMapping} needed to serve a redirect.
+ */
+public record CachedUrl(long id, String originalUrl, LocalDateTime expiresAt) {
+
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt != null && expiresAt.isBefore(now);
+    }
+}
@@ -0,0 +1,145 @@
+package com.hamamoto.shortifier.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded in-JVM cache of short code to redirect target.
+ * Caffeine's W-TinyLFU policy keeps frequently hit links resident under skewed traffic,
+ * and each entry expires exactly at its mapping's {@code expiresAt}, so an expired link
+ * is never served from here. Entries pinned for trending links are also held outside Caffeine,
+ * so a spike is never interrupted by eviction; they still expire at {@code expiresAt}.
+ */
+@Component
+public class LocalUrlCache {
+    static final String CACHE_NAME = "urlMappings";
+
+    private final Cache<String, CachedUrl> cache;
+    private final Map<String, CachedUrl> pinned = new ConcurrentHashMap<>();
+
+    public LocalUrlCache(MeterRegistry meterRegistry,
+                         @Value("${shortifier.cache.local.maximum-size:100000}") long maximumSize,
+                         @Value("${shortifier.cache.local.maximum-bytes:0}") long maximumBytes) {
+        var builder = Caffeine.newBuilder()
+                .expireAfter(new ExpiresAtExpiry())
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats();
+        if (maximumBytes > 0) {
+            builder.maximumWeight(maximumBytes).weigher(LocalUrlCache::estimateBytes);
+        } else {
+            builder.maximumSize(maximumSize);
+        }
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, builder.<String, CachedUrl>build(), CACHE_NAME);
+    }
+
+    public CachedUrl getIfPresent(String shortCode) {
+        var url = cache.getIfPresent(shortCode);
+        return url != null || pinned.isEmpty() ? url : pinned.get(shortCode);
+    }
+
+    public void put(String shortCode, CachedUrl url) {
+        if (!url.isExpired(LocalDateTime.now())) {
+            cache.put(shortCode, url);
+        }
+    }
+
+    public void invalidate(String shortCode) {
+        pinned.remove(shortCode);
+        cache.invalidate(shortCode);
+    }
+
+    /**
+     * Caches the entry and keeps it until {@link #retainPinned} drops it or it is invalidated.
+     */
+    public void pin(String shortCode, CachedUrl url) {
+        if (!url.isExpired(LocalDateTime.now())) {
+            pinned.put(shortCode, url);
+            cache.put(shortCode, url);
+        }
+    }
+
+    /**
+     * Unpins every entry not in {@code shortCodes}; unpinned entries stay cached until evicted.
+     */
+    public void retainPinned(Set<String> shortCodes) {
+        pinned.keySet().retainAll(shortCodes);
+    }
+
+    public boolean isPinned(String shortCode) {
+        return pinned.containsKey(shortCode);
+    }
+
+    /**
+     * Returns up to {@code limit} entries, pinned ones first and then the rest by Caffeine's
+     * estimate of how often they are used.
+     */
+    public Map<String, CachedUrl> hottest(int limit) {
+        var hottest = new LinkedHashMap<String, CachedUrl>();
+        for (var entry : pinned.entrySet()) {
+            if (hottest.size() >= limit) {
+                return hottest;
+            }
+            hottest.put(entry.getKey(), entry.getValue());
+        }
+        var eviction = cache.policy().eviction();
+        var ranked = eviction.isPresent() ? eviction.get().hottest(limit) : cache.asMap();
+        for (var entry : ranked.entrySet()) {
+            if (hottest.size() >= limit) {
+                break;
+            }
+            hottest.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        return hottest;
+    }
+
+    public int pinnedCount() {
+        return pinned.size();
+    }
+
+    /**
+     * Rough retained size of an entry: object headers and references plus the
+     * Latin-1 bytes of the two strings.
+     */
+    private static int estimateBytes(String shortCode, CachedUrl url) {
+        return 96 + shortCode.length() + url.originalUrl().length();
+    }
+
+    private static final class ExpiresAtExpiry implements Expiry<String, CachedUrl> {
+        private static final long MAX_SECONDS = Long.MAX_VALUE / 1_000_000_000L;
+
+        @Override
+        public long expireAfterCreate(String shortCode, CachedUrl url, long currentTime) {
+            if (url.expiresAt() == null) {
+                return Long.MAX_VALUE;
+            }
+            var remaining = Duration.between(LocalDateTime.now(), url.expiresAt());
+            if (remaining.isNegative()) {
+                return 0;
+            }
+            return remaining.getSeconds() >= MAX_SECONDS ? Long.MAX_VALUE : remaining.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String shortCode, CachedUrl url, long currentTime, long currentDuration) {
+            return expireAfterCreate(shortCode, url, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String shortCode, CachedUrl url, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
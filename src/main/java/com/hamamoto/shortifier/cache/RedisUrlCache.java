@@ -0,0 +1,108 @@
+package com.hamamoto.shortifier.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fleet-wide cache of short code to redirect target, shared by every instance through Redis.
+ * Each key lives no longer than its mapping's {@code expiresAt}. Redis failures are logged and
+ * treated as misses so that a Redis outage degrades to database lookups instead of failed redirects.
+ */
+@Component
+@Slf4j
+public class RedisUrlCache {
+    static final String KEY_PREFIX = "shortifier:url:";
+    static final String INVALIDATION_CHANNEL = "shortifier:url-invalidation";
+    static final String INVALIDATION_SEPARATOR = " ";
+    private static final char SEPARATOR = '|';
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean enabled;
+    private final Duration ttl;
+
+    public RedisUrlCache(RedisTemplate<String, String> redisTemplate,
+                         @Value("${shortifier.cache.redis.enabled:true}") boolean enabled,
+                         @Value("${shortifier.cache.redis.ttl:P1D}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.ttl = ttl;
+    }
+
+    public CachedUrl getIfPresent(String shortCode) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            var value = redisTemplate.opsForValue().get(KEY_PREFIX + shortCode);
+            return value != null ? deserialize(value) : null;
+        } catch (DataAccessException e) {
+            log.debug("Redis cache read failed for {}: {}", shortCode, e.getMessage());
+            return null;
+        }
+    }
+
+    public void put(String shortCode, CachedUrl url) {
+        if (!enabled) {
+            return;
+        }
+        var entryTtl = ttl;
+        if (url.expiresAt() != null) {
+            var untilExpiry = Duration.between(LocalDateTime.now(), url.expiresAt());
+            if (untilExpiry.compareTo(entryTtl) < 0) {
+                entryTtl = untilExpiry;
+            }
+        }
+        if (entryTtl.isNegative() || entryTtl.isZero()) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + shortCode, serialize(url), entryTtl);
+        } catch (DataAccessException e) {
+            log.debug("Redis cache write failed for {}: {}", shortCode, e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the shared entry and tells every instance to drop its local copy.
+     */
+    public void evict(String shortCode) {
+        evictAll(List.of(shortCode));
+    }
+
+    /**
+     * Removes the shared entries and tells every instance to drop its local copies, with one
+     * delete and one invalidation message for the whole batch.
+     */
+    public void evictAll(Collection<String> shortCodes) {
+        if (!enabled || shortCodes.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.delete(shortCodes.stream().map(shortCode -> KEY_PREFIX + shortCode).toList());
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.join(INVALIDATION_SEPARATOR, shortCodes));
+        } catch (DataAccessException e) {
+            log.warn("Redis cache eviction failed for {} short codes: {}", shortCodes.size(), e.getMessage());
+        }
+    }
+
+    static String serialize(CachedUrl url) {
+        var expiresAt = url.expiresAt() != null ? url.expiresAt().toString() : "";
+        return url.id() + "|" + expiresAt + "|" + url.originalUrl();
+    }
+
+    static CachedUrl deserialize(String value) {
+        var first = value.indexOf(SEPARATOR);
+        var second = value.indexOf(SEPARATOR, first + 1);
+        var id = Long.parseLong(value, 0, first, 10);
+        var expiresAt = second > first + 1 ? LocalDateTime.parse(value.substring(first + 1, second)) : null;
+        return new CachedUrl(id, value.substring(second + 1), expiresAt);
+    }
+}
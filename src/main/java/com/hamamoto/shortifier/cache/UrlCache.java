@@ -0,0 +1,75 @@
+package com.hamamoto.shortifier.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Two-level redirect cache: the per-instance {@link LocalUrlCache} in front of the
+ * fleet-wide {@link RedisUrlCache}. Shared hits are promoted into the local level.
+ */
+@Component
+@RequiredArgsConstructor
+public class UrlCache {
+
+    private final LocalUrlCache localUrlCache;
+    private final RedisUrlCache redisUrlCache;
+
+    public CachedUrl getLocal(String shortCode) {
+        var local = localUrlCache.getIfPresent(shortCode);
+        return local != null && !local.isExpired(LocalDateTime.now()) ? local : null;
+    }
+
+    public CachedUrl getShared(String shortCode) {
+        var shared = redisUrlCache.getIfPresent(shortCode);
+        if (shared == null || shared.isExpired(LocalDateTime.now())) {
+            return null;
+        }
+        localUrlCache.put(shortCode, shared);
+        return shared;
+    }
+
+    public CachedUrl getIfPresent(String shortCode) {
+        var local = getLocal(shortCode);
+        return local != null ? local : getShared(shortCode);
+    }
+
+    public void put(String shortCode, CachedUrl url) {
+        localUrlCache.put(shortCode, url);
+        redisUrlCache.put(shortCode, url);
+    }
+
+    /**
+     * Caches a freshly written mapping once the surrounding transaction commits,
+     * so a rolled-back insert never becomes visible through the cache.
+     */
+    public void putAfterCommit(String shortCode, CachedUrl url) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(shortCode, url);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(shortCode, url);
+            }
+        });
+    }
+
+    public void evict(String shortCode) {
+        localUrlCache.invalidate(shortCode);
+        redisUrlCache.evict(shortCode);
+    }
+
+    /**
+     * Evicts every code from both levels here and from the local level of every other instance.
+     */
+    public void evictAll(Collection<String> shortCodes) {
+        shortCodes.forEach(localUrlCache::invalidate);
+        redisUrlCache.evictAll(shortCodes);
+    }
+}
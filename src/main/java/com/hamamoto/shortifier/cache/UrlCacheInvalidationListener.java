@@ -0,0 +1,31 @@
+package com.hamamoto.shortifier.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Drops local cache entries when any instance publishes an eviction on the invalidation channel.
+ * A message carries one or more short codes separated by spaces.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UrlCacheInvalidationListener implements MessageListener {
+    public static final String CHANNEL = RedisUrlCache.INVALIDATION_CHANNEL;
+
+    private final LocalUrlCache localUrlCache;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        var shortCodes = new String(message.getBody(), StandardCharsets.UTF_8).split(RedisUrlCache.INVALIDATION_SEPARATOR);
+        log.debug("Invalidating {} local cache entries", shortCodes.length);
+        for (var shortCode : shortCodes) {
+            localUrlCache.invalidate(shortCode);
+        }
+    }
+}
@@ -5,17 +5,26 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
- * Generates short, non-sequential codes using Hashids.
- * The salt parameter ensures that sequential IDs produce different codes
- * across different applications, preventing attackers from inferring the next short URL.
+ * Generates short, non-sequential codes with a {@link FeistelCodec} keyed by the salt.
+ * The salt ensures that sequential IDs produce different codes across different applications,
+ * preventing attackers from inferring the next short URL.
+ * In compatibility mode, codes that the codec rejects are decoded as the Hashids codes issued
+ * before the switch. Legacy codes of large IDs are {@value FeistelCodec#CODE_LENGTH} characters long
+ * too, and roughly 0.5% of them also decode as a codec ID, so {@link #decode} is only a first guess
+ * for such codes: callers that find no row with that code under the ID retry with
+ * {@link #decodeLegacy}.
  */
 @Component
 public class ShortCodeGenerator {
-    private final Hashids hashids;
-    private static final int MIN_CODE_LENGTH = 7;
+    private static final int LEGACY_MIN_CODE_LENGTH = 7;
 
-    public ShortCodeGenerator(@Value("${shortifier.salt:default-salt-change-in-production}") String salt) {
-        this.hashids = new Hashids(salt, MIN_CODE_LENGTH);
+    private final FeistelCodec codec;
+    private final Hashids legacyHashids;
+
+    public ShortCodeGenerator(@Value("${shortifier.salt:default-salt-change-in-production}") String salt,
+                              @Value("${shortifier.codec.legacy-hashids-decode:true}") boolean legacyHashidsDecode) {
+        this.codec = new FeistelCodec(salt);
+        this.legacyHashids = legacyHashidsDecode ? new Hashids(salt, LEGACY_MIN_CODE_LENGTH) : null;
     }
 
     /**
@@ -25,7 +34,7 @@ public class ShortCodeGenerator {
      * @return a short, obfuscated code
      */
     public String generate(long id) {
-        return hashids.encode(id);
+        return codec.encode(id);
     }
 
     /**
@@ -33,10 +42,29 @@ public class ShortCodeGenerator {
      * Useful for retrieving the original ID from a short code.
      *
      * @param code the short code
-     * @return the original sequential ID
+     * @return the original sequential ID, or -1 if the code was not produced by this generator
      */
     public long decode(String code) {
-        var decoded = hashids.decode(code);
-        return decoded.length > 0 ? decoded[0] : -1L;
+        var id = codec.decode(code);
+        return id > 0 ? id : decodeLegacy(code);
+    }
+
+    /**
+     * Decodes a short code as a Hashids code issued before the switch to the codec, even if the
+     * codec accepts it too.
+     *
+     * @param code the short code
+     * @return the legacy ID, or -1 if compatibility mode is off or the code is not a legacy code
+     */
+    public long decodeLegacy(String code) {
+        if (legacyHashids == null) {
+            return -1L;
+        }
+        try {
+            var decoded = legacyHashids.decode(code);
+            return decoded.length == 1 ? decoded[0] : -1L;
+        } catch (RuntimeException e) {
+            return -1L;
+        }
     }
-}
\ No newline at end of file
+}
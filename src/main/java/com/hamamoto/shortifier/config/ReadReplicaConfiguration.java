@@ -0,0 +1,53 @@
+package com.hamamoto.shortifier.config;
+
+import com.hamamoto.shortifier.replica.LoadBalancedDataSource;
+import com.hamamoto.shortifier.replica.ReadReplicaProperties;
+import com.hamamoto.shortifier.replica.ReplicaPools;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaConfiguration {
+
+    /**
+     * Puts the {@code spring.datasource} pool behind a proxy that sends read-only transactions to
+     * the replicas. The proxy defers fetching a connection until the transaction's first
+     * statement, by which point the transaction manager has marked it read-only or not.
+     * With sharding, {@link ShardingConfiguration} wires each shard's replicas instead.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnExpression("${shortifier.read-replicas.enabled:false} and !${shortifier.sharding.enabled:false}")
+    static class ReplicatedDataSourceConfiguration {
+
+        @Bean
+        @ConfigurationProperties("spring.datasource.hikari")
+        public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+            var primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            primary.setPoolName("primary");
+            return primary;
+        }
+
+        @Bean
+        public ReplicaPools replicaPools(ReadReplicaProperties properties) {
+            return new ReplicaPools("replica", properties.replicas());
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaPools replicaPools) {
+            var proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+            proxy.setReadOnlyDataSource(new LoadBalancedDataSource(replicaPools.all(), primaryDataSource));
+            return proxy;
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package com.hamamoto.shortifier.config;
 
+import com.hamamoto.shortifier.cache.UrlCacheInvalidationListener;
+import com.hamamoto.shortifier.service.IssuedIdListener;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
@@ -23,4 +29,20 @@ public class RedisConfiguration {
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       UrlCacheInvalidationListener invalidationListener,
+                                                                       IssuedIdListener issuedIdListener,
+                                                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        var listenerExecutor = new SimpleAsyncTaskExecutor("redis-listener-");
+        listenerExecutor.setVirtualThreads(virtualThreads);
+
+        var container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(listenerExecutor);
+        container.addMessageListener(invalidationListener, new ChannelTopic(UrlCacheInvalidationListener.CHANNEL));
+        container.addMessageListener(issuedIdListener, new ChannelTopic(IssuedIdListener.CHANNEL));
+        return container;
+    }
+}
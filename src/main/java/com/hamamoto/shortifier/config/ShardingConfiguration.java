@@ -0,0 +1,88 @@
+package com.hamamoto.shortifier.config;
+
+import com.hamamoto.shortifier.replica.LoadBalancedDataSource;
+import com.hamamoto.shortifier.replica.ReadReplicaProperties;
+import com.hamamoto.shortifier.sharding.ShardDataSources;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import com.hamamoto.shortifier.sharding.ShardRoutingDataSource;
+import com.hamamoto.shortifier.sharding.ShardedSpringLiquibase;
+import com.hamamoto.shortifier.sharding.ShardingProperties;
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfiguration {
+
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties) {
+        if (properties.enabled() && (properties.shards() == null || properties.shards().isEmpty())) {
+            throw new IllegalStateException("shortifier.sharding.enabled is set but no shards are configured");
+        }
+        return new ShardRouter(properties.shardCount(), properties.strategy(), properties.rangeSize());
+    }
+
+    /**
+     * Replaces the single {@code spring.datasource} with one pool per shard behind a routing data
+     * source. The lazy proxy defers fetching a connection until the first statement, so the shard
+     * in effect at that point decides where a transaction runs. With read replicas, read-only
+     * transactions are routed the same way over each shard's replicas. Liquibase migrates every
+     * shard.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "shortifier.sharding.enabled", havingValue = "true")
+    @EnableConfigurationProperties(LiquibaseProperties.class)
+    static class ShardedDataSourceConfiguration {
+
+        @Bean
+        public ShardDataSources shardDataSources(ShardingProperties properties) {
+            return new ShardDataSources(properties.shards());
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardDataSources shardDataSources, ReadReplicaProperties replicaProperties) {
+            var shards = shardDataSources.all();
+            var targets = new HashMap<Object, Object>();
+            var replicaTargets = new HashMap<Object, Object>();
+            for (int shard = 0; shard < shards.size(); shard++) {
+                targets.put(shard, shards.get(shard));
+                replicaTargets.put(shard, new LoadBalancedDataSource(shardDataSources.replicas(shard), shards.get(shard)));
+            }
+            var proxy = new LazyConnectionDataSourceProxy(routing(targets, shards.getFirst()));
+            if (replicaProperties.enabled()) {
+                proxy.setReadOnlyDataSource(routing(replicaTargets, replicaTargets.get(0)));
+            }
+            return proxy;
+        }
+
+        private static ShardRoutingDataSource routing(Map<Object, Object> targets, Object defaultTarget) {
+            var routing = new ShardRoutingDataSource();
+            routing.setTargetDataSources(targets);
+            routing.setDefaultTargetDataSource(defaultTarget);
+            routing.setLenientFallback(false);
+            routing.afterPropertiesSet();
+            return routing;
+        }
+
+        @Bean
+        public SpringLiquibase liquibase(ShardDataSources shardDataSources, LiquibaseProperties properties) {
+            var liquibase = new ShardedSpringLiquibase(shardDataSources.all());
+            liquibase.setChangeLog(properties.getChangeLog());
+            liquibase.setChangeLogParameters(properties.getParameters());
+            liquibase.setDefaultSchema(properties.getDefaultSchema());
+            liquibase.setShouldRun(properties.isEnabled());
+            return liquibase;
+        }
+    }
+}
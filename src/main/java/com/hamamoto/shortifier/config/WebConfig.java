@@ -1,18 +1,74 @@
 package com.hamamoto.shortifier.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hamamoto.shortifier.accesslog.AccessLogFilter;
+import com.hamamoto.shortifier.accesslog.AccessLogWriter;
+import com.hamamoto.shortifier.analytics.ClickEventCollector;
+import com.hamamoto.shortifier.config.web.RedirectFilter;
+import com.hamamoto.shortifier.exception.GlobalExceptionHandler;
+import com.hamamoto.shortifier.service.UrlShortenerService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.core.Ordered;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.filter.CorsFilter;
+
+import java.util.List;
 
 @Configuration
-public class WebConfig implements WebMvcConfigurer {
+public class WebConfig {
+
+    /**
+     * Applies the CORS policy in the filter chain rather than in Spring MVC, so redirects and 404s
+     * answered by the {@link RedirectFilter} carry the same headers as the API. Preflight requests
+     * are answered here too.
+     */
+    @Bean
+    public FilterRegistrationBean<CorsFilter> corsFilter() {
+        var configuration = new CorsConfiguration();
+        configuration.addAllowedOrigin("*");
+        configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.addAllowedHeader("*");
+        configuration.setMaxAge(3600L);
+        var source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", configuration);
+
+        var registration = new FilterRegistrationBean<>(new CorsFilter(source));
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    /**
+     * Registered first so that the logged duration and status cover every other filter,
+     * including the redirect fast path.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "shortifier.access-log.enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(AccessLogWriter accessLogWriter) {
+        var registration = new FilterRegistrationBean<>(new AccessLogFilter(accessLogWriter));
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
 
-    @Override
-    public void addCorsMappings(CorsRegistry registry) {
-        registry.addMapping("/**")
-                .allowedOrigins("*")
-                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                .allowedHeaders("*")
-                .maxAge(3600);
+    /**
+     * Registered last in the filter chain so that observation and encoding filters still see
+     * redirects, while the request never reaches the DispatcherServlet.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "shortifier.redirect.fast-path.enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<RedirectFilter> redirectFilter(UrlShortenerService urlShortenerService,
+                                                                 ClickEventCollector clickEventCollector,
+                                                                 GlobalExceptionHandler exceptionHandler,
+                                                                 ObjectMapper objectMapper) {
+        var registration = new FilterRegistrationBean<>(
+                new RedirectFilter(urlShortenerService, clickEventCollector, exceptionHandler, objectMapper));
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
     }
 }
@@ -0,0 +1,205 @@
+package com.hamamoto.shortifier.config.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hamamoto.shortifier.analytics.ClickEventCollector;
+import com.hamamoto.shortifier.controller.UrlShortenerController;
+import com.hamamoto.shortifier.dto.ErrorResponse;
+import com.hamamoto.shortifier.exception.GlobalExceptionHandler;
+import com.hamamoto.shortifier.exception.ShortUrlExpiredException;
+import com.hamamoto.shortifier.exception.ShortUrlNotFoundException;
+import com.hamamoto.shortifier.service.UrlShortenerService;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+
+/**
+ * Serves {@code GET /{shortCode}} before the request reaches Spring MVC.
+ * Matching is a character scan of the request URI, and a hit is answered with a bare 302 and a
+ * {@code Location} header, so no handler mapping, argument resolution or {@code RedirectView} is
+ * involved. Errors are rendered by {@link GlobalExceptionHandler} so responses stay identical to
+ * the MVC route in {@link UrlShortenerController}, which still handles the path when this filter
+ * is disabled. The 404 body, the common answer to scanners, is spliced from a template rendered
+ * through the same handler once, with only the short code and the timestamp filled in per request.
+ * CORS headers are added by the {@code CorsFilter} registered ahead of this one, since the MVC
+ * CORS configuration never sees requests answered here.
+ */
+@Slf4j
+public class RedirectFilter implements Filter {
+    static final int MAX_SHORT_CODE_LENGTH = 10;
+    private static final Set<String> RESERVED_PATHS = Set.of("actuator", "api", "error", "ui");
+
+    private final UrlShortenerService urlShortenerService;
+    private final ClickEventCollector clickEventCollector;
+    private final GlobalExceptionHandler exceptionHandler;
+    private final ObjectMapper objectMapper;
+    private final NotFoundTemplate notFoundTemplate;
+
+    public RedirectFilter(UrlShortenerService urlShortenerService,
+                          ClickEventCollector clickEventCollector,
+                          GlobalExceptionHandler exceptionHandler,
+                          ObjectMapper objectMapper) {
+        this.urlShortenerService = urlShortenerService;
+        this.clickEventCollector = clickEventCollector;
+        this.exceptionHandler = exceptionHandler;
+        this.objectMapper = objectMapper;
+        this.notFoundTemplate = NotFoundTemplate.render(exceptionHandler, objectMapper);
+        if (notFoundTemplate == null) {
+            log.info("ObjectMapper does not write timestamps in ISO format, 404s are serialized per request");
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        var request = (HttpServletRequest) servletRequest;
+        var response = (HttpServletResponse) servletResponse;
+        var shortCode = shortCodeOf(request);
+        if (shortCode == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            var originalUrl = urlShortenerService.getOriginalUrl(shortCode);
+            clickEventCollector.record(shortCode);
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            response.setHeader(HttpHeaders.LOCATION, originalUrl);
+        } catch (ShortUrlNotFoundException e) {
+            writeNotFound(response, e, shortCode);
+        } catch (ShortUrlExpiredException e) {
+            writeError(response, exceptionHandler.handleShortUrlExpiredException(e));
+        } catch (IllegalStateException e) {
+            writeError(response, exceptionHandler.handleIllegalStateException(e));
+        } catch (RuntimeException e) {
+            writeError(response, exceptionHandler.handleGenericException(e));
+        }
+    }
+
+    /**
+     * Returns the short code if the request is a GET or HEAD for a single alphanumeric path
+     * segment, or {@code null} if it should continue down the filter chain.
+     */
+    static String shortCodeOf(HttpServletRequest request) {
+        var method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return null;
+        }
+
+        var uri = request.getRequestURI();
+        var start = request.getContextPath().length() + 1;
+        var length = uri.length() - start;
+        if (length < 1 || length > MAX_SHORT_CODE_LENGTH || uri.charAt(start - 1) != '/') {
+            return null;
+        }
+        for (int i = start; i < uri.length(); i++) {
+            var c = uri.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z')) {
+                return null;
+            }
+        }
+
+        var shortCode = uri.substring(start);
+        return RESERVED_PATHS.contains(shortCode) ? null : shortCode;
+    }
+
+    private void writeNotFound(HttpServletResponse response, ShortUrlNotFoundException e, String shortCode)
+            throws IOException {
+        if (notFoundTemplate == null) {
+            writeError(response, exceptionHandler.handleShortUrlNotFoundException(e));
+            return;
+        }
+
+        log.debug("Short URL not found: {}", e.getMessage());
+        var timestamp = NotFoundTemplate.TIMESTAMP_FORMAT.format(LocalDateTime.now());
+        response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(notFoundTemplate.length() + shortCode.length() + timestamp.length());
+        notFoundTemplate.write(response.getOutputStream(), shortCode, timestamp);
+    }
+
+    private void writeError(HttpServletResponse response, ResponseEntity<ErrorResponse> error) throws IOException {
+        response.setStatus(error.getStatusCode().value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error.getBody());
+    }
+
+    /**
+     * The 404 {@link ErrorResponse} as rendered by {@link GlobalExceptionHandler} and the
+     * application's {@link ObjectMapper}, split around the short code and the timestamp.
+     * Short codes reaching this filter are alphanumeric and ISO timestamps need no escaping either,
+     * so both are written as plain ASCII.
+     */
+    private record NotFoundTemplate(byte[] head, byte[] middle, byte[] tail, boolean codeFirst) {
+        static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        private static final String CODE_PLACEHOLDER = "{shortCode}";
+        private static final LocalDateTime PROBE_TIMESTAMP = LocalDateTime.of(2000, 1, 2, 3, 4, 5, 123_456_789);
+
+        /**
+         * Returns {@code null} if the mapper does not write timestamps as the ISO strings that
+         * Jackson's default {@code LocalDateTime} serializer produces, so the template would not
+         * match the MVC body.
+         */
+        static NotFoundTemplate render(GlobalExceptionHandler exceptionHandler, ObjectMapper objectMapper) {
+            var error = exceptionHandler.handleShortUrlNotFoundException(new ShortUrlNotFoundException(CODE_PLACEHOLDER))
+                    .getBody();
+            error.setTimestamp(PROBE_TIMESTAMP);
+            String body;
+            try {
+                body = objectMapper.writeValueAsString(error);
+            } catch (JsonProcessingException e) {
+                return null;
+            }
+
+            var timestamp = '"' + TIMESTAMP_FORMAT.format(PROBE_TIMESTAMP) + '"';
+            var code = body.indexOf(CODE_PLACEHOLDER);
+            var time = body.indexOf(timestamp);
+            if (code < 0 || time < 0 || body.indexOf(timestamp, time + 1) >= 0) {
+                return null;
+            }
+            var codeFirst = code < time;
+            var first = codeFirst ? code : time + 1;
+            var firstEnd = codeFirst ? code + CODE_PLACEHOLDER.length() : time + timestamp.length() - 1;
+            var second = codeFirst ? time + 1 : code;
+            var secondEnd = codeFirst ? time + timestamp.length() - 1 : code + CODE_PLACEHOLDER.length();
+            return new NotFoundTemplate(
+                    body.substring(0, first).getBytes(StandardCharsets.UTF_8),
+                    body.substring(firstEnd, second).getBytes(StandardCharsets.UTF_8),
+                    body.substring(secondEnd).getBytes(StandardCharsets.UTF_8),
+                    codeFirst);
+        }
+
+        int length() {
+            return head.length + middle.length + tail.length;
+        }
+
+        void write(OutputStream output, String shortCode, String timestamp) throws IOException {
+            output.write(head);
+            writeAscii(output, codeFirst ? shortCode : timestamp);
+            output.write(middle);
+            writeAscii(output, codeFirst ? timestamp : shortCode);
+            output.write(tail);
+        }
+
+        private static void writeAscii(OutputStream output, String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                output.write(value.charAt(i));
+            }
+        }
+    }
+}
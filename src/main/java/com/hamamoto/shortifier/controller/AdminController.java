@@ -0,0 +1,72 @@
+package com.hamamoto.shortifier.controller;
+
+import com.hamamoto.shortifier.dto.ImportResponse;
+import com.hamamoto.shortifier.dto.RebalanceResponse;
+import com.hamamoto.shortifier.dto.ShardStatus;
+import com.hamamoto.shortifier.dto.TrendingLink;
+import com.hamamoto.shortifier.service.UrlMappingTransferService;
+import com.hamamoto.shortifier.sharding.ShardRebalancer;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import com.hamamoto.shortifier.trending.TrendingLinkPinner;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminController {
+    static final String NDJSON = "application/x-ndjson";
+
+    private final UrlMappingTransferService urlMappingTransferService;
+    private final ShardRebalancer shardRebalancer;
+    private final ShardRouter shardRouter;
+    private final TrendingLinkPinner trendingLinkPinner;
+
+    @GetMapping("/export")
+    public void exportMappings(@RequestParam(required = false) Integer shard,
+                               HttpServletResponse response) throws IOException {
+        log.info("Received export request for shard {}", shard != null ? shard : "all");
+        if (shard != null && !shardRouter.shards().contains(shard)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown shard: " + shard);
+            return;
+        }
+        response.setContentType(NDJSON);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"url_mapping.ndjson\"");
+        if (shard == null) {
+            urlMappingTransferService.exportTo(response.getOutputStream());
+        } else {
+            urlMappingTransferService.exportTo(response.getOutputStream(), List.of(shard));
+        }
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<ImportResponse> importMappings(InputStream body) throws IOException {
+        log.info("Received import request");
+        return ResponseEntity.ok(urlMappingTransferService.importFrom(body));
+    }
+
+    @GetMapping("/shards")
+    public ResponseEntity<List<ShardStatus>> shards() {
+        return ResponseEntity.ok(shardRebalancer.status());
+    }
+
+    @PostMapping("/shards/rebalance")
+    public ResponseEntity<RebalanceResponse> rebalance() {
+        log.info("Received rebalance request");
+        return ResponseEntity.ok(shardRebalancer.rebalance());
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingLink>> trending() {
+        return ResponseEntity.ok(trendingLinkPinner.trending());
+    }
+}
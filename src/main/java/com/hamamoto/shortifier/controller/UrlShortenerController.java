@@ -1,7 +1,10 @@
 package com.hamamoto.shortifier.controller;
 
+import com.hamamoto.shortifier.analytics.ClickEventCollector;
+import com.hamamoto.shortifier.dto.BatchShortenResponse;
 import com.hamamoto.shortifier.dto.ShortenRequest;
 import com.hamamoto.shortifier.dto.ShortenResponse;
+import com.hamamoto.shortifier.service.BatchShortenService;
 import com.hamamoto.shortifier.service.UrlShortenerService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +14,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.view.RedirectView;
 
+import java.util.List;
+
 @RestController
 @RequestMapping
 @RequiredArgsConstructor
@@ -18,18 +23,29 @@ import org.springframework.web.servlet.view.RedirectView;
 public class UrlShortenerController {
 
     private final UrlShortenerService urlShortenerService;
+    private final BatchShortenService batchShortenService;
+    private final ClickEventCollector clickEventCollector;
 
     @PostMapping("/api/shorten")
     public ResponseEntity<ShortenResponse> shortenUrl(@Valid @RequestBody ShortenRequest request) {
-        log.info("Received shorten request for URL: {}", request.getUrl());
-        var response = urlShortenerService.shortenUrl(request);
+        log.debug("Received shorten request for URL: {}", request.getUrl());
+        var response = urlShortenerService.isWriteBehindEnabled()
+                ? urlShortenerService.shortenUrlWriteBehind(request)
+                : urlShortenerService.shortenUrl(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("/api/shorten/batch")
+    public ResponseEntity<BatchShortenResponse> shortenUrls(@RequestBody List<ShortenRequest> requests) {
+        log.debug("Received batch shorten request for {} URLs", requests.size());
+        return ResponseEntity.ok(batchShortenService.shortenUrls(requests));
+    }
+
     @GetMapping("/{shortCode}")
     public RedirectView redirect(@PathVariable String shortCode) {
-        log.info("Received redirect request for short code: {}", shortCode);
+        log.debug("Received redirect request for short code: {}", shortCode);
         var originalUrl = urlShortenerService.getOriginalUrl(shortCode);
+        clickEventCollector.record(shortCode);
         return new RedirectView(originalUrl);
     }
 }
\ No newline at end of file
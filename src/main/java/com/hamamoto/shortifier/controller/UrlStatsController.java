@@ -0,0 +1,28 @@
+package com.hamamoto.shortifier.controller;
+
+import com.hamamoto.shortifier.analytics.ClickStatsService;
+import com.hamamoto.shortifier.analytics.RollupGranularity;
+import com.hamamoto.shortifier.dto.UrlStatsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/urls")
+@RequiredArgsConstructor
+public class UrlStatsController {
+
+    private final ClickStatsService clickStatsService;
+
+    @GetMapping("/{shortCode}/stats")
+    public ResponseEntity<UrlStatsResponse> getStats(
+            @PathVariable String shortCode,
+            @RequestParam(defaultValue = "HOUR") RollupGranularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(clickStatsService.getStats(shortCode, granularity, from, to));
+    }
+}
@@ -0,0 +1,19 @@
+package com.hamamoto.shortifier.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchShortenResponse {
+
+    private int created;
+    private int failed;
+    private List<BatchShortenResult> results;
+}
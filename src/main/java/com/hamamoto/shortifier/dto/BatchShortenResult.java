@@ -0,0 +1,24 @@
+package com.hamamoto.shortifier.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchShortenResult {
+
+    public enum Status { CREATED, INVALID, FAILED }
+
+    private int index;
+    private Status status;
+    private ShortenResponse result;
+    private Map<String, String> errors;
+}
@@ -0,0 +1,18 @@
+package com.hamamoto.shortifier.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClickBucket {
+
+    private LocalDateTime bucketStart;
+    private long clicks;
+}
\ No newline at end of file
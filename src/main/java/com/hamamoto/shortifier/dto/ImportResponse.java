@@ -0,0 +1,19 @@
+package com.hamamoto.shortifier.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResponse {
+
+    private long read;
+    private long imported;
+    private long skipped;
+    private long invalid;
+    private long durationMillis;
+}
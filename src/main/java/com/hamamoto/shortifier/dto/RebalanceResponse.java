@@ -0,0 +1,17 @@
+package com.hamamoto.shortifier.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RebalanceResponse {
+
+    private long scanned;
+    private long moved;
+    private long durationMillis;
+}
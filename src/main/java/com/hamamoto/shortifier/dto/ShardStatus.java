@@ -0,0 +1,18 @@
+package com.hamamoto.shortifier.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardStatus {
+
+    private int shard;
+    private long mappings;
+    private Long minId;
+    private Long maxId;
+}
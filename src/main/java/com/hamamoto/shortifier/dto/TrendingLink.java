@@ -0,0 +1,19 @@
+package com.hamamoto.shortifier.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingLink {
+
+    private String shortCode;
+    private long requests;
+    private double requestsPerSecond;
+    private double share;
+    private boolean pinned;
+}
@@ -0,0 +1,25 @@
+package com.hamamoto.shortifier.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of the NDJSON export/import format.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UrlMappingRecord {
+
+    private Long id;
+    private String shortCode;
+    private String originalUrl;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+    private Long accessCount;
+}
@@ -0,0 +1,23 @@
+package com.hamamoto.shortifier.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UrlStatsResponse {
+
+    private String shortCode;
+    private String granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long totalClicks;
+    private List<ClickBucket> buckets;
+}
\ No newline at end of file
@@ -1,32 +1,45 @@
 package com.hamamoto.shortifier.entity;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 
+/**
+ * A short code and the URL it redirects to.
+ * The ID is the counter value the short code was generated from, so a code decodes
+ * straight to its primary key. Because the ID is assigned rather than generated,
+ * {@link #isNew()} tells Spring Data to insert without a preceding select.
+ */
 @Entity
 @Table(name = "url_mapping")
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class UrlMapping {
+public class UrlMapping implements Persistable<Long> {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "short_code", nullable = false, unique = true, length = 5)
+    @Column(name = "short_code", nullable = false, unique = true, length = 10)
     private String shortCode;
 
     @Column(name = "original_url", nullable = false, length = 255)
     private String originalUrl;
 
+    @Column(name = "original_url_hash")
+    private Long originalUrlHash;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     @CreationTimestamp
     private LocalDateTime createdAt;
@@ -37,4 +50,22 @@ public class UrlMapping {
     @Column(name = "access_count", nullable = false)
     @Builder.Default
     private Long accessCount = 0L;
+
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private boolean isNew = true;
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -33,7 +34,43 @@ public class GlobalExceptionHandler {
                 .errors(fieldErrors)
                 .build();
 
-        log.warn("Validation failed: {}", fieldErrors);
+        log.debug("Validation failed: {}", fieldErrors);
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleTypeMismatchException(MethodArgumentTypeMismatchException ex) {
+        var errorResponse = ErrorResponse.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message("Invalid value for parameter: " + ex.getName())
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        log.debug("Invalid request parameter {}: {}", ex.getName(), ex.getValue());
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    @ExceptionHandler(InvalidBatchSizeException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidBatchSizeException(InvalidBatchSizeException ex) {
+        var errorResponse = ErrorResponse.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        log.warn("Batch rejected: {}", ex.getMessage());
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidImportException(InvalidImportException ex) {
+        var errorResponse = ErrorResponse.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        log.warn("Import aborted: {}", ex.getMessage());
         return ResponseEntity.badRequest().body(errorResponse);
     }
 
@@ -45,7 +82,7 @@ public class GlobalExceptionHandler {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        log.warn("Short URL not found: {}", ex.getMessage());
+        log.debug("Short URL not found: {}", ex.getMessage());
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
     }
 
@@ -57,7 +94,7 @@ public class GlobalExceptionHandler {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        log.warn("Short URL expired: {}", ex.getMessage());
+        log.debug("Short URL expired: {}", ex.getMessage());
         return ResponseEntity.status(HttpStatus.GONE).body(errorResponse);
     }
 
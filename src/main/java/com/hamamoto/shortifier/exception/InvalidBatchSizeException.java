@@ -0,0 +1,10 @@
+package com.hamamoto.shortifier.exception;
+
+public class InvalidBatchSizeException extends RuntimeException {
+
+    public InvalidBatchSizeException(int size, int maxSize) {
+        super(size == 0
+                ? "Batch must contain at least one URL"
+                : "Batch must contain at most " + maxSize + " URLs, got " + size);
+    }
+}
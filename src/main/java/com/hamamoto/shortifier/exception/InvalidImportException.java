@@ -0,0 +1,8 @@
+package com.hamamoto.shortifier.exception;
+
+public class InvalidImportException extends RuntimeException {
+
+    public InvalidImportException(long line, long imported, Throwable cause) {
+        super("Malformed record on line " + line + "; " + imported + " mappings were imported before it", cause);
+    }
+}
@@ -3,6 +3,6 @@ package com.hamamoto.shortifier.exception;
 public class ShortUrlExpiredException extends RuntimeException {
 
     public ShortUrlExpiredException(String shortCode) {
-        super("Short URL has expired: " + shortCode);
+        super("Short URL has expired: " + shortCode, null, false, false);
     }
-}
\ No newline at end of file
+}
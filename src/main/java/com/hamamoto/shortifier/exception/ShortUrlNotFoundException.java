@@ -1,8 +1,12 @@
 package com.hamamoto.shortifier.exception;
 
+/**
+ * Thrown for every unknown short code, including scanner traffic, so it skips the stack trace.
+ */
 public class ShortUrlNotFoundException extends RuntimeException {
+    private static final String MESSAGE_PREFIX = "Short URL not found: ";
 
     public ShortUrlNotFoundException(String shortCode) {
-        super("Short URL not found: " + shortCode);
+        super(MESSAGE_PREFIX + shortCode, null, false, false);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package com.hamamoto.shortifier.migration;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import lombok.Setter;
+import org.hashids.Hashids;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * Rewrites every {@code url_mapping.id} to the counter ID its short code was generated from,
+ * so that the primary key can be derived from the code alone.
+ * Rows are first moved to negative IDs to keep the rewrite free of key collisions,
+ * then decoded back in small batches.
+ */
+public class BackfillCounterIdsChange implements CustomTaskChange {
+    private static final int MIN_CODE_LENGTH = 7;
+    private static final int BATCH_SIZE = 1000;
+
+    @Setter
+    private String salt;
+
+    private int updatedRows;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        var connection = (JdbcConnection) database.getConnection();
+        var hashids = new Hashids(salt, MIN_CODE_LENGTH);
+
+        try (var negate = connection.prepareStatement("UPDATE url_mapping SET id = -id WHERE id > 0");
+             var select = connection.prepareStatement(
+                     "SELECT id, short_code FROM url_mapping WHERE id < 0 ORDER BY id LIMIT " + BATCH_SIZE);
+             var update = connection.prepareStatement("UPDATE url_mapping SET id = ? WHERE id = ?")) {
+            negate.executeUpdate();
+
+            while (true) {
+                var rows = new ArrayList<long[]>();
+                try (var resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        var shortCode = resultSet.getString("short_code");
+                        var decoded = hashids.decode(shortCode);
+                        if (decoded.length != 1) {
+                            throw new CustomChangeException("Short code " + shortCode
+                                    + " does not decode with the configured salt");
+                        }
+                        rows.add(new long[]{decoded[0], resultSet.getLong("id")});
+                    }
+                }
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                for (var row : rows) {
+                    update.setLong(1, row[0]);
+                    update.setLong(2, row[1]);
+                    update.addBatch();
+                }
+                update.executeBatch();
+                updatedRows += rows.size();
+            }
+        } catch (SQLException | DatabaseException e) {
+            throw new CustomChangeException("Could not backfill counter IDs", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Backfilled counter IDs for " + updatedRows + " url_mapping rows";
+    }
+
+    @Override
+    public void setUp() {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        var errors = new ValidationErrors();
+        errors.checkRequiredField("salt", salt);
+        return errors;
+    }
+}
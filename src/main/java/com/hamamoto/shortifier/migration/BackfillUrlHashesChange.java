@@ -0,0 +1,81 @@
+package com.hamamoto.shortifier.migration;
+
+import com.hamamoto.shortifier.util.UrlHash;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * Fills {@code original_url_hash} for rows created before the column existed, in
+ * {@code url_mapping} unless the changeset names another table.
+ * The hash is computed in Java with {@link UrlHash} so that it matches what the application writes.
+ */
+public class BackfillUrlHashesChange implements CustomTaskChange {
+    private static final int BATCH_SIZE = 1000;
+
+    private String tableName = "url_mapping";
+    private int updatedRows;
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        var connection = (JdbcConnection) database.getConnection();
+
+        try (var select = connection.prepareStatement("SELECT id, original_url FROM " + tableName
+                + " WHERE original_url_hash IS NULL AND id > ? ORDER BY id LIMIT " + BATCH_SIZE);
+             var update = connection.prepareStatement("UPDATE " + tableName + " SET original_url_hash = ? WHERE id = ?")) {
+            var lastId = Long.MIN_VALUE;
+            while (true) {
+                var rows = new ArrayList<long[]>();
+                select.setLong(1, lastId);
+                try (var resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        rows.add(new long[]{UrlHash.of(resultSet.getString("original_url")), resultSet.getLong("id")});
+                    }
+                }
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                for (var row : rows) {
+                    update.setLong(1, row[0]);
+                    update.setLong(2, row[1]);
+                    update.addBatch();
+                }
+                update.executeBatch();
+                updatedRows += rows.size();
+                lastId = rows.getLast()[1];
+            }
+        } catch (SQLException | DatabaseException e) {
+            throw new CustomChangeException("Could not backfill URL hashes", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Backfilled original_url_hash for " + updatedRows + " " + tableName + " rows";
+    }
+
+    @Override
+    public void setUp() {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
@@ -0,0 +1,94 @@
+package com.hamamoto.shortifier.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stage timers and outcome counters for shortening and redirecting.
+ * Every meter is registered once up front, so recording is an array lookup plus the meter's own
+ * lock-free update, cheap enough to stay on in production. Stage timers publish percentile
+ * histogram buckets between {@link #MIN_EXPECTED} and {@link #MAX_EXPECTED}, which Prometheus
+ * aggregates across instances; no quantiles are computed in process.
+ */
+@Component
+public class ShortifierMetrics {
+    static final Duration MIN_EXPECTED = Duration.ofNanos(500);
+    static final Duration MAX_EXPECTED = Duration.ofSeconds(10);
+
+    public enum Stage {
+        /** Taking an ID from the leased counter block, including waiting for a lease. */
+        ID_ALLOCATION,
+        CODE_GENERATION,
+        /** Inserting a new mapping, flushed so the timer covers the INSERT. */
+        DB_SAVE,
+        /** Appending a new mapping to the write-behind log, including the group fsync. */
+        LOG_APPEND,
+        /** Looking up a mapping by primary key after both caches missed. */
+        DB_LOOKUP,
+        /** Repeating a lookup on the primary after a read replica did not have the mapping. */
+        PRIMARY_LOOKUP,
+        /** Looking up a mapping in the archive after the hot table did not have it. */
+        ARCHIVE_LOOKUP,
+        /** Looking up an existing mapping for URL deduplication. */
+        DEDUP_LOOKUP,
+        /** Reading the shared Redis cache after the local cache missed. */
+        SHARED_CACHE_LOOKUP,
+        EXPIRY_CHECK;
+
+        final String tag = name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    public enum Outcome {
+        CREATED,
+        /** A shorten answered with an existing code by URL deduplication. */
+        REUSED,
+        REDIRECTED,
+        NOT_FOUND,
+        EXPIRED;
+
+        final String tag = name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    private final EnumMap<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final EnumMap<Outcome, Counter> outcomeCounters = new EnumMap<>(Outcome.class);
+
+    public ShortifierMetrics(MeterRegistry meterRegistry) {
+        for (var stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("shortifier.stage")
+                    .tag("stage", stage.tag)
+                    .description("Time spent in one stage of shortening or redirecting")
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(MAX_EXPECTED)
+                    .register(meterRegistry));
+        }
+        for (var outcome : Outcome.values()) {
+            outcomeCounters.put(outcome, Counter.builder("shortifier.outcomes")
+                    .tag("outcome", outcome.tag)
+                    .description("Shorten and redirect requests by outcome")
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Records the time since {@code startNanos}, a {@link System#nanoTime()} reading.
+     */
+    public void recordStage(Stage stage, long startNanos) {
+        stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordOutcome(Outcome outcome) {
+        outcomeCounters.get(outcome).increment();
+    }
+
+    public void recordOutcomes(Outcome outcome, long count) {
+        outcomeCounters.get(outcome).increment(count);
+    }
+}
@@ -0,0 +1,51 @@
+package com.hamamoto.shortifier.replica;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections from a set of replicas in round-robin order.
+ * A replica that cannot supply a connection within its pool's timeout is skipped for that request,
+ * and when none can, the connection comes from the fallback, normally the primary, so reads
+ * degrade to the primary instead of failing.
+ */
+@Slf4j
+public class LoadBalancedDataSource extends AbstractDataSource {
+    private final List<DataSource> replicas;
+    private final DataSource fallback;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public LoadBalancedDataSource(List<DataSource> replicas, DataSource fallback) {
+        this.replicas = List.copyOf(replicas);
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        var start = next.getAndIncrement();
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            var replica = replicas.get(Math.floorMod(start + attempt, replicas.size()));
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                log.warn("Read replica unavailable, trying the next one: {}", e.getMessage());
+            }
+        }
+        return fallback.getConnection();
+    }
+
+    /**
+     * Replica credentials are configured per pool, so connections for other credentials come
+     * from the fallback.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return fallback.getConnection(username, password);
+    }
+}
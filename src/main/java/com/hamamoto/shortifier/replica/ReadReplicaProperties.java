@@ -0,0 +1,24 @@
+package com.hamamoto.shortifier.replica;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Binds {@code shortifier.read-replicas.*}. Without sharding the replicas listed here serve
+ * {@code spring.datasource}; with sharding each shard lists its own replicas and only
+ * {@link #enabled()} is read from here.
+ */
+@ConfigurationProperties("shortifier.read-replicas")
+public record ReadReplicaProperties(boolean enabled,
+                                    List<Replica> replicas) {
+
+    public record Replica(String url,
+                          String username,
+                          String password,
+                          @DefaultValue("10") int maximumPoolSize,
+                          @DefaultValue("PT1S") Duration connectionTimeout) {
+    }
+}
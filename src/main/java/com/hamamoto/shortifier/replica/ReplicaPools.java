@@ -0,0 +1,41 @@
+package com.hamamoto.shortifier.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One connection pool per configured replica, named {@code <prefix>-<index>}.
+ */
+public class ReplicaPools implements AutoCloseable {
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    public ReplicaPools(String poolPrefix, List<ReadReplicaProperties.Replica> replicas) {
+        if (replicas == null) {
+            return;
+        }
+        for (int index = 0; index < replicas.size(); index++) {
+            var replica = replicas.get(index);
+            var pool = new HikariDataSource();
+            pool.setPoolName(poolPrefix + "-" + index);
+            pool.setJdbcUrl(replica.url());
+            pool.setUsername(replica.username());
+            pool.setPassword(replica.password());
+            pool.setMaximumPoolSize(replica.maximumPoolSize());
+            pool.setConnectionTimeout(replica.connectionTimeout().toMillis());
+            pool.setReadOnly(true);
+            pools.add(pool);
+        }
+    }
+
+    public List<DataSource> all() {
+        return List.copyOf(pools);
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
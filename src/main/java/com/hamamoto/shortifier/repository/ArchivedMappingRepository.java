@@ -0,0 +1,90 @@
+package com.hamamoto.shortifier.repository;
+
+import com.hamamoto.shortifier.entity.UrlMapping;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Reads and fills {@code url_mapping_archive}, where cold mappings are moved out of the hot table.
+ * Archived rows keep their ID, so a short code still decodes straight to the archive's primary key.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ArchivedMappingRepository {
+    private static final String FIND_SQL = """
+            SELECT id, short_code, original_url, original_url_hash, created_at, expires_at, access_count
+            FROM url_mapping_archive WHERE id = ?
+            """;
+
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM url_mapping_archive WHERE id = ?";
+
+    private static final String ALL_SQL = """
+            SELECT id, short_code, original_url, original_url_hash, created_at, expires_at, access_count
+            FROM url_mapping_archive ORDER BY id
+            """;
+
+    private static final String ARCHIVE_SQL = """
+            INSERT INTO url_mapping_archive (id, short_code, original_url, original_url_hash, created_at, expires_at,
+                                             access_count, archived_at)
+            SELECT id, short_code, original_url, original_url_hash, created_at, expires_at, access_count, ?
+            FROM url_mapping WHERE id = ?
+            """;
+
+    private static final String DELETE_HOT_SQL = "DELETE FROM url_mapping WHERE id = ?";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final RowMapper<UrlMapping> MAPPER = (rs, rowNum) -> UrlMapping.builder()
+            .id(rs.getLong("id"))
+            .shortCode(rs.getString("short_code"))
+            .originalUrl(rs.getString("original_url"))
+            .originalUrlHash(rs.getObject("original_url_hash", Long.class))
+            .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+            .expiresAt(rs.getTimestamp("expires_at") != null ? rs.getTimestamp("expires_at").toLocalDateTime() : null)
+            .accessCount(rs.getLong("access_count"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<UrlMapping> findById(long id) {
+        return jdbcTemplate.query(FIND_SQL, MAPPER, id).stream().findFirst();
+    }
+
+    public boolean existsById(long id) {
+        var count = jdbcTemplate.queryForObject(EXISTS_SQL, Long.class, id);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Passes every archived mapping to the consumer in ID order without holding them in memory.
+     */
+    public void forEach(Consumer<UrlMapping> consumer) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(ALL_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(MAPPER.mapRow(rs, 0)));
+    }
+
+    /**
+     * Copies the mappings to the archive and deletes them from {@code url_mapping}.
+     * Callers must run this in a transaction so each row ends up in exactly one of the tables.
+     */
+    public void archive(List<Long> ids, LocalDateTime archivedAt) {
+        var timestamp = Timestamp.valueOf(archivedAt);
+        jdbcTemplate.batchUpdate(ARCHIVE_SQL, ids, ids.size(), (statement, id) -> {
+            statement.setTimestamp(1, timestamp);
+            statement.setLong(2, id);
+        });
+        jdbcTemplate.batchUpdate(DELETE_HOT_SQL, ids, ids.size(), (statement, id) -> statement.setLong(1, id));
+    }
+}
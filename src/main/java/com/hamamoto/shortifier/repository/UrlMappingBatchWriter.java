@@ -0,0 +1,80 @@
+package com.hamamoto.shortifier.repository;
+
+import com.hamamoto.shortifier.entity.UrlMapping;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Inserts many mappings with real JDBC batch statements, bypassing the persistence context.
+ * Callers are responsible for assigning IDs and for transaction boundaries.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlMappingBatchWriter {
+    private static final String INSERT_SQL = """
+            INSERT INTO url_mapping (id, short_code, original_url, created_at, expires_at, access_count, original_url_hash)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_IF_ABSENT_SQL = """
+            INSERT INTO url_mapping (id, short_code, original_url, created_at, expires_at, access_count, original_url_hash)
+            SELECT CAST(? AS BIGINT), CAST(? AS VARCHAR(10)), CAST(? AS VARCHAR(255)),
+                   CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP), CAST(? AS BIGINT), CAST(? AS BIGINT)
+            WHERE NOT EXISTS (SELECT 1 FROM url_mapping WHERE id = ? OR short_code = ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(List<UrlMapping> mappings) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, mappings, mappings.size(), UrlMappingBatchWriter::bindMapping);
+    }
+
+    /**
+     * Inserts the mappings whose ID and short code are both unused, skipping the rest.
+     *
+     * @return the number of rows actually inserted
+     */
+    public int insertIfAbsent(List<UrlMapping> mappings) {
+        var counts = jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, mappings, mappings.size(), (statement, mapping) -> {
+            bindMapping(statement, mapping);
+            statement.setLong(8, mapping.getId());
+            statement.setString(9, mapping.getShortCode());
+        });
+
+        var inserted = 0;
+        for (var batch : counts) {
+            for (var count : batch) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    inserted++;
+                }
+            }
+        }
+        return inserted;
+    }
+
+    private static void bindMapping(PreparedStatement statement, UrlMapping mapping) throws SQLException {
+        statement.setLong(1, mapping.getId());
+        statement.setString(2, mapping.getShortCode());
+        statement.setString(3, mapping.getOriginalUrl());
+        statement.setTimestamp(4, Timestamp.valueOf(mapping.getCreatedAt()));
+        if (mapping.getExpiresAt() != null) {
+            statement.setTimestamp(5, Timestamp.valueOf(mapping.getExpiresAt()));
+        } else {
+            statement.setNull(5, Types.TIMESTAMP);
+        }
+        statement.setLong(6, mapping.getAccessCount() != null ? mapping.getAccessCount() : 0L);
+        if (mapping.getOriginalUrlHash() != null) {
+            statement.setLong(7, mapping.getOriginalUrlHash());
+        } else {
+            statement.setNull(7, Types.BIGINT);
+        }
+    }
+}
@@ -1,15 +1,52 @@
 package com.hamamoto.shortifier.repository;
 
 import com.hamamoto.shortifier.entity.UrlMapping;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UrlMappingRepository extends JpaRepository<UrlMapping, Long> {
 
     Optional<UrlMapping> findByShortCode(String shortCode);
 
+    /**
+     * Finds a mapping by ID in a read-write transaction, which keeps the lookup on the primary
+     * when read replicas are configured. Plain {@link #findById} runs read-only and may be served
+     * by a lagging replica.
+     */
+    @Transactional
+    @Query("select u from UrlMapping u where u.id = :id")
+    Optional<UrlMapping> findByIdOnPrimary(@Param("id") long id);
+
     boolean existsByShortCode(String shortCode);
-}
\ No newline at end of file
+
+    /**
+     * Finds a non-expiring mapping for the URL, narrowed by the indexed hash before the string comparison.
+     */
+    Optional<UrlMapping> findFirstByOriginalUrlHashAndOriginalUrlAndExpiresAtIsNull(long originalUrlHash,
+                                                                                      String originalUrl);
+
+    /**
+     * Streams every mapping in ID order through a forward-only cursor.
+     * Must be consumed inside a transaction, and callers should detach each entity once handled
+     * so the persistence context does not grow with the table.
+     */
+    @Query("select u from UrlMapping u order by u.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<UrlMapping> streamAll();
+
+    @Query("select coalesce(max(u.id), 0) from UrlMapping u")
+    long findMaxId();
+}
@@ -0,0 +1,187 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import com.hamamoto.shortifier.writebehind.WriteBehindLog;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts redirects in memory and periodically adds the deltas to {@code url_mapping.access_count}.
+ * Recording a hit is a striped {@link LongAdder} increment, so the redirect path never writes to
+ * the database; the flusher applies all pending deltas in one batched JDBC update per shard.
+ * Hits on mappings still waiting in the {@link WriteBehindLog} are kept until their row exists.
+ */
+@Service
+@Slf4j
+public class AccessCountService {
+    private static final String UPDATE_SQL = "UPDATE url_mapping SET access_count = access_count + ? WHERE id = ?";
+
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final WriteBehindLog writeBehindLog;
+    private final int batchSize;
+
+    private volatile long lastFlushNanos = System.nanoTime();
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+
+    public AccessCountService(JdbcTemplate jdbcTemplate,
+                              ShardRouter shardRouter,
+                              WriteBehindLog writeBehindLog,
+                              MeterRegistry meterRegistry,
+                              @Value("${shortifier.access-count.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.writeBehindLog = writeBehindLog;
+        this.batchSize = batchSize;
+
+        this.flushTimer = Timer.builder("shortifier.access-count.flush")
+                .description("Time spent writing access count deltas")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("shortifier.access-count.flush.batch-size")
+                .description("Rows updated per access count flush")
+                .register(meterRegistry);
+        Gauge.builder("shortifier.access-count.flush.lag", this, AccessCountService::secondsSinceLastFlush)
+                .description("Seconds since access counts were last written")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("shortifier.access-count.pending", pending, ConcurrentHashMap::size)
+                .description("Mappings with unflushed access counts")
+                .register(meterRegistry);
+    }
+
+    public void recordAccess(long id) {
+        add(id, 1);
+    }
+
+    /**
+     * Adds to the mapping's pending count. The flusher removes idle adders concurrently, so an
+     * update that finds its adder gone afterwards takes back whatever the flusher has not seen and
+     * moves it to the current adder; every hit is counted exactly once.
+     */
+    private void add(long id, long delta) {
+        while (delta != 0) {
+            var counter = pending.get(id);
+            if (counter == null) {
+                counter = pending.computeIfAbsent(id, key -> new LongAdder());
+            }
+            counter.add(delta);
+            if (pending.get(id) == counter) {
+                return;
+            }
+            delta = counter.sumThenReset();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shortifier.access-count.flush-interval:PT5S}")
+    public synchronized void flush() {
+        var deltas = new ArrayList<long[]>();
+        for (var entry : pending.entrySet()) {
+            var delta = entry.getValue().sumThenReset();
+            if (delta == 0) {
+                retire(entry.getKey(), entry.getValue());
+            } else {
+                deltas.add(new long[]{entry.getKey(), delta});
+            }
+        }
+
+        if (!deltas.isEmpty()) {
+            // A stable row order keeps concurrent flushes from several instances from deadlocking
+            deltas.sort(Comparator.comparingLong(delta -> delta[0]));
+            var start = System.nanoTime();
+            var failed = false;
+            for (var shardDeltas : shardRouter.partition(deltas, delta -> delta[0]).entrySet()) {
+                failed |= !flushShard(shardDeltas.getKey(), shardDeltas.getValue());
+            }
+            if (failed) {
+                return;
+            }
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizes.record(deltas.size());
+            log.debug("Flushed access counts for {} mappings", deltas.size());
+        }
+        lastFlushNanos = System.nanoTime();
+    }
+
+    private boolean flushShard(int shard, List<long[]> deltas) {
+        // Checked before the update, so a row landing in between still keeps its delta
+        var unstored = new boolean[deltas.size()];
+        for (int i = 0; i < deltas.size(); i++) {
+            unstored[i] = writeBehindLog.findPending(deltas.get(i)[0]) != null;
+        }
+        try {
+            var counts = ShardContext.call(shard, () -> jdbcTemplate.batchUpdate(UPDATE_SQL, deltas, batchSize,
+                    (statement, delta) -> {
+                        statement.setLong(1, delta[1]);
+                        statement.setLong(2, delta[0]);
+                    }));
+            keepUnstored(deltas, unstored, counts);
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Access count flush of {} rows failed, retrying on next run: {}", deltas.size(), e.getMessage());
+            deltas.forEach(delta -> add(delta[0], delta[1]));
+            return false;
+        }
+    }
+
+    /**
+     * Re-queues the deltas that matched no row because their mapping was still waiting in the
+     * write-behind log, so they are added once it is stored. Deltas of mappings that are gone,
+     * such as reaped ones, are dropped.
+     */
+    private void keepUnstored(List<long[]> deltas, boolean[] unstored, int[][] counts) {
+        if (counts == null) {
+            return;
+        }
+        var index = 0;
+        for (var chunk : counts) {
+            for (var count : chunk) {
+                if (index < deltas.size() && count == 0 && unstored[index]) {
+                    add(deltas.get(index)[0], deltas.get(index)[1]);
+                }
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Removes an adder that saw no hits since the last flush. Hits that land on it between the
+     * reset and the removal are collected again and kept for the next flush.
+     */
+    private void retire(long id, LongAdder counter) {
+        if (pending.remove(id, counter)) {
+            var late = counter.sumThenReset();
+            if (late != 0) {
+                add(id, late);
+            }
+        }
+    }
+
+    @PreDestroy
+    void drain() {
+        flush();
+    }
+
+    private double secondsSinceLastFlush() {
+        return (System.nanoTime() - lastFlushNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
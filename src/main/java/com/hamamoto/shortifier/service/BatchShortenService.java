@@ -0,0 +1,182 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import com.hamamoto.shortifier.dto.BatchShortenResponse;
+import com.hamamoto.shortifier.dto.BatchShortenResult;
+import com.hamamoto.shortifier.dto.ShortenRequest;
+import com.hamamoto.shortifier.dto.ShortenResponse;
+import com.hamamoto.shortifier.entity.UrlMapping;
+import com.hamamoto.shortifier.exception.InvalidBatchSizeException;
+import com.hamamoto.shortifier.monitoring.ShortifierMetrics;
+import com.hamamoto.shortifier.repository.UrlMappingBatchWriter;
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Shortens many URLs in one call.
+ * Every request is validated individually, the valid ones share IDs reserved from the
+ * allocator in one call, and the rows are written with JDBC batch inserts in chunked transactions,
+ * one per shard within a chunk. A failing transaction only fails its own items.
+ */
+@Service
+@Slf4j
+public class BatchShortenService {
+
+    private final IdAllocator idAllocator;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final UrlMappingBatchWriter urlMappingBatchWriter;
+    private final UrlDeduplicator urlDeduplicator;
+    private final ShortifierMetrics metrics;
+    private final ShardRouter shardRouter;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+    private final int chunkSize;
+
+    @Value("${shortifier.base-url:http://localhost:8080}")
+    private String baseUrl;
+
+    public BatchShortenService(IdAllocator idAllocator,
+                               ShortCodeGenerator shortCodeGenerator,
+                               UrlMappingBatchWriter urlMappingBatchWriter,
+                               UrlDeduplicator urlDeduplicator,
+                               ShortifierMetrics metrics,
+                               ShardRouter shardRouter,
+                               Validator validator,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${shortifier.batch.max-size:10000}") int maxBatchSize,
+                               @Value("${shortifier.batch.chunk-size:1000}") int chunkSize) {
+        this.idAllocator = idAllocator;
+        this.shortCodeGenerator = shortCodeGenerator;
+        this.urlMappingBatchWriter = urlMappingBatchWriter;
+        this.urlDeduplicator = urlDeduplicator;
+        this.metrics = metrics;
+        this.shardRouter = shardRouter;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatchSize = maxBatchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    public BatchShortenResponse shortenUrls(List<ShortenRequest> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > maxBatchSize) {
+            throw new InvalidBatchSizeException(requests == null ? 0 : requests.size(), maxBatchSize);
+        }
+
+        var results = new BatchShortenResult[requests.size()];
+        var validIndexes = new ArrayList<Integer>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            var errors = validate(requests.get(i));
+            if (errors.isEmpty()) {
+                validIndexes.add(i);
+            } else {
+                results[i] = BatchShortenResult.builder()
+                        .index(i)
+                        .status(BatchShortenResult.Status.INVALID)
+                        .errors(errors)
+                        .build();
+            }
+        }
+
+        if (!validIndexes.isEmpty()) {
+            var ids = idAllocator.reserveIds(validIndexes.size());
+            var createdAt = LocalDateTime.now();
+            for (int start = 0; start < validIndexes.size(); start += chunkSize) {
+                var chunkIndexes = validIndexes.subList(start, Math.min(start + chunkSize, validIndexes.size()));
+                var mappings = new ArrayList<UrlMapping>(chunkIndexes.size());
+                for (int offset = 0; offset < chunkIndexes.size(); offset++) {
+                    var id = ids[start + offset];
+                    var request = requests.get(chunkIndexes.get(offset));
+                    mappings.add(UrlMapping.builder()
+                            .id(id)
+                            .shortCode(shortCodeGenerator.generate(id))
+                            .originalUrl(request.getUrl())
+                            .originalUrlHash(urlDeduplicator.hashFor(request.getUrl(), request.getExpiresAt()))
+                            .createdAt(createdAt)
+                            .expiresAt(request.getExpiresAt())
+                            .build());
+                }
+                var offsets = IntStream.range(0, mappings.size()).boxed().toList();
+                for (var shardOffsets : shardRouter.partition(offsets, offset -> mappings.get(offset).getId()).entrySet()) {
+                    writeChunk(shardOffsets.getKey(),
+                            shardOffsets.getValue().stream().map(chunkIndexes::get).toList(),
+                            shardOffsets.getValue().stream().map(mappings::get).toList(),
+                            results);
+                }
+            }
+        }
+
+        var created = (int) Arrays.stream(results)
+                .filter(result -> result.getStatus() == BatchShortenResult.Status.CREATED)
+                .count();
+        log.debug("Batch shortened {} of {} URLs", created, requests.size());
+        metrics.recordOutcomes(ShortifierMetrics.Outcome.CREATED, created);
+
+        return BatchShortenResponse.builder()
+                .created(created)
+                .failed(requests.size() - created)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    private void writeChunk(int shard, List<Integer> chunkIndexes, List<UrlMapping> mappings,
+                            BatchShortenResult[] results) {
+        try {
+            ShardContext.run(shard, () -> transactionTemplate.executeWithoutResult(status ->
+                    urlMappingBatchWriter.insert(mappings)));
+        } catch (DataAccessException e) {
+            log.error("Batch insert of {} URLs failed: {}", mappings.size(), e.getMessage());
+            for (var index : chunkIndexes) {
+                results[index] = BatchShortenResult.builder()
+                        .index(index)
+                        .status(BatchShortenResult.Status.FAILED)
+                        .errors(Map.of("url", "Could not store shortened URL"))
+                        .build();
+            }
+            return;
+        }
+
+        for (int offset = 0; offset < mappings.size(); offset++) {
+            var mapping = mappings.get(offset);
+            var index = chunkIndexes.get(offset);
+            urlDeduplicator.recordInserted(mapping);
+            results[index] = BatchShortenResult.builder()
+                    .index(index)
+                    .status(BatchShortenResult.Status.CREATED)
+                    .result(ShortenResponse.builder()
+                            .shortCode(mapping.getShortCode())
+                            .originalUrl(mapping.getOriginalUrl())
+                            .shortUrl(baseUrl + "/" + mapping.getShortCode())
+                            .createdAt(mapping.getCreatedAt())
+                            .expiresAt(mapping.getExpiresAt())
+                            .build())
+                    .build();
+        }
+    }
+
+    private Map<String, String> validate(ShortenRequest request) {
+        var errors = new HashMap<String, String>();
+        if (request == null) {
+            errors.put("request", "Request cannot be null");
+            return errors;
+        }
+        validator.validate(request).forEach(violation ->
+                errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+        return errors;
+    }
+}
@@ -0,0 +1,173 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.cache.UrlCache;
+import com.hamamoto.shortifier.repository.ArchivedMappingRepository;
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves cold mappings out of {@code url_mapping} into {@code url_mapping_archive}.
+ * A mapping is cold once it is older than {@code archive-after} and has either never been
+ * accessed or expired. Because IDs grow with creation time, the oldest partitions are walked in
+ * ID order and the walk stops at the first batch lying entirely inside the retention window; a
+ * cursor per shard carries the walk across runs, so each run does a bounded amount of work.
+ * Hot links in old partitions stay where they are, and lookups fall back to the archive on a miss.
+ * Archived codes are evicted from every cache level, so caches only hold mappings of the hot table.
+ */
+@Service
+@Slf4j
+public class ColdMappingArchiver {
+    private static final String BATCH_SQL = """
+            SELECT id, short_code, created_at, expires_at, access_count FROM url_mapping
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ArchivedMappingRepository archivedMappingRepository;
+    private final ShardRouter shardRouter;
+    private final UrlCache urlCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration archiveAfter;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration pause;
+
+    private final Map<Integer, Long> cursors = new HashMap<>();
+    private final Counter archivedRows;
+
+    public ColdMappingArchiver(JdbcTemplate jdbcTemplate,
+                               ArchivedMappingRepository archivedMappingRepository,
+                               ShardRouter shardRouter,
+                               UrlCache urlCache,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${shortifier.archive.enabled:true}") boolean enabled,
+                               @Value("${shortifier.archive.archive-after:P180D}") Duration archiveAfter,
+                               @Value("${shortifier.archive.batch-size:500}") int batchSize,
+                               @Value("${shortifier.archive.max-batches-per-run:100}") int maxBatchesPerRun,
+                               @Value("${shortifier.archive.pause:PT0.1S}") Duration pause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archivedMappingRepository = archivedMappingRepository;
+        this.shardRouter = shardRouter;
+        this.urlCache = urlCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.archiveAfter = archiveAfter;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pause = pause;
+
+        this.archivedRows = Counter.builder("shortifier.archive.rows")
+                .description("Cold mappings moved to the archive table")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shortifier.archive.interval:PT1H}",
+            initialDelayString = "${shortifier.archive.initial-delay:PT5M}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archive();
+        } catch (DataAccessException e) {
+            log.error("Cold mapping archiver failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one pass of at most {@code max-batches-per-run} batches per shard.
+     *
+     * @return the number of mappings archived
+     */
+    public synchronized long archive() {
+        var now = LocalDateTime.now();
+        var cutoff = now.minus(archiveAfter);
+        var total = 0L;
+        for (int shard : shardRouter.shards()) {
+            total += ShardContext.call(shard, () -> archiveShard(shard, cutoff, now));
+        }
+        if (total > 0) {
+            log.info("Archived {} cold mappings", total);
+        }
+        return total;
+    }
+
+    private long archiveShard(int shard, LocalDateTime cutoff, LocalDateTime now) {
+        var cursor = cursors.getOrDefault(shard, 0L);
+        var total = 0L;
+        for (int batches = 0; batches < maxBatchesPerRun; batches++) {
+            var batch = jdbcTemplate.query(BATCH_SQL, CandidateRow.MAPPER, cursor, batchSize);
+            if (batch.stream().noneMatch(row -> row.createdAt().isBefore(cutoff))) {
+                cursor = 0L;
+                break;
+            }
+
+            var cold = batch.stream()
+                    .filter(row -> row.isCold(cutoff, now))
+                    .toList();
+            if (!cold.isEmpty()) {
+                var ids = cold.stream().map(CandidateRow::id).toList();
+                transactionTemplate.executeWithoutResult(status -> archivedMappingRepository.archive(ids, now));
+                urlCache.evictAll(cold.stream().map(CandidateRow::shortCode).toList());
+                total += cold.size();
+                archivedRows.increment(cold.size());
+            }
+
+            cursor = batch.getLast().id();
+            if (batch.size() < batchSize) {
+                cursor = 0L;
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+        cursors.put(shard, cursor);
+        return total;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record CandidateRow(long id, String shortCode, LocalDateTime createdAt, LocalDateTime expiresAt,
+                                long accessCount) {
+        static final RowMapper<CandidateRow> MAPPER = (rs, rowNum) -> new CandidateRow(
+                rs.getLong("id"),
+                rs.getString("short_code"),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                rs.getTimestamp("expires_at") != null ? rs.getTimestamp("expires_at").toLocalDateTime() : null,
+                rs.getLong("access_count"));
+
+        boolean isCold(LocalDateTime cutoff, LocalDateTime now) {
+            return createdAt.isBefore(cutoff) && (accessCount == 0 || expiresAt != null && expiresAt.isBefore(now));
+        }
+    }
+}
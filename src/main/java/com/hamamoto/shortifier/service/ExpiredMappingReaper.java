@@ -0,0 +1,222 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.cache.UrlCache;
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes mappings whose {@code expires_at} lies further in the past than the grace period, from
+ * {@code url_mapping} and {@code url_mapping_archive} alike, together with their click rollups.
+ * Rows are found through the {@code (expires_at, id)} index in keyset order and deleted in small
+ * transactions with a pause in between, and each run stops after a fixed number of batches, so the
+ * reaper trails behind expiry instead of competing with redirects for the database.
+ * Both cache levels already drop an entry at its expiry, but reaped codes are still evicted
+ * everywhere so that no instance keeps serving a deleted mapping, pinned or not.
+ * With sharding, each shard is reaped in turn, and each table gets its own batch budget.
+ */
+@Service
+@Slf4j
+public class ExpiredMappingReaper {
+    private static final List<String> TABLES = List.of("url_mapping", "url_mapping_archive");
+
+    private static final String BACKLOG_SQL = "SELECT COUNT(*) FROM %s WHERE expires_at < ?";
+
+    private static final String FIRST_BATCH_SQL = """
+            SELECT id, short_code, expires_at FROM %s
+            WHERE expires_at < ?
+            ORDER BY expires_at, id
+            LIMIT ?
+            """;
+
+    private static final String NEXT_BATCH_SQL = """
+            SELECT id, short_code, expires_at FROM %s
+            WHERE expires_at < ? AND (expires_at, id) > (?, ?)
+            ORDER BY expires_at, id
+            LIMIT ?
+            """;
+
+    private static final String DELETE_ROLLUPS_SQL = """
+            DELETE FROM click_rollup
+            WHERE url_mapping_id = ? AND EXISTS (SELECT 1 FROM %s WHERE id = ? AND expires_at < ?)
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM %s WHERE id = ? AND expires_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final UrlCache urlCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration pause;
+
+    private final AtomicLong backlog = new AtomicLong();
+
+    private final Counter reapedRows;
+    private final Timer batchTimer;
+
+    public ExpiredMappingReaper(JdbcTemplate jdbcTemplate,
+                                ShardRouter shardRouter,
+                                UrlCache urlCache,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${shortifier.reaper.enabled:true}") boolean enabled,
+                                @Value("${shortifier.reaper.grace-period:P1D}") Duration gracePeriod,
+                                @Value("${shortifier.reaper.batch-size:500}") int batchSize,
+                                @Value("${shortifier.reaper.max-batches-per-run:100}") int maxBatchesPerRun,
+                                @Value("${shortifier.reaper.pause:PT0.1S}") Duration pause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.urlCache = urlCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pause = pause;
+
+        this.reapedRows = Counter.builder("shortifier.reaper.rows")
+                .description("Expired mappings deleted")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("shortifier.reaper.batch")
+                .description("Time spent deleting one batch of expired mappings")
+                .register(meterRegistry);
+        Gauge.builder("shortifier.reaper.backlog", backlog, AtomicLong::get)
+                .description("Expired mappings past the grace period still waiting to be deleted")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shortifier.reaper.interval:PT1M}",
+            initialDelayString = "${shortifier.reaper.initial-delay:PT1M}")
+    public void scheduledReap() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reap();
+        } catch (DataAccessException e) {
+            log.error("Expired mapping reaper failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one pass of at most {@code max-batches-per-run} batches per table on each shard.
+     *
+     * @return the number of mappings deleted
+     */
+    public synchronized long reap() {
+        var cutoff = Timestamp.valueOf(LocalDateTime.now().minus(gracePeriod));
+        var remaining = 0L;
+        for (int shard : shardRouter.shards()) {
+            for (var table : TABLES) {
+                var tableBacklog = ShardContext.call(shard,
+                        () -> jdbcTemplate.queryForObject(BACKLOG_SQL.formatted(table), Long.class, cutoff));
+                remaining += tableBacklog != null ? tableBacklog : 0;
+            }
+        }
+        backlog.set(remaining);
+
+        var total = 0L;
+        for (int shard : shardRouter.shards()) {
+            for (var table : TABLES) {
+                total += ShardContext.call(shard, () -> reapTable(table, cutoff));
+            }
+        }
+        if (total > 0) {
+            log.info("Reaped {} expired mappings, {} left", total, backlog.get());
+        }
+        return total;
+    }
+
+    private long reapTable(String table, Timestamp cutoff) {
+        var total = 0L;
+        var batches = 0;
+        var batch = jdbcTemplate.query(FIRST_BATCH_SQL.formatted(table), ExpiredRow.MAPPER, cutoff, batchSize);
+        while (!batch.isEmpty()) {
+            var deleted = deleteBatch(table, batch, cutoff);
+            urlCache.evictAll(batch.stream().map(ExpiredRow::shortCode).toList());
+            total += deleted;
+            batches++;
+            reapedRows.increment(deleted);
+            backlog.updateAndGet(value -> Math.max(0, value - deleted));
+
+            if (batch.size() < batchSize || batches >= maxBatchesPerRun || !pause()) {
+                break;
+            }
+            var last = batch.getLast();
+            batch = jdbcTemplate.query(NEXT_BATCH_SQL.formatted(table), ExpiredRow.MAPPER,
+                    cutoff, last.expiresAt(), last.id(), batchSize);
+        }
+        return total;
+    }
+
+    /**
+     * Deletes the batch's click rollups and then the rows themselves in one transaction. Both
+     * statements re-check the expiry, so a row whose expiry was moved since it was selected keeps
+     * its rollups as well.
+     */
+    private int deleteBatch(String table, List<ExpiredRow> batch, Timestamp cutoff) {
+        var start = System.nanoTime();
+        var counts = transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(DELETE_ROLLUPS_SQL.formatted(table), batch, batch.size(),
+                    (statement, row) -> {
+                        statement.setLong(1, row.id());
+                        statement.setLong(2, row.id());
+                        statement.setTimestamp(3, cutoff);
+                    });
+            return jdbcTemplate.batchUpdate(DELETE_SQL.formatted(table), batch, batch.size(),
+                    (statement, row) -> {
+                        statement.setLong(1, row.id());
+                        statement.setTimestamp(2, cutoff);
+                    });
+        });
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        var deleted = 0;
+        if (counts != null) {
+            for (var chunk : counts) {
+                for (var count : chunk) {
+                    deleted += Math.max(count, 0);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record ExpiredRow(long id, String shortCode, Timestamp expiresAt) {
+        static final RowMapper<ExpiredRow> MAPPER = (rs, rowNum) ->
+                new ExpiredRow(rs.getLong("id"), rs.getString("short_code"), rs.getTimestamp("expires_at"));
+    }
+}
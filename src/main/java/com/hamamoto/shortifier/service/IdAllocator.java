@@ -0,0 +1,53 @@
+package com.hamamoto.shortifier.service;
+
+/**
+ * Source of the IDs that short codes are generated from.
+ * The implementation is chosen with {@code shortifier.id-allocator.type}: {@code redis} leases
+ * blocks from a Redis counter, {@code sequence} reserves hi/lo blocks from a database sequence,
+ * and {@code node} combines a configured node ID with a local sequence and needs no coordination.
+ */
+public interface IdAllocator {
+
+    long getNextId();
+
+    /**
+     * Reserves {@code count} IDs at once. They are increasing but not necessarily consecutive.
+     */
+    default long[] reserveIds(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Range size must be positive: " + count);
+        }
+        var ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = getNextId();
+        }
+        return ids;
+    }
+
+    /**
+     * Returns a value at or above every ID handed out so far. Only IDs handed out at most
+     * {@code shortifier.id-lease.max-age} ago may still be waiting to be stored.
+     */
+    long currentValue();
+
+    /**
+     * Ensures that no ID at or below {@code minimum} is ever handed out again.
+     */
+    void advanceTo(long minimum);
+
+    /**
+     * Whether {@link #currentValue()} covers the IDs handed out by every instance, or only by
+     * this one. The not-found filter can only vouch for IDs below a global watermark.
+     */
+    default boolean isWatermarkGlobal() {
+        return true;
+    }
+
+    /**
+     * Whether handing out IDs before {@link IdAllocatorReconciler} has run could reissue a stored
+     * ID. If so, a failed reconciliation stops the application from starting.
+     */
+    default boolean requiresReconciliation() {
+        return true;
+    }
+}
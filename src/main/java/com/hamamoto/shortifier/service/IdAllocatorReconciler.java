@@ -0,0 +1,72 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the ID allocator past the highest ID already stored, hot or archived, on every shard.
+ * This makes switching between allocator types safe and lets the Redis counter recover from a
+ * lost key. It runs while the context starts, before the partition manager looks at the
+ * allocator and before any request is served. The query runs outside a read-only transaction,
+ * so it is answered by the primary even when read replicas are configured. A failure stops the
+ * startup unless the allocator can safely run unreconciled.
+ */
+@Component
+@Slf4j
+public class IdAllocatorReconciler implements InitializingBean {
+    private static final String MAX_ID_SQL = """
+            SELECT GREATEST(
+                (SELECT COALESCE(MAX(id), 0) FROM url_mapping),
+                (SELECT COALESCE(MAX(id), 0) FROM url_mapping_archive))
+            """;
+
+    private final IdAllocator idAllocator;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+
+    public IdAllocatorReconciler(IdAllocator idAllocator,
+                                 JdbcTemplate jdbcTemplate,
+                                 ShardRouter shardRouter,
+                                 @Value("${shortifier.id-allocator.reconcile-on-startup:true}") boolean enabled) {
+        this.idAllocator = idAllocator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            if (idAllocator.requiresReconciliation()) {
+                throw new IllegalStateException("Could not reconcile the ID allocator with stored IDs", e);
+            }
+            log.error("Could not reconcile the ID allocator with stored IDs: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the highest stored ID the allocator was advanced past
+     */
+    public long reconcile() {
+        var maxId = 0L;
+        for (int shard : shardRouter.shards()) {
+            var shardMax = ShardContext.call(shard, () -> jdbcTemplate.queryForObject(MAX_ID_SQL, Long.class));
+            maxId = Math.max(maxId, shardMax != null ? shardMax : 0);
+        }
+        if (maxId > 0) {
+            idAllocator.advanceTo(maxId);
+        }
+        return maxId;
+    }
+}
@@ -0,0 +1,198 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import com.hamamoto.shortifier.util.BloomFilter;
+import com.hamamoto.shortifier.util.SplitMix64;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Answers "this ID is definitely not stored" in memory, so lookups of unknown short codes never
+ * reach the database.
+ * The filter only vouches for IDs at or below its watermark: a counter value read at least
+ * {@code shortifier.id-lease.max-age} plus a safety margin before the table was scanned. By then
+ * every ID up to the watermark is either stored or was abandoned with its lease, so an ID missing
+ * from the filter cannot show up later. IDs above the watermark always go to the database, and
+ * each rebuild moves the watermark forward.
+ * IDs stored outside the counter's lease order, such as imported rows, are published on
+ * {@link #STORED_CHANNEL} so every instance adds them before its next rebuild.
+ * It stays off when the ID allocator's watermark only covers this instance, and with write-behind,
+ * whose logged mappings can reach the database long after their lease expired.
+ */
+@Service
+@Slf4j
+public class IssuedIdFilter {
+    public static final String STORED_CHANNEL = "shortifier:issued-ids";
+    public static final String STORED_SEPARATOR = " ";
+    private static final String IDS_SQL = """
+            SELECT id FROM url_mapping WHERE id <= ?
+            UNION ALL
+            SELECT id FROM url_mapping_archive WHERE id <= ?
+            """;
+    private static final int FETCH_SIZE = 10_000;
+    private static final Duration SAFETY_MARGIN = Duration.ofMinutes(1);
+
+    private final IdAllocator idAllocator;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long expectedIds;
+    private final double falsePositiveRate;
+    private final long settleNanos;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile CounterReading pendingReading;
+
+    private final Counter rejections;
+
+    public IssuedIdFilter(IdAllocator idAllocator,
+                          JdbcTemplate jdbcTemplate,
+                          ShardRouter shardRouter,
+                          RedisTemplate<String, String> redisTemplate,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${shortifier.not-found-filter.enabled:true}") boolean enabled,
+                          @Value("${shortifier.write-behind.enabled:false}") boolean writeBehindEnabled,
+                          @Value("${shortifier.not-found-filter.expected-ids:10000000}") long expectedIds,
+                          @Value("${shortifier.not-found-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                          @Value("${shortifier.id-lease.max-age:PT1M}") Duration maxLeaseAge) {
+        this.idAllocator = idAllocator;
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.shardRouter = shardRouter;
+        this.redisTemplate = redisTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled && idAllocator.isWatermarkGlobal() && !writeBehindEnabled;
+        if (enabled && !idAllocator.isWatermarkGlobal()) {
+            log.info("Not-found filter disabled: the ID allocator has no fleet-wide watermark");
+        } else if (enabled && writeBehindEnabled) {
+            log.info("Not-found filter disabled: write-behind mappings may be stored after the watermark passes them");
+        }
+        this.expectedIds = expectedIds;
+        this.falsePositiveRate = falsePositiveRate;
+        this.settleNanos = maxLeaseAge.plus(SAFETY_MARGIN).toNanos();
+
+        this.rejections = Counter.builder("shortifier.not-found-filter.rejections")
+                .description("Lookups answered as not found without a database query")
+                .register(meterRegistry);
+        Gauge.builder("shortifier.not-found-filter.watermark", this, filter -> filter.snapshot.watermark)
+                .description("Highest ID the not-found filter can vouch for")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return {@code true} only if the ID is known never to have been stored
+     */
+    public boolean isDefinitelyAbsent(long id) {
+        var current = snapshot;
+        if (id > current.watermark || current.filter.mightContain(SplitMix64.mix(id))) {
+            return false;
+        }
+        rejections.increment();
+        return true;
+    }
+
+    /**
+     * Adds IDs stored outside the counter's lease order, such as imported rows, to this filter
+     * and publishes them so every other instance adds them too. If the message is lost, other
+     * instances may reject those IDs until their next rebuild.
+     */
+    public void publishStored(Collection<Long> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        ids.forEach(this::recordStored);
+        try {
+            redisTemplate.convertAndSend(STORED_CHANNEL,
+                    ids.stream().map(String::valueOf).collect(Collectors.joining(STORED_SEPARATOR)));
+        } catch (DataAccessException e) {
+            log.warn("Could not publish {} stored IDs to other instances: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Adds an ID stored outside the counter's lease order to this instance's filter only, so it
+     * is not rejected before the next rebuild.
+     */
+    public void recordStored(long id) {
+        var current = snapshot;
+        if (current.filter != null && id <= current.watermark) {
+            current.filter.put(SplitMix64.mix(id));
+        }
+    }
+
+    /**
+     * Reads the counter on every run and rebuilds the filter from the reading taken on an
+     * earlier run, once that reading is old enough to be settled. The filter is rebuilt even when
+     * the counter has not moved, so imported IDs whose message this instance missed are picked up.
+     */
+    @Scheduled(fixedDelayString = "${shortifier.not-found-filter.rebuild-interval:PT5M}", initialDelay = 0)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            var now = System.nanoTime();
+            var settled = pendingReading;
+            if (settled != null && now - settled.takenAtNanos < settleNanos) {
+                return;
+            }
+            pendingReading = new CounterReading(idAllocator.currentValue(), now);
+            if (settled != null) {
+                snapshot = load(settled.value);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild the not-found filter, keeping watermark {}: {}",
+                    snapshot.watermark, e.getMessage());
+        }
+    }
+
+    /**
+     * Scans each shard's primary. The transaction is deliberately not read-only, since those are
+     * routed to read replicas, and a replica lagging by more than the safety margin would miss
+     * IDs below the watermark that the filter would then reject for good.
+     */
+    private Snapshot load(long watermark) {
+        var started = System.nanoTime();
+        var filter = new BloomFilter(expectedIds, falsePositiveRate);
+        var loaded = 0L;
+        for (int shard : shardRouter.shards()) {
+            loaded += ShardContext.call(shard, () -> transactionTemplate.execute(status -> {
+                var count = new long[1];
+                jdbcTemplate.query(IDS_SQL, (RowCallbackHandler) resultSet -> {
+                    filter.put(SplitMix64.mix(resultSet.getLong(1)));
+                    count[0]++;
+                }, watermark, watermark);
+                return count[0];
+            }));
+        }
+        log.info("Loaded {} IDs up to {} into the not-found filter in {}", loaded, watermark,
+                Duration.ofNanos(System.nanoTime() - started));
+        return new Snapshot(filter, watermark);
+    }
+
+    private record Snapshot(BloomFilter filter, long watermark) {
+        static final Snapshot EMPTY = new Snapshot(null, 0);
+    }
+
+    private record CounterReading(long value, long takenAtNanos) {
+    }
+}
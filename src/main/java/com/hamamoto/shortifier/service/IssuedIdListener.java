@@ -0,0 +1,31 @@
+package com.hamamoto.shortifier.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Adds IDs that any instance published on the stored-ID channel to the local {@link IssuedIdFilter}.
+ * A message carries one or more IDs separated by spaces.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IssuedIdListener implements MessageListener {
+    public static final String CHANNEL = IssuedIdFilter.STORED_CHANNEL;
+
+    private final IssuedIdFilter issuedIdFilter;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        var ids = new String(message.getBody(), StandardCharsets.UTF_8).split(IssuedIdFilter.STORED_SEPARATOR);
+        log.debug("Adding {} stored IDs to the not-found filter", ids.length);
+        for (var id : ids) {
+            issuedIdFilter.recordStored(Long.parseLong(id));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.component.FeistelCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out IDs without any coordination: the low {@code node.bits} bits hold this instance's
+ * {@code node.id} and the bits above a local sequence. Instances with distinct node IDs can never
+ * collide, and neither Redis nor the database is touched on the write path. The sequence starts
+ * past the highest persisted ID, which startup reconciliation feeds in through
+ * {@link #advanceTo(long)}.
+ * Each instance only knows its own sequence, so {@link #currentValue()} is not a fleet-wide
+ * watermark and the not-found filter stays off in this mode.
+ */
+@Service
+@ConditionalOnProperty(name = "shortifier.id-allocator.type", havingValue = "node")
+@Slf4j
+public class NodeIdAllocator implements IdAllocator {
+    private final int nodeBits;
+    private final long nodeId;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public NodeIdAllocator(@Value("${shortifier.id-allocator.node.id:0}") long nodeId,
+                           @Value("${shortifier.id-allocator.node.bits:8}") int nodeBits) {
+        if (nodeBits < 1 || nodeBits > 16 || nodeId < 0 || nodeId >= 1L << nodeBits) {
+            throw new IllegalArgumentException("shortifier.id-allocator.node.id must be in [0, 2^bits) with 1 <= bits <= 16");
+        }
+        this.nodeBits = nodeBits;
+        this.nodeId = nodeId;
+        log.info("Allocating IDs as node {} of {}", nodeId, 1L << nodeBits);
+    }
+
+    @Override
+    public long getNextId() {
+        var id = sequence.incrementAndGet() << nodeBits | nodeId;
+        if (id >= FeistelCodec.MAX_ID) {
+            throw new IllegalStateException("Node " + nodeId + " has run out of IDs");
+        }
+        return id;
+    }
+
+    @Override
+    public long currentValue() {
+        return sequence.get() << nodeBits | (1L << nodeBits) - 1;
+    }
+
+    @Override
+    public void advanceTo(long minimum) {
+        var floor = minimum >> nodeBits;
+        sequence.accumulateAndGet(floor, Math::max);
+    }
+
+    @Override
+    public boolean isWatermarkGlobal() {
+        return false;
+    }
+}
@@ -1,20 +1,339 @@
 package com.hamamoto.shortifier.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out sequential IDs from blocks leased from the Redis counter.
+ * Each lease reserves a whole range with a single INCRBY, IDs are served from the
+ * local block without locking, and the next block is fetched in the background
+ * once the current one runs low. The block size adapts so that a lease lasts
+ * roughly {@code shortifier.id-lease.target-duration}.
+ * If the counter ever comes back below an ID this instance already leased, because Redis lost
+ * its data, it is moved past that ID before leasing again.
+ */
 @Service
-public class RedisCounterService {
+@ConditionalOnProperty(name = "shortifier.id-allocator.type", havingValue = "redis", matchIfMissing = true)
+@Slf4j
+public class RedisCounterService implements IdAllocator {
     private static final String COUNTER_KEY = "shortifier:counter";
+    private static final String WASTED_KEY = "shortifier:counter:wasted";
+    private static final Duration MIN_LEASE_AGE = Duration.ofSeconds(10);
+    private static final RedisScript<Long> ADVANCE_SCRIPT = new DefaultRedisScript<>("""
+            local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+            local target = tonumber(ARGV[1])
+            if current < target then
+                redis.call('SET', KEYS[1], ARGV[1])
+                return target
+            end
+            return current
+            """, Long.class);
 
     private final RedisTemplate<String, String> redisTemplate;
+    private final long minBlockSize;
+    private final long maxBlockSize;
+    private final long targetLeaseNanos;
+    private final long maxLeaseAgeNanos;
+    private final double prefetchThreshold;
+
+    private final AtomicReference<IdBlock> current = new AtomicReference<>(IdBlock.EMPTY);
+    private final AtomicReference<CompletableFuture<IdBlock>> prefetch = new AtomicReference<>();
+    private final ExecutorService prefetchExecutor;
+
+    private volatile long blockSize;
+    private volatile long lastLeaseNanos;
+    private volatile long floor;
+    private final AtomicLong highestLeased = new AtomicLong();
 
-    public RedisCounterService(RedisTemplate<String, String> redisTemplate) {
+    private final Timer leaseTimer;
+    private final Counter leasedIds;
+    private final Counter wastedIds;
+    private final Counter counterResets;
+
+    public RedisCounterService(RedisTemplate<String, String> redisTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${shortifier.id-lease.min-block-size:100}") long minBlockSize,
+                               @Value("${shortifier.id-lease.max-block-size:10000}") long maxBlockSize,
+                               @Value("${shortifier.id-lease.target-duration:PT10S}") Duration targetLeaseDuration,
+                               @Value("${shortifier.id-lease.prefetch-threshold:0.25}") double prefetchThreshold,
+                               @Value("${shortifier.id-lease.max-age:PT1M}") Duration maxLeaseAge,
+                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.redisTemplate = redisTemplate;
+        this.minBlockSize = minBlockSize;
+        this.maxBlockSize = maxBlockSize;
+        this.targetLeaseNanos = targetLeaseDuration.toNanos();
+        if (maxLeaseAge.compareTo(MIN_LEASE_AGE) < 0) {
+            throw new IllegalArgumentException("shortifier.id-lease.max-age must be at least " + MIN_LEASE_AGE);
+        }
+        this.maxLeaseAgeNanos = maxLeaseAge.toNanos();
+        this.prefetchThreshold = prefetchThreshold;
+        this.blockSize = minBlockSize;
+        this.prefetchExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("id-lease-prefetch").factory())
+                : Executors.newSingleThreadExecutor(Thread.ofPlatform().daemon().name("id-lease-prefetch").factory());
+
+        this.leaseTimer = Timer.builder("shortifier.id.lease")
+                .description("Time spent reserving an ID block from Redis")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+        this.leasedIds = Counter.builder("shortifier.id.lease.leased")
+                .description("IDs reserved from the Redis counter")
+                .register(meterRegistry);
+        this.wastedIds = Counter.builder("shortifier.id.lease.wasted")
+                .description("Leased IDs abandoned at shutdown or because their lease aged out")
+                .register(meterRegistry);
+        this.counterResets = Counter.builder("shortifier.id.lease.resets")
+                .description("Leases that found the Redis counter below an ID already handed out")
+                .register(meterRegistry);
+        Gauge.builder("shortifier.id.lease.remaining", this, RedisCounterService::remainingIds)
+                .description("Leased IDs held locally that a restart would waste")
+                .register(meterRegistry);
+        Gauge.builder("shortifier.id.lease.block-size", this, service -> service.blockSize)
+                .description("Size of the next ID block to be leased")
+                .register(meterRegistry);
     }
 
+    @Override
     public long getNextId() {
-        var nextId = redisTemplate.opsForValue().increment(COUNTER_KEY);
-        return nextId != null ? nextId : 0L;
+        while (true) {
+            var block = current.get();
+            var id = block.next.getAndIncrement();
+            if (id < block.end && id > floor && !isStale(block)) {
+                if (block.end - id <= block.prefetchAt && prefetch.get() == null) {
+                    startPrefetch();
+                }
+                return id;
+            }
+            advance(block);
+        }
+    }
+
+    /**
+     * Reserves {@code count} consecutive IDs directly from Redis, bypassing the local block.
+     *
+     * @return the first ID of the reserved range
+     */
+    public long reserveRange(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Range size must be positive: " + count);
+        }
+        var end = increment(count);
+        leasedIds.increment(count);
+        return end - count + 1;
+    }
+
+    @Override
+    public long[] reserveIds(int count) {
+        var first = reserveRange(count);
+        var ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = first + i;
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the counter's current value. Every ID at or below it has been handed out,
+     * and any of them not stored yet will be stored within {@code shortifier.id-lease.max-age}
+     * or never.
+     */
+    @Override
+    public long currentValue() {
+        var value = redisTemplate.opsForValue().get(COUNTER_KEY);
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    /**
+     * Moves the counter forward so that no ID at or below {@code minimum} is ever issued again,
+     * and drops the local lease, which may overlap IDs that now exist elsewhere.
+     * The floor is raised before the lease is dropped, and {@link #getNextId()} checks it after
+     * taking an ID, so a caller still holding the old block cannot hand out an ID below it once
+     * this method has returned.
+     */
+    @Override
+    public synchronized void advanceTo(long minimum) {
+        var counter = redisTemplate.execute(ADVANCE_SCRIPT, List.of(COUNTER_KEY), String.valueOf(minimum));
+        log.info("Counter {} advanced to at least {} (now {})", COUNTER_KEY, minimum, counter);
+        floor = Math.max(floor, minimum);
+        current.set(IdBlock.EMPTY);
+        prefetch.set(null);
+    }
+
+    /**
+     * The counter outlives restarts in Redis, and a lease that comes back below an ID already
+     * handed out moves it forward on its own, so starting unreconciled is only logged.
+     */
+    @Override
+    public boolean requiresReconciliation() {
+        return false;
+    }
+
+    private synchronized void advance(IdBlock exhausted) {
+        if (current.get() != exhausted) {
+            return;
+        }
+
+        var pending = prefetch.getAndSet(null);
+        IdBlock next = null;
+        if (pending != null) {
+            try {
+                next = pending.join();
+            } catch (CompletionException e) {
+                log.warn("Background ID lease failed, leasing synchronously: {}", e.getCause().getMessage());
+            }
+        }
+        if (next != null && isStale(next)) {
+            wastedIds.increment(next.remaining());
+            next = null;
+        }
+        wastedIds.increment(exhausted.remaining());
+        current.set(next != null ? next : leaseBlock());
+    }
+
+    /**
+     * Blocks are abandoned once older than the maximum lease age, so that an idle instance
+     * cannot issue an ID long after the counter moved past it.
+     */
+    private boolean isStale(IdBlock block) {
+        return System.nanoTime() - block.leasedAtNanos >= maxLeaseAgeNanos;
+    }
+
+    private void startPrefetch() {
+        var future = new CompletableFuture<IdBlock>();
+        if (prefetch.compareAndSet(null, future)) {
+            prefetchExecutor.execute(() -> {
+                try {
+                    future.complete(leaseBlock());
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    private IdBlock leaseBlock() {
+        var size = nextBlockSize();
+        var start = System.nanoTime();
+        var end = increment(size);
+        leaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        leasedIds.increment(size);
+        log.debug("Leased ID block [{}, {}] of size {}", end - size + 1, end, size);
+        return new IdBlock(end - size + 1, end + 1, Math.max(1, (long) (size * prefetchThreshold)), System.nanoTime());
+    }
+
+    /**
+     * Reserves {@code count} IDs with INCRBY. A range starting at or below the highest ID leased
+     * before the INCRBY was sent means the counter was reset, so it is moved past that ID and the
+     * range is reserved again. The highest ID is read first because leases run concurrently and may
+     * finish in any order: one that completes after this INCRBY can record a higher end without
+     * any reset.
+     */
+    private long increment(long count) {
+        var highest = highestLeased.get();
+        var end = redisTemplate.opsForValue().increment(COUNTER_KEY, count);
+        if (end == null) {
+            throw new IllegalStateException("Redis returned no value for counter " + COUNTER_KEY);
+        }
+        if (end - count < highest) {
+            counterResets.increment();
+            log.warn("Counter {} went back to {} below leased ID {}, advancing it", COUNTER_KEY, end, highest);
+            redisTemplate.execute(ADVANCE_SCRIPT, List.of(COUNTER_KEY), String.valueOf(highest));
+            end = redisTemplate.opsForValue().increment(COUNTER_KEY, count);
+            if (end == null) {
+                throw new IllegalStateException("Redis returned no value for counter " + COUNTER_KEY);
+            }
+        }
+        highestLeased.accumulateAndGet(end, Math::max);
+        return end;
+    }
+
+    /**
+     * Doubles the block when the previous one drained faster than the target lease
+     * duration and halves it when it lasted more than twice as long.
+     */
+    private synchronized long nextBlockSize() {
+        var now = System.nanoTime();
+        var elapsed = now - lastLeaseNanos;
+        if (lastLeaseNanos != 0) {
+            if (elapsed < targetLeaseNanos) {
+                blockSize = Math.min(maxBlockSize, blockSize * 2);
+            } else if (elapsed > targetLeaseNanos * 2) {
+                blockSize = Math.max(minBlockSize, blockSize / 2);
+            }
+        }
+        lastLeaseNanos = now;
+        return blockSize;
+    }
+
+    private long remainingIds() {
+        var remaining = current.get().remaining();
+        var pending = prefetch.get();
+        if (pending != null && pending.isDone() && !pending.isCompletedExceptionally()) {
+            remaining += pending.join().remaining();
+        }
+        return remaining;
+    }
+
+    @PreDestroy
+    void releaseLease() {
+        prefetchExecutor.shutdown();
+        var wasted = remainingIds();
+        if (wasted == 0) {
+            return;
+        }
+
+        wastedIds.increment(wasted);
+        log.info("Abandoning {} leased IDs on shutdown", wasted);
+        try {
+            redisTemplate.opsForValue().increment(WASTED_KEY, wasted);
+        } catch (RuntimeException e) {
+            log.warn("Could not record wasted IDs in Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * A leased range of IDs, {@code [next, end)}, consumed with a single atomic increment.
+     */
+    private static final class IdBlock {
+        static final IdBlock EMPTY = new IdBlock(0, 0, 0, 0);
+
+        final AtomicLong next;
+        final long end;
+        final long prefetchAt;
+        final long leasedAtNanos;
+
+        IdBlock(long start, long end, long prefetchAt, long leasedAtNanos) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+            this.prefetchAt = prefetchAt;
+            this.leasedAtNanos = leasedAtNanos;
+        }
+
+        long remaining() {
+            return Math.max(0, end - next.get());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,169 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.sharding.ShardContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Hands out IDs in hi/lo blocks reserved from the {@code shortifier_id_hi_seq} database sequence.
+ * Each {@code nextval} returns a block number {@code hi}, and the IDs
+ * {@code [hi * block-size, (hi + 1) * block-size)} are then served locally without locking.
+ * Sequences are not transactional, so a block is never handed out twice, even if the transaction
+ * that reserved it rolls back. Like Redis leases, blocks are abandoned once older than
+ * {@code shortifier.id-lease.max-age}. With sharding the sequence on shard 0 is used.
+ * Every sequence statement runs in a transaction of its own, so reserving a block inside a
+ * caller's transaction never binds that transaction to shard 0.
+ */
+@Service
+@ConditionalOnProperty(name = "shortifier.id-allocator.type", havingValue = "sequence")
+@Slf4j
+public class SequenceIdAllocator implements IdAllocator {
+    private static final String SEQUENCE = "shortifier_id_hi_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate sequenceTransactionTemplate;
+    private final long blockSize;
+    private final long maxBlockAgeNanos;
+
+    private final AtomicReference<Block> current = new AtomicReference<>(Block.EMPTY);
+    private volatile Boolean postgres;
+
+    private final Timer reserveTimer;
+    private final Counter reservedIds;
+
+    public SequenceIdAllocator(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${shortifier.id-allocator.sequence.block-size:1000}") long blockSize,
+                               @Value("${shortifier.id-lease.max-age:PT1M}") Duration maxBlockAge) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("shortifier.id-allocator.sequence.block-size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.sequenceTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+        this.maxBlockAgeNanos = maxBlockAge.toNanos();
+
+        this.reserveTimer = Timer.builder("shortifier.id.sequence.reserve")
+                .description("Time spent reserving an ID block from the database sequence")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+        this.reservedIds = Counter.builder("shortifier.id.sequence.reserved")
+                .description("IDs reserved from the database sequence")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long getNextId() {
+        while (true) {
+            var block = current.get();
+            var id = block.next.getAndIncrement();
+            if (id < block.end && System.nanoTime() - block.reservedAtNanos < maxBlockAgeNanos) {
+                return id;
+            }
+            refill(block);
+        }
+    }
+
+    /**
+     * Reserves a fresh block and reports the IDs below it, so every instance's blocks reserved
+     * before this call are covered. Each reading therefore abandons one block.
+     */
+    @Override
+    public long currentValue() {
+        return nextHi() * blockSize - 1;
+    }
+
+    @Override
+    public synchronized void advanceTo(long minimum) {
+        var targetHi = minimum / blockSize + 1;
+        if (isPostgres()) {
+            onShardZero(() -> jdbcTemplate.queryForObject(
+                    "SELECT setval('" + SEQUENCE + "', GREATEST(last_value, ?)) FROM " + SEQUENCE, Long.class, targetHi - 1));
+        } else if (nextHi() < targetHi) {
+            onShardZero(() -> {
+                jdbcTemplate.execute("ALTER SEQUENCE " + SEQUENCE + " RESTART WITH " + targetHi);
+                return null;
+            });
+        }
+        log.info("Sequence {} advanced past ID {}", SEQUENCE, minimum);
+        current.set(Block.EMPTY);
+    }
+
+    private synchronized void refill(Block exhausted) {
+        if (current.get() != exhausted) {
+            return;
+        }
+        var start = System.nanoTime();
+        var hi = nextHi();
+        reserveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        reservedIds.increment(blockSize);
+        log.debug("Reserved ID block {} of size {}", hi, blockSize);
+        current.set(new Block(hi * blockSize, (hi + 1) * blockSize, System.nanoTime()));
+    }
+
+    private long nextHi() {
+        var sql = isPostgres()
+                ? "SELECT nextval('" + SEQUENCE + "')"
+                : "SELECT NEXT VALUE FOR " + SEQUENCE;
+        var hi = onShardZero(() -> jdbcTemplate.queryForObject(sql, Long.class));
+        if (hi == null) {
+            throw new IllegalStateException("Sequence " + SEQUENCE + " returned no value");
+        }
+        return hi;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            var product = onShardZero(() -> jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName()));
+            postgres = product != null && product.toLowerCase(Locale.ROOT).contains("postgres");
+        }
+        return postgres;
+    }
+
+    /**
+     * Runs the work on shard 0 in a new transaction, suspending the caller's. A transaction that
+     * has not run a statement yet stays unbound and later binds to its own shard.
+     */
+    private <T> T onShardZero(Supplier<T> work) {
+        return ShardContext.call(0, () -> sequenceTransactionTemplate.execute(status -> work.get()));
+    }
+
+    /**
+     * A reserved range of IDs, {@code [next, end)}, consumed with a single atomic increment.
+     */
+    private static final class Block {
+        static final Block EMPTY = new Block(0, 0, 0);
+
+        final AtomicLong next;
+        final long end;
+        final long reservedAtNanos;
+
+        Block(long start, long end, long reservedAtNanos) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+            this.reservedAtNanos = reservedAtNanos;
+        }
+    }
+}
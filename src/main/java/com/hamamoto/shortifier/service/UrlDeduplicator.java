@@ -0,0 +1,168 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.entity.UrlMapping;
+import com.hamamoto.shortifier.repository.UrlMappingRepository;
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import com.hamamoto.shortifier.util.BloomFilter;
+import com.hamamoto.shortifier.util.UrlHash;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Finds an existing non-expiring mapping for a URL so that shortening it again can reuse the code.
+ * A Bloom filter of every stored URL hash answers "never seen" without touching the database;
+ * only possible matches are looked up through the {@code original_url_hash} index.
+ * The filter is rebuilt in the background at startup, and until it is loaded every check goes to
+ * the database. URLs stored by other instances after startup are not in the local filter, so
+ * deduplication across instances is best effort.
+ * With sharding the URL's shard is unknown, so possible matches are looked up on every shard,
+ * each in its own transaction.
+ */
+@Service
+@Slf4j
+public class UrlDeduplicator {
+    private static final String HASHES_SQL =
+            "SELECT original_url_hash FROM url_mapping WHERE expires_at IS NULL AND original_url_hash IS NOT NULL";
+    private static final int FETCH_SIZE = 10_000;
+
+    private final UrlMappingRepository urlMappingRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final TransactionTemplate shardLookupTransactionTemplate;
+    private final boolean enabled;
+    private final BloomFilter seenUrls;
+
+    private volatile boolean ready;
+
+    private final Counter filterSkips;
+    private final Counter lookupHits;
+    private final Counter lookupMisses;
+
+    public UrlDeduplicator(UrlMappingRepository urlMappingRepository,
+                           JdbcTemplate jdbcTemplate,
+                           ShardRouter shardRouter,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${shortifier.dedup.enabled:false}") boolean enabled,
+                           @Value("${shortifier.dedup.expected-urls:10000000}") long expectedUrls,
+                           @Value("${shortifier.dedup.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.urlMappingRepository = urlMappingRepository;
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.shardRouter = shardRouter;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.shardLookupTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardLookupTransactionTemplate.setReadOnly(true);
+        this.shardLookupTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.seenUrls = enabled ? new BloomFilter(expectedUrls, falsePositiveRate) : null;
+
+        this.filterSkips = Counter.builder("shortifier.dedup.checks")
+                .tag("result", "filtered")
+                .description("Dedup checks answered by the Bloom filter without a database lookup")
+                .register(meterRegistry);
+        this.lookupHits = Counter.builder("shortifier.dedup.checks")
+                .tag("result", "duplicate")
+                .description("Dedup checks that found an existing mapping")
+                .register(meterRegistry);
+        this.lookupMisses = Counter.builder("shortifier.dedup.checks")
+                .tag("result", "miss")
+                .description("Dedup checks that queried the database and found nothing")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the {@link UrlHash} of a URL that a later shorten could reuse, or {@code null} when
+     * deduplication is off or the mapping expires, so the digest is only computed when it is used.
+     * Rows stored without a hash are never offered for reuse.
+     */
+    public Long hashFor(String originalUrl, LocalDateTime expiresAt) {
+        return enabled && expiresAt == null ? UrlHash.of(originalUrl) : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        if (enabled) {
+            Thread.ofPlatform().daemon().name("dedup-filter-rebuild").start(this::rebuild);
+        }
+    }
+
+    void rebuild() {
+        var started = System.nanoTime();
+        try {
+            var loaded = 0L;
+            for (int shard : shardRouter.shards()) {
+                loaded += ShardContext.call(shard, () -> readOnlyTransactionTemplate.execute(status -> {
+                    var count = new long[1];
+                    jdbcTemplate.query(HASHES_SQL, (RowCallbackHandler) resultSet -> {
+                        seenUrls.put(resultSet.getLong(1));
+                        count[0]++;
+                    });
+                    return count[0];
+                }));
+            }
+            ready = true;
+            log.info("Loaded {} URL hashes into the dedup filter in {}", loaded,
+                    Duration.ofNanos(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            log.error("Could not build the dedup filter, every check will query the database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns a stored non-expiring mapping with exactly this URL, if there is one.
+     */
+    public Optional<UrlMapping> findExisting(String originalUrl, long urlHash) {
+        if (ready && !seenUrls.mightContain(urlHash)) {
+            filterSkips.increment();
+            return Optional.empty();
+        }
+
+        var existing = shardRouter.isSharded()
+                ? findOnAnyShard(originalUrl, urlHash)
+                : urlMappingRepository.findFirstByOriginalUrlHashAndOriginalUrlAndExpiresAtIsNull(urlHash, originalUrl);
+        (existing.isPresent() ? lookupHits : lookupMisses).increment();
+        return existing;
+    }
+
+    private Optional<UrlMapping> findOnAnyShard(String originalUrl, long urlHash) {
+        for (int shard : shardRouter.shards()) {
+            var existing = ShardContext.call(shard, () -> shardLookupTransactionTemplate.execute(status ->
+                    urlMappingRepository.findFirstByOriginalUrlHashAndOriginalUrlAndExpiresAtIsNull(urlHash, originalUrl)));
+            if (existing != null && existing.isPresent()) {
+                return existing;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Adds a newly stored mapping to the filter. Mappings with an expiry are never deduplicated.
+     */
+    public void recordInserted(UrlMapping mapping) {
+        if (enabled && mapping.getExpiresAt() == null && mapping.getOriginalUrlHash() != null) {
+            seenUrls.put(mapping.getOriginalUrlHash());
+        }
+    }
+}
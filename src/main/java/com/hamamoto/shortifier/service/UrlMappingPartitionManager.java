@@ -0,0 +1,133 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps partitions of the ID-partitioned {@code url_mapping} table created ahead of the counter.
+ * PostgreSQL rejects rows for which no partition exists, so on startup, before the application
+ * takes requests, and then periodically, each shard gets enough partitions of
+ * {@code partition-size} IDs to cover {@code partitions-ahead} partitions beyond the counter.
+ * Tables that are not partitioned, such as the H2 schema used in tests, are left alone.
+ */
+@Service
+@Slf4j
+public class UrlMappingPartitionManager implements SmartInitializingSingleton {
+    private static final String IS_PARTITIONED_SQL =
+            "SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass('url_mapping')";
+
+    private static final String BOUNDS_SQL = """
+            SELECT pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass('url_mapping')
+            """;
+
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('?(-?\\d+)'?\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdAllocator idAllocator;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final long partitionSize;
+    private final int partitionsAhead;
+
+    private final AtomicLong headroom = new AtomicLong();
+
+    public UrlMappingPartitionManager(JdbcTemplate jdbcTemplate,
+                                      IdAllocator idAllocator,
+                                      ShardRouter shardRouter,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${shortifier.partitioning.enabled:false}") boolean enabled,
+                                      @Value("${shortifier.partitioning.partition-size:10000000}") long partitionSize,
+                                      @Value("${shortifier.partitioning.partitions-ahead:2}") int partitionsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.partitionSize = partitionSize;
+        this.partitionsAhead = partitionsAhead;
+
+        Gauge.builder("shortifier.partitions.headroom", headroom, AtomicLong::get)
+                .description("IDs left before the counter runs past the last url_mapping partition")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        scheduledMaintenance();
+    }
+
+    @Scheduled(fixedDelayString = "${shortifier.partitioning.interval:PT1H}",
+            initialDelayString = "${shortifier.partitioning.interval:PT1H}")
+    public void scheduledMaintenance() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ensurePartitions();
+        } catch (RuntimeException e) {
+            log.error("Could not create url_mapping partitions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the missing partitions on every shard.
+     *
+     * @return the number of partitions created
+     */
+    public synchronized int ensurePartitions() {
+        var counter = idAllocator.currentValue();
+        var target = (counter / partitionSize + 1 + partitionsAhead) * partitionSize;
+        var created = 0;
+        var lowestUpper = Long.MAX_VALUE;
+        for (int shard : shardRouter.shards()) {
+            long upper = ShardContext.call(shard, this::highestUpperBound);
+            if (upper < 0) {
+                continue;
+            }
+            while (upper < target) {
+                var lower = upper;
+                upper = lower + partitionSize;
+                var sql = "CREATE TABLE IF NOT EXISTS url_mapping_p%d PARTITION OF url_mapping FOR VALUES FROM (%d) TO (%d)"
+                        .formatted(lower, lower, upper);
+                ShardContext.run(shard, () -> jdbcTemplate.execute(sql));
+                log.info("Created partition url_mapping_p{} on shard {}", lower, shard);
+                created++;
+            }
+            lowestUpper = Math.min(lowestUpper, upper);
+        }
+        if (lowestUpper != Long.MAX_VALUE) {
+            headroom.set(lowestUpper - counter);
+        }
+        return created;
+    }
+
+    /**
+     * @return the exclusive upper bound of the highest partition, or -1 if the table is not partitioned
+     */
+    private long highestUpperBound() {
+        var partitioned = jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Long.class);
+        if (partitioned == null || partitioned == 0) {
+            return -1L;
+        }
+        var highest = 0L;
+        for (var bound : jdbcTemplate.queryForList(BOUNDS_SQL, String.class)) {
+            var matcher = UPPER_BOUND.matcher(bound);
+            if (matcher.find()) {
+                highest = Math.max(highest, Long.parseLong(matcher.group(1)));
+            }
+        }
+        return highest;
+    }
+}
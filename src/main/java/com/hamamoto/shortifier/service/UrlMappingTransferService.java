@@ -0,0 +1,279 @@
+package com.hamamoto.shortifier.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hamamoto.shortifier.component.FeistelCodec;
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import com.hamamoto.shortifier.dto.ImportResponse;
+import com.hamamoto.shortifier.dto.UrlMappingRecord;
+import com.hamamoto.shortifier.entity.UrlMapping;
+import com.hamamoto.shortifier.exception.InvalidImportException;
+import com.hamamoto.shortifier.repository.ArchivedMappingRepository;
+import com.hamamoto.shortifier.repository.UrlMappingBatchWriter;
+import com.hamamoto.shortifier.repository.UrlMappingRepository;
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import com.hamamoto.shortifier.util.UrlHash;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves url_mapping rows in and out as NDJSON, one {@link UrlMappingRecord} per line.
+ * Export walks a forward-only cursor and detaches each row once written; import reads the request
+ * body incrementally and inserts in fixed-size batches. Neither holds more than one batch in memory,
+ * and import only reads the next batch after the previous one is committed, so a slow database
+ * slows the upload instead of growing the heap.
+ * With sharding, export walks the shards one after another and import writes each batch to the
+ * shards its IDs map to. Archived mappings are exported after the hot ones of their shard and
+ * import back into {@code url_mapping}.
+ */
+@Service
+@Slf4j
+public class UrlMappingTransferService {
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final UrlMappingRepository urlMappingRepository;
+    private final UrlMappingBatchWriter urlMappingBatchWriter;
+    private final ArchivedMappingRepository archivedMappingRepository;
+    private final IdAllocator idAllocator;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final UrlDeduplicator urlDeduplicator;
+    private final IssuedIdFilter issuedIdFilter;
+    private final ShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final int batchSize;
+    private final long progressInterval;
+
+    public UrlMappingTransferService(UrlMappingRepository urlMappingRepository,
+                                     UrlMappingBatchWriter urlMappingBatchWriter,
+                                     ArchivedMappingRepository archivedMappingRepository,
+                                     IdAllocator idAllocator,
+                                     ShortCodeGenerator shortCodeGenerator,
+                                     UrlDeduplicator urlDeduplicator,
+                                     IssuedIdFilter issuedIdFilter,
+                                     ShardRouter shardRouter,
+                                     ObjectMapper objectMapper,
+                                     EntityManager entityManager,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${shortifier.transfer.batch-size:1000}") int batchSize,
+                                     @Value("${shortifier.transfer.progress-interval:100000}") long progressInterval) {
+        this.urlMappingRepository = urlMappingRepository;
+        this.urlMappingBatchWriter = urlMappingBatchWriter;
+        this.archivedMappingRepository = archivedMappingRepository;
+        this.idAllocator = idAllocator;
+        this.shortCodeGenerator = shortCodeGenerator;
+        this.urlDeduplicator = urlDeduplicator;
+        this.issuedIdFilter = issuedIdFilter;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.batchSize = batchSize;
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * Writes every mapping to the stream, in ID order within each shard.
+     *
+     * @return the number of mappings written
+     */
+    public long exportTo(OutputStream outputStream) throws IOException {
+        return exportTo(outputStream, shardRouter.shards());
+    }
+
+    /**
+     * Writes the mappings stored on the given shards, in ID order within each shard.
+     *
+     * @return the number of mappings written
+     */
+    public long exportTo(OutputStream outputStream, List<Integer> shards) throws IOException {
+        var started = System.nanoTime();
+        var writer = objectMapper.writerFor(UrlMappingRecord.class);
+        var output = new BufferedOutputStream(outputStream, OUTPUT_BUFFER_SIZE);
+
+        var exported = 0L;
+        try {
+            for (int shard : shards) {
+                var written = ShardContext.call(shard, () ->
+                        readOnlyTransactionTemplate.execute(status -> writeAll(writer, output)));
+                exported += written != null ? written : 0L;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        output.flush();
+
+        log.info("Exported {} mappings in {}", exported, Duration.ofNanos(System.nanoTime() - started));
+        return exported;
+    }
+
+    private long writeAll(ObjectWriter writer, OutputStream output) {
+        var count = new long[1];
+        try (var mappings = urlMappingRepository.streamAll()) {
+            for (var iterator = mappings.iterator(); iterator.hasNext(); ) {
+                var mapping = iterator.next();
+                write(writer, output, mapping, count);
+                entityManager.detach(mapping);
+            }
+        }
+        archivedMappingRepository.forEach(mapping -> write(writer, output, mapping, count));
+        return count[0];
+    }
+
+    private void write(ObjectWriter writer, OutputStream output, UrlMapping mapping, long[] count) {
+        try {
+            output.write(writer.writeValueAsBytes(toRecord(mapping)));
+            output.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (++count[0] % progressInterval == 0) {
+            log.info("Export progress: {} mappings", count[0]);
+        }
+    }
+
+    /**
+     * Reads mappings from the stream and inserts those whose ID and short code are not taken yet.
+     * Afterwards the ID counter is moved past the highest imported ID.
+     */
+    public ImportResponse importFrom(InputStream inputStream) throws IOException {
+        var started = System.nanoTime();
+        long read = 0;
+        long imported = 0;
+        long invalid = 0;
+        long maxId = 0;
+        var batch = new ArrayList<UrlMapping>(batchSize);
+
+        try (MappingIterator<UrlMappingRecord> records = objectMapper.readerFor(UrlMappingRecord.class)
+                .readValues(inputStream)) {
+            while (records.hasNextValue()) {
+                var mapping = toMapping(records.nextValue());
+                read++;
+                if (mapping == null) {
+                    invalid++;
+                    continue;
+                }
+
+                batch.add(mapping);
+                maxId = Math.max(maxId, mapping.getId());
+                if (batch.size() == batchSize) {
+                    imported += writeBatch(batch);
+                    batch.clear();
+                }
+                if (read % progressInterval == 0) {
+                    log.info("Import progress: {} read, {} imported, {} invalid", read, imported, invalid);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            imported += writeBatch(batch);
+            advanceCounter(maxId);
+            throw new InvalidImportException(read + 1, imported, e);
+        }
+        imported += writeBatch(batch);
+        advanceCounter(maxId);
+
+        var response = ImportResponse.builder()
+                .read(read)
+                .imported(imported)
+                .skipped(read - invalid - imported)
+                .invalid(invalid)
+                .durationMillis(Duration.ofNanos(System.nanoTime() - started).toMillis())
+                .build();
+        log.info("Import finished: {}", response);
+        return response;
+    }
+
+    private int writeBatch(List<UrlMapping> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        var inserted = 0;
+        for (var shardBatch : shardRouter.partition(batch, UrlMapping::getId).entrySet()) {
+            var count = ShardContext.call(shardBatch.getKey(), () ->
+                    transactionTemplate.execute(status -> urlMappingBatchWriter.insertIfAbsent(shardBatch.getValue())));
+            inserted += count != null ? count : 0;
+        }
+        for (var mapping : batch) {
+            urlDeduplicator.recordInserted(mapping);
+        }
+        issuedIdFilter.publishStored(batch.stream().map(UrlMapping::getId).toList());
+        return inserted;
+    }
+
+    private void advanceCounter(long maxId) {
+        if (maxId > 0) {
+            idAllocator.advanceTo(maxId);
+        }
+    }
+
+    private UrlMappingRecord toRecord(UrlMapping mapping) {
+        return UrlMappingRecord.builder()
+                .id(mapping.getId())
+                .shortCode(mapping.getShortCode())
+                .originalUrl(mapping.getOriginalUrl())
+                .createdAt(mapping.getCreatedAt())
+                .expiresAt(mapping.getExpiresAt())
+                .accessCount(mapping.getAccessCount())
+                .build();
+    }
+
+    /**
+     * Converts a record to a mapping, or returns {@code null} if it cannot be imported.
+     * Either the ID or the short code may be omitted; when both are present they must agree.
+     */
+    private UrlMapping toMapping(UrlMappingRecord record) {
+        var url = record.getOriginalUrl();
+        if (url == null || url.length() > 255 || !(url.startsWith("http://") || url.startsWith("https://"))) {
+            return null;
+        }
+
+        var id = record.getId();
+        var shortCode = record.getShortCode();
+        if (id == null && shortCode == null) {
+            return null;
+        }
+        if (id == null) {
+            id = shortCodeGenerator.decode(shortCode);
+        } else if (id <= 0 || id >= FeistelCodec.MAX_ID) {
+            return null;
+        } else if (shortCode == null) {
+            shortCode = shortCodeGenerator.generate(id);
+        } else if (shortCodeGenerator.decode(shortCode) != id) {
+            return null;
+        }
+        if (id <= 0) {
+            return null;
+        }
+
+        return UrlMapping.builder()
+                .id(id)
+                .shortCode(shortCode)
+                .originalUrl(url)
+                .originalUrlHash(UrlHash.of(url))
+                .createdAt(record.getCreatedAt() != null ? record.getCreatedAt() : LocalDateTime.now())
+                .expiresAt(record.getExpiresAt())
+                .accessCount(record.getAccessCount() != null ? record.getAccessCount() : 0L)
+                .build();
+    }
+}
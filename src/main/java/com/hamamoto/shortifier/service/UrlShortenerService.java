@@ -1,12 +1,22 @@
 package com.hamamoto.shortifier.service;
 
+import com.hamamoto.shortifier.cache.CachedUrl;
+import com.hamamoto.shortifier.cache.UrlCache;
 import com.hamamoto.shortifier.component.ShortCodeGenerator;
 import com.hamamoto.shortifier.dto.ShortenRequest;
 import com.hamamoto.shortifier.dto.ShortenResponse;
 import com.hamamoto.shortifier.entity.UrlMapping;
 import com.hamamoto.shortifier.exception.ShortUrlExpiredException;
 import com.hamamoto.shortifier.exception.ShortUrlNotFoundException;
+import com.hamamoto.shortifier.monitoring.ShortifierMetrics;
+import com.hamamoto.shortifier.monitoring.ShortifierMetrics.Outcome;
+import com.hamamoto.shortifier.monitoring.ShortifierMetrics.Stage;
+import com.hamamoto.shortifier.repository.ArchivedMappingRepository;
 import com.hamamoto.shortifier.repository.UrlMappingRepository;
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import com.hamamoto.shortifier.trending.HotKeyTracker;
+import com.hamamoto.shortifier.writebehind.WriteBehindLog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,6 +24,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -21,51 +32,233 @@ import java.time.LocalDateTime;
 public class UrlShortenerService {
 
     private final UrlMappingRepository urlMappingRepository;
-    private final RedisCounterService redisCounterService;
+    private final IdAllocator idAllocator;
     private final ShortCodeGenerator shortCodeGenerator;
+    private final UrlCache urlCache;
+    private final AccessCountService accessCountService;
+    private final UrlDeduplicator urlDeduplicator;
+    private final IssuedIdFilter issuedIdFilter;
+    private final ShortifierMetrics metrics;
+    private final ShardRouter shardRouter;
+    private final ArchivedMappingRepository archivedMappingRepository;
+    private final HotKeyTracker hotKeyTracker;
+    private final WriteBehindLog writeBehindLog;
 
     @Value("${shortifier.base-url:http://localhost:8080}")
     private String baseUrl;
 
+    @Value("${shortifier.read-replicas.enabled:false}")
+    private boolean readReplicasEnabled;
+
+    /**
+     * Stores a new mapping, or returns the existing one when deduplication finds the URL.
+     * With sharding, the transaction binds to the shard of its first statement. Dedup lookups
+     * across shards and sequence block reservations run in transactions of their own, so the
+     * insert binds it to the shard of the new ID.
+     */
     @Transactional
     public ShortenResponse shortenUrl(ShortenRequest request) {
-        var shortCode = generateUniqueShortCode();
+        var urlHash = urlDeduplicator.hashFor(request.getUrl(), request.getExpiresAt());
+        var existing = findDuplicate(request, urlHash);
+        if (existing.isPresent()) {
+            return toResponse(existing.get());
+        }
+
+        var urlMapping = newMapping(request, urlHash);
+        var saved = save(urlMapping);
+        urlCache.putAfterCommit(saved.getShortCode(),
+                new CachedUrl(saved.getId(), saved.getOriginalUrl(), saved.getExpiresAt()));
+        urlDeduplicator.recordInserted(saved);
+
+        log.debug("Created short URL: {} -> {}", saved.getShortCode(), request.getUrl());
+        metrics.recordOutcome(Outcome.CREATED);
+
+        return toResponse(saved);
+    }
+
+    public boolean isWriteBehindEnabled() {
+        return writeBehindLog.isEnabled();
+    }
+
+    /**
+     * Stores a new mapping through the {@link WriteBehindLog}: the response is returned as soon as
+     * the mapping is fsynced to the local log, and it reaches {@code url_mapping} shortly after.
+     * Not transactional, so no database connection is held. If the log cannot take the mapping,
+     * it is stored synchronously instead.
+     */
+    public ShortenResponse shortenUrlWriteBehind(ShortenRequest request) {
+        var urlHash = urlDeduplicator.hashFor(request.getUrl(), request.getExpiresAt());
+        var existing = findDuplicate(request, urlHash);
+        if (existing.isPresent()) {
+            return toResponse(existing.get());
+        }
+
+        var urlMapping = newMapping(request, urlHash);
+        urlMapping.setCreatedAt(LocalDateTime.now());
+        urlMapping.setAccessCount(0L);
+        var start = System.nanoTime();
+        var logged = writeBehindLog.append(urlMapping);
+        metrics.recordStage(Stage.LOG_APPEND, start);
+        var stored = logged ? urlMapping : save(urlMapping);
+        urlCache.put(stored.getShortCode(), new CachedUrl(stored.getId(), stored.getOriginalUrl(), stored.getExpiresAt()));
+        urlDeduplicator.recordInserted(stored);
 
-        var urlMapping = UrlMapping.builder()
+        log.debug("Created short URL: {} -> {} ({})", stored.getShortCode(), request.getUrl(),
+                logged ? "logged" : "stored");
+        metrics.recordOutcome(Outcome.CREATED);
+
+        return toResponse(stored);
+    }
+
+    private Optional<UrlMapping> findDuplicate(ShortenRequest request, Long urlHash) {
+        if (urlHash == null) {
+            return Optional.empty();
+        }
+        var start = System.nanoTime();
+        var existing = urlDeduplicator.findExisting(request.getUrl(), urlHash);
+        metrics.recordStage(Stage.DEDUP_LOOKUP, start);
+        if (existing.isPresent()) {
+            log.debug("Reusing short code {} for {}", existing.get().getShortCode(), request.getUrl());
+            metrics.recordOutcome(Outcome.REUSED);
+        }
+        return existing;
+    }
+
+    private UrlMapping newMapping(ShortenRequest request, Long urlHash) {
+        var start = System.nanoTime();
+        var id = idAllocator.getNextId();
+        metrics.recordStage(Stage.ID_ALLOCATION, start);
+
+        start = System.nanoTime();
+        var shortCode = shortCodeGenerator.generate(id);
+        metrics.recordStage(Stage.CODE_GENERATION, start);
+        log.debug("Generated short code: {} from ID: {}", shortCode, id);
+
+        return UrlMapping.builder()
+                .id(id)
                 .shortCode(shortCode)
                 .originalUrl(request.getUrl())
+                .originalUrlHash(urlHash)
                 .expiresAt(request.getExpiresAt())
                 .build();
+    }
 
-        var saved = urlMappingRepository.save(urlMapping);
-
-        log.info("Created short URL: {} -> {}", shortCode, request.getUrl());
+    private UrlMapping save(UrlMapping urlMapping) {
+        var start = System.nanoTime();
+        var saved = ShardContext.call(shardRouter.shardFor(urlMapping.getId()),
+                () -> urlMappingRepository.saveAndFlush(urlMapping));
+        metrics.recordStage(Stage.DB_SAVE, start);
+        return saved;
+    }
 
+    private ShortenResponse toResponse(UrlMapping urlMapping) {
         return ShortenResponse.builder()
-                .shortCode(saved.getShortCode())
-                .originalUrl(saved.getOriginalUrl())
-                .shortUrl(baseUrl + "/" + saved.getShortCode())
-                .createdAt(saved.getCreatedAt())
-                .expiresAt(saved.getExpiresAt())
+                .shortCode(urlMapping.getShortCode())
+                .originalUrl(urlMapping.getOriginalUrl())
+                .shortUrl(baseUrl + "/" + urlMapping.getShortCode())
+                .createdAt(urlMapping.getCreatedAt())
+                .expiresAt(urlMapping.getExpiresAt())
                 .build();
     }
 
-    private String generateUniqueShortCode() {
-        var nextId = redisCounterService.getNextId();
-        var shortCode = shortCodeGenerator.generate(nextId);
-        log.debug("Generated short code: {} from ID: {}", shortCode, nextId);
-        return shortCode;
+    /**
+     * Resolves a short code to its original URL.
+     * Codes that do not decode to a counter ID, or whose ID the {@link IssuedIdFilter} knows was
+     * never stored, are rejected before any Redis or database access; the rest are looked up by
+     * primary key on the shard the ID maps to. With read replicas the lookup runs on a replica,
+     * and a miss is repeated on the primary so a link created moments ago is never reported
+     * missing because of replication lag. Mappings moved out by the {@link ColdMappingArchiver}
+     * are found in the archive as a last resort. Every request is counted by the
+     * {@link HotKeyTracker}, which finds the trending codes to pin in the local cache.
+     * A row is only accepted if its stored short code is the requested one: the few legacy Hashids
+     * codes that also decode as a codec ID are retried with their legacy ID.
+     * In write-behind mode, mappings still waiting in the {@link WriteBehindLog} are served from
+     * there before the not-found filter or the database is asked.
+     */
+    public String getOriginalUrl(String shortCode) {
+        hotKeyTracker.record(shortCode);
+        var cached = urlCache.getLocal(shortCode);
+        if (cached != null) {
+            accessCountService.recordAccess(cached.id());
+            log.debug("Redirecting short code {} to {} (cached)", shortCode, cached.originalUrl());
+            metrics.recordOutcome(Outcome.REDIRECTED);
+            return cached.originalUrl();
+        }
+
+        var id = shortCodeGenerator.decode(shortCode);
+        var pending = id > 0 ? writeBehindLog.findPending(id) : null;
+        if (pending != null && shortCode.equals(pending.getShortCode())) {
+            return redirectTo(shortCode, pending);
+        }
+        if (id > 0 && issuedIdFilter.isDefinitelyAbsent(id)) {
+            id = legacyId(shortCode, id);
+        }
+        if (id <= 0 || issuedIdFilter.isDefinitelyAbsent(id)) {
+            metrics.recordOutcome(Outcome.NOT_FOUND);
+            throw new ShortUrlNotFoundException(shortCode);
+        }
+
+        var start = System.nanoTime();
+        cached = urlCache.getShared(shortCode);
+        metrics.recordStage(Stage.SHARED_CACHE_LOOKUP, start);
+        if (cached != null) {
+            accessCountService.recordAccess(cached.id());
+            log.debug("Redirecting short code {} to {} (shared cache)", shortCode, cached.originalUrl());
+            metrics.recordOutcome(Outcome.REDIRECTED);
+            return cached.originalUrl();
+        }
+
+        var found = findStored(shortCode, id);
+        if (found.isEmpty()) {
+            var legacyId = legacyId(shortCode, id);
+            if (legacyId > 0 && !issuedIdFilter.isDefinitelyAbsent(legacyId)) {
+                found = findStored(shortCode, legacyId);
+            }
+        }
+        if (found.isEmpty()) {
+            metrics.recordOutcome(Outcome.NOT_FOUND);
+            throw new ShortUrlNotFoundException(shortCode);
+        }
+        return redirectTo(shortCode, found.get());
+    }
+
+    private long legacyId(String shortCode, long id) {
+        var legacyId = shortCodeGenerator.decodeLegacy(shortCode);
+        return legacyId != id ? legacyId : -1L;
     }
 
-    public String getOriginalUrl(String shortCode) {
-        var urlMapping = urlMappingRepository.findByShortCode(shortCode)
-                .orElseThrow(() -> new ShortUrlNotFoundException(shortCode));
+    private Optional<UrlMapping> findStored(String shortCode, long id) {
+        var start = System.nanoTime();
+        var shard = shardRouter.shardFor(id);
+        var found = ShardContext.call(shard, () -> urlMappingRepository.findById(id));
+        metrics.recordStage(Stage.DB_LOOKUP, start);
+        if (found.isEmpty() && readReplicasEnabled) {
+            start = System.nanoTime();
+            found = ShardContext.call(shard, () -> urlMappingRepository.findByIdOnPrimary(id));
+            metrics.recordStage(Stage.PRIMARY_LOOKUP, start);
+        }
+        if (found.isEmpty()) {
+            start = System.nanoTime();
+            found = ShardContext.call(shard, () -> archivedMappingRepository.findById(id));
+            metrics.recordStage(Stage.ARCHIVE_LOOKUP, start);
+        }
+        return found.filter(mapping -> shortCode.equals(mapping.getShortCode()));
+    }
 
-        if (urlMapping.getExpiresAt() != null && urlMapping.getExpiresAt().isBefore(LocalDateTime.now())) {
+    private String redirectTo(String shortCode, UrlMapping urlMapping) {
+        var start = System.nanoTime();
+        var expired = urlMapping.getExpiresAt() != null && urlMapping.getExpiresAt().isBefore(LocalDateTime.now());
+        metrics.recordStage(Stage.EXPIRY_CHECK, start);
+        if (expired) {
+            metrics.recordOutcome(Outcome.EXPIRED);
             throw new ShortUrlExpiredException(shortCode);
         }
 
-        log.info("Redirecting short code {} to {}", shortCode, urlMapping.getOriginalUrl());
+        urlCache.put(shortCode, new CachedUrl(urlMapping.getId(), urlMapping.getOriginalUrl(), urlMapping.getExpiresAt()));
+        accessCountService.recordAccess(urlMapping.getId());
+
+        log.debug("Redirecting short code {} to {}", shortCode, urlMapping.getOriginalUrl());
+        metrics.recordOutcome(Outcome.REDIRECTED);
         return urlMapping.getOriginalUrl();
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.hamamoto.shortifier.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard that database work on the current thread is routed to.
+ * The routing data source only reads it when a connection is first needed, so the shard must be
+ * set before a transaction runs its first statement; work spanning several shards uses one
+ * transaction per shard. Without sharding there is a single data source and the value is ignored.
+ */
+public final class ShardContext {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static <T> T call(int shard, Supplier<T> work) {
+        var previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static void run(int shard, Runnable work) {
+        call(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return the shard set by the innermost enclosing call, or {@code null} for the default shard
+     */
+    static Integer current() {
+        return CURRENT.get();
+    }
+}
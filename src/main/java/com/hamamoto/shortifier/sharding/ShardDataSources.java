@@ -0,0 +1,47 @@
+package com.hamamoto.shortifier.sharding;
+
+import com.hamamoto.shortifier.replica.ReplicaPools;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One connection pool per configured shard, in shard order, plus the pools of each shard's replicas.
+ */
+public class ShardDataSources implements AutoCloseable {
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final List<ReplicaPools> replicaPools = new ArrayList<>();
+
+    public ShardDataSources(List<ShardingProperties.Shard> shards) {
+        for (int index = 0; index < shards.size(); index++) {
+            var shard = shards.get(index);
+            var pool = new HikariDataSource();
+            pool.setPoolName("shard-" + index);
+            pool.setJdbcUrl(shard.url());
+            pool.setUsername(shard.username());
+            pool.setPassword(shard.password());
+            pool.setMaximumPoolSize(shard.maximumPoolSize());
+            pools.add(pool);
+            replicaPools.add(new ReplicaPools("shard-" + index + "-replica", shard.replicas()));
+        }
+    }
+
+    public List<DataSource> all() {
+        return List.copyOf(pools);
+    }
+
+    /**
+     * @return the replicas of one shard, empty if it has none
+     */
+    public List<DataSource> replicas(int shard) {
+        return replicaPools.get(shard).all();
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+        replicaPools.forEach(ReplicaPools::close);
+    }
+}
@@ -0,0 +1,198 @@
+package com.hamamoto.shortifier.sharding;
+
+import com.hamamoto.shortifier.analytics.ClickRollupKey;
+import com.hamamoto.shortifier.analytics.ClickRollupRepository;
+import com.hamamoto.shortifier.analytics.RollupGranularity;
+import com.hamamoto.shortifier.cache.UrlCache;
+import com.hamamoto.shortifier.dto.RebalanceResponse;
+import com.hamamoto.shortifier.dto.ShardStatus;
+import com.hamamoto.shortifier.entity.UrlMapping;
+import com.hamamoto.shortifier.repository.UrlMappingBatchWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves mappings that are stored on a shard other than the one {@link ShardRouter} assigns them,
+ * as happens after adding a shard or changing the strategy.
+ * Each shard is scanned in ID order in fixed-size batches. Misplaced rows and their click rollups
+ * are copied to their target shard in one transaction and only then deleted from the source in
+ * another, so a failure between the two leaves a duplicate rather than a gap. Rows already present
+ * on the target are not copied again, which makes an interrupted run safe to repeat.
+ * Lookups route by the new layout as soon as it is configured, so rows not yet moved are not found
+ * until the rebalance has passed them; run it before taking traffic on a changed layout.
+ * Moved codes are evicted from every cache level once they are deleted from the source.
+ */
+@Service
+@Slf4j
+public class ShardRebalancer {
+    private static final String STATUS_SQL = "SELECT COUNT(*), MIN(id), MAX(id) FROM url_mapping";
+
+    private static final String SCAN_SQL = """
+            SELECT id, short_code, original_url, original_url_hash, created_at, expires_at, access_count
+            FROM url_mapping
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    private static final String EXISTING_IDS_SQL = "SELECT id FROM url_mapping WHERE id BETWEEN ? AND ?";
+
+    private static final String ROLLUPS_SQL = """
+            SELECT url_mapping_id, granularity, bucket_start, clicks FROM click_rollup
+            WHERE url_mapping_id BETWEEN ? AND ?
+            """;
+
+    private static final String DELETE_ROLLUPS_SQL = "DELETE FROM click_rollup WHERE url_mapping_id = ?";
+    private static final String DELETE_MAPPING_SQL = "DELETE FROM url_mapping WHERE id = ?";
+
+    private static final RowMapper<UrlMapping> MAPPING_MAPPER = (rs, rowNum) -> UrlMapping.builder()
+            .id(rs.getLong("id"))
+            .shortCode(rs.getString("short_code"))
+            .originalUrl(rs.getString("original_url"))
+            .originalUrlHash(rs.getObject("original_url_hash", Long.class))
+            .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+            .expiresAt(rs.getTimestamp("expires_at") != null ? rs.getTimestamp("expires_at").toLocalDateTime() : null)
+            .accessCount(rs.getLong("access_count"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final UrlMappingBatchWriter urlMappingBatchWriter;
+    private final ClickRollupRepository clickRollupRepository;
+    private final UrlCache urlCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ShardRebalancer(JdbcTemplate jdbcTemplate,
+                           ShardRouter shardRouter,
+                           UrlMappingBatchWriter urlMappingBatchWriter,
+                           ClickRollupRepository clickRollupRepository,
+                           UrlCache urlCache,
+                           PlatformTransactionManager transactionManager,
+                           ShardingProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.urlMappingBatchWriter = urlMappingBatchWriter;
+        this.clickRollupRepository = clickRollupRepository;
+        this.urlCache = urlCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = properties.rebalanceBatchSize();
+    }
+
+    public List<ShardStatus> status() {
+        var statuses = new ArrayList<ShardStatus>(shardRouter.shardCount());
+        for (int shard : shardRouter.shards()) {
+            statuses.add(ShardContext.call(shard, () -> jdbcTemplate.queryForObject(STATUS_SQL,
+                    (rs, rowNum) -> ShardStatus.builder()
+                            .shard(shard)
+                            .mappings(rs.getLong(1))
+                            .minId(rs.getObject(2, Long.class))
+                            .maxId(rs.getObject(3, Long.class))
+                            .build())));
+        }
+        return statuses;
+    }
+
+    /**
+     * Scans every shard once and moves each misplaced mapping to its target shard.
+     */
+    public synchronized RebalanceResponse rebalance() {
+        var started = System.nanoTime();
+        var scanned = 0L;
+        var moved = 0L;
+        if (shardRouter.isSharded()) {
+            for (int shard : shardRouter.shards()) {
+                var lastId = 0L;
+                while (true) {
+                    var from = lastId;
+                    var batch = ShardContext.call(shard, () -> jdbcTemplate.query(SCAN_SQL, MAPPING_MAPPER, from, batchSize));
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    scanned += batch.size();
+                    moved += moveMisplaced(shard, batch);
+                    if (batch.size() < batchSize) {
+                        break;
+                    }
+                    lastId = batch.getLast().getId();
+                }
+            }
+        }
+
+        var response = RebalanceResponse.builder()
+                .scanned(scanned)
+                .moved(moved)
+                .durationMillis(Duration.ofNanos(System.nanoTime() - started).toMillis())
+                .build();
+        log.info("Rebalance finished: {}", response);
+        return response;
+    }
+
+    private int moveMisplaced(int source, List<UrlMapping> batch) {
+        var byTarget = shardRouter.partition(batch, UrlMapping::getId);
+        byTarget.remove(source);
+        if (byTarget.isEmpty()) {
+            return 0;
+        }
+
+        var rollups = ShardContext.call(source, () -> jdbcTemplate.query(ROLLUPS_SQL,
+                (rs, rowNum) -> Map.entry(
+                        new ClickRollupKey(rs.getLong("url_mapping_id"),
+                                RollupGranularity.valueOf(rs.getString("granularity")),
+                                rs.getTimestamp("bucket_start").toLocalDateTime()),
+                        rs.getLong("clicks")),
+                batch.getFirst().getId(), batch.getLast().getId()));
+
+        var moved = new ArrayList<UrlMapping>();
+        for (var target : byTarget.entrySet()) {
+            ShardContext.run(target.getKey(), () -> transactionTemplate.executeWithoutResult(status ->
+                    copy(target.getValue(), rollups)));
+            moved.addAll(target.getValue());
+        }
+
+        ShardContext.run(source, () -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(DELETE_ROLLUPS_SQL, moved, batchSize,
+                    (statement, mapping) -> statement.setLong(1, mapping.getId()));
+            jdbcTemplate.batchUpdate(DELETE_MAPPING_SQL, moved, batchSize,
+                    (statement, mapping) -> statement.setLong(1, mapping.getId()));
+        }));
+        urlCache.evictAll(moved.stream().map(UrlMapping::getShortCode).toList());
+        return moved.size();
+    }
+
+    /**
+     * Inserts the mappings missing on the current shard together with their click rollups.
+     */
+    private void copy(List<UrlMapping> mappings, List<Map.Entry<ClickRollupKey, Long>> rollups) {
+        var existing = new HashSet<>(jdbcTemplate.queryForList(EXISTING_IDS_SQL, Long.class,
+                mappings.getFirst().getId(), mappings.getLast().getId()));
+        var missing = mappings.stream().filter(mapping -> !existing.contains(mapping.getId())).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        urlMappingBatchWriter.insertIfAbsent(missing);
+
+        var missingIds = new HashSet<Long>();
+        missing.forEach(mapping -> missingIds.add(mapping.getId()));
+        var deltas = new HashMap<ClickRollupKey, Long>();
+        for (var rollup : rollups) {
+            if (missingIds.contains(rollup.getKey().urlMappingId())) {
+                deltas.put(rollup.getKey(), rollup.getValue());
+            }
+        }
+        if (!deltas.isEmpty()) {
+            clickRollupRepository.addClicks(deltas, batchSize);
+        }
+    }
+}
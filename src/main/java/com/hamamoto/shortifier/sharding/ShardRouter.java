@@ -0,0 +1,77 @@
+package com.hamamoto.shortifier.sharding;
+
+import com.hamamoto.shortifier.util.SplitMix64;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Maps a mapping's ID, and therefore its short code, to the shard that stores it.
+ * {@link Strategy#RANGE} keeps consecutive blocks of {@code range-size} IDs together, with the last
+ * shard taking every ID beyond; {@link Strategy#HASH} spreads IDs evenly so new links load every
+ * shard. Without sharding there is one shard and every ID maps to 0.
+ */
+public class ShardRouter {
+
+    public enum Strategy { RANGE, HASH }
+
+    private final int shardCount;
+    private final Strategy strategy;
+    private final long rangeSize;
+    private final List<Integer> shards;
+
+    public ShardRouter(int shardCount, Strategy strategy, long rangeSize) {
+        if (shardCount < 1 || rangeSize < 1) {
+            throw new IllegalArgumentException("Shard count and range size must be positive");
+        }
+        this.shardCount = shardCount;
+        this.strategy = strategy;
+        this.rangeSize = rangeSize;
+        this.shards = IntStream.range(0, shardCount).boxed().toList();
+    }
+
+    public static ShardRouter single() {
+        return new ShardRouter(1, Strategy.HASH, 1);
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @return the shard indexes {@code 0..shardCount-1}
+     */
+    public List<Integer> shards() {
+        return shards;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int shardFor(long id) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        return switch (strategy) {
+            case RANGE -> (int) Math.min(Math.max(id - 1, 0) / rangeSize, shardCount - 1);
+            case HASH -> (int) Math.floorMod(SplitMix64.mix(id), (long) shardCount);
+        };
+    }
+
+    /**
+     * Groups items by the shard of their ID, in shard order.
+     */
+    public <T> Map<Integer, List<T>> partition(Collection<T> items, ToLongFunction<T> idOf) {
+        var byShard = new TreeMap<Integer, List<T>>();
+        for (var item : items) {
+            byShard.computeIfAbsent(shardFor(idOf.applyAsLong(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return byShard;
+    }
+}
@@ -0,0 +1,30 @@
+package com.hamamoto.shortifier.sharding;
+
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Runs the same changelog against every shard in turn, so each shard carries the full schema.
+ * Being a {@link SpringLiquibase}, it still makes JPA wait for the migrations.
+ */
+@Slf4j
+public class ShardedSpringLiquibase extends SpringLiquibase {
+    private final List<DataSource> shards;
+
+    public ShardedSpringLiquibase(List<DataSource> shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            log.info("Running Liquibase on shard {}", shard);
+            setDataSource(shards.get(shard));
+            super.afterPropertiesSet();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.hamamoto.shortifier.sharding;
+
+import com.hamamoto.shortifier.replica.ReadReplicaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Binds {@code shortifier.sharding.*}. Shards are listed in order and addressed by their index,
+ * so appending a shard is safe for {@link ShardRouter.Strategy#RANGE} but reorders
+ * {@link ShardRouter.Strategy#HASH}; either change needs a rebalance. Each shard may list read
+ * replicas of its own, used when {@code shortifier.read-replicas.enabled} is set.
+ */
+@ConfigurationProperties("shortifier.sharding")
+public record ShardingProperties(boolean enabled,
+                                 @DefaultValue("HASH") ShardRouter.Strategy strategy,
+                                 @DefaultValue("100000000") long rangeSize,
+                                 @DefaultValue("1000") int rebalanceBatchSize,
+                                 List<Shard> shards) {
+
+    public record Shard(String url,
+                        String username,
+                        String password,
+                        @DefaultValue("10") int maximumPoolSize,
+                        List<ReadReplicaProperties.Replica> replicas) {
+    }
+
+    public int shardCount() {
+        return enabled && shards != null ? shards.size() : 1;
+    }
+}
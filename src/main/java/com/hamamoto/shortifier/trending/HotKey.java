@@ -0,0 +1,10 @@
+package com.hamamoto.shortifier.trending;
+
+/**
+ * A short code among the most requested in the last completed window.
+ *
+ * @param requests the estimated number of redirect requests in the window
+ * @param share    the fraction of all redirect requests in the window
+ */
+public record HotKey(String shortCode, long requests, double requestsPerSecond, double share) {
+}
@@ -0,0 +1,113 @@
+package com.hamamoto.shortifier.trending;
+
+import com.hamamoto.shortifier.util.CountMinSketch;
+import com.hamamoto.shortifier.util.SplitMix64;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds the most requested short codes in constant memory.
+ * Every redirect is counted in a {@link CountMinSketch}, and a code whose estimate beats the
+ * smallest of the current top {@code top-k} candidates replaces it. Candidates already tracked
+ * only update their count, so the lock is taken only when a new code enters the top K. At the
+ * end of each window, driven by {@link TrendingLinkPinner}, the candidates become the published
+ * snapshot, with rates per second and their share of all redirects, and counting starts over.
+ */
+@Component
+@Slf4j
+public class HotKeyTracker {
+    private final boolean enabled;
+    private final int topK;
+    private final CountMinSketch sketch;
+
+    private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+    private volatile long admissionThreshold;
+    private volatile long windowStartNanos = System.nanoTime();
+    private volatile List<HotKey> snapshot = List.of();
+
+    public HotKeyTracker(MeterRegistry meterRegistry,
+                         @Value("${shortifier.trending.enabled:true}") boolean enabled,
+                         @Value("${shortifier.trending.top-k:100}") int topK,
+                         @Value("${shortifier.trending.sketch-width:4096}") int sketchWidth,
+                         @Value("${shortifier.trending.sketch-depth:4}") int sketchDepth) {
+        this.enabled = enabled;
+        this.topK = topK;
+        this.sketch = new CountMinSketch(sketchWidth, sketchDepth);
+
+        Gauge.builder("shortifier.trending.top-share", this,
+                        tracker -> tracker.snapshot.stream().mapToDouble(HotKey::share).sum())
+                .description("Share of redirects that went to the top-K short codes in the last window")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(String shortCode) {
+        if (!enabled) {
+            return;
+        }
+        total.increment();
+        var estimate = sketch.add(SplitMix64.mix(shortCode.hashCode()));
+        if (candidates.replace(shortCode, estimate) == null && estimate > admissionThreshold) {
+            admit(shortCode, estimate);
+        }
+    }
+
+    /**
+     * @return the top codes of the last completed window, most requested first
+     */
+    public List<HotKey> snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Publishes the current window's top codes and starts a new window.
+     */
+    public synchronized void rotate() {
+        if (!enabled) {
+            return;
+        }
+        var now = System.nanoTime();
+        var seconds = Math.max(1e-3, (now - windowStartNanos) / 1e9);
+        var requests = Math.max(1, total.sumThenReset());
+        snapshot = candidates.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .map(entry -> new HotKey(entry.getKey(), entry.getValue(),
+                        entry.getValue() / seconds, (double) entry.getValue() / requests))
+                .toList();
+        candidates.clear();
+        sketch.clear();
+        admissionThreshold = 0;
+        windowStartNanos = now;
+        if (!snapshot.isEmpty()) {
+            log.debug("Top short code {} at {} requests/s", snapshot.getFirst().shortCode(),
+                    Math.round(snapshot.getFirst().requestsPerSecond()));
+        }
+    }
+
+    private synchronized void admit(String shortCode, long estimate) {
+        if (estimate <= admissionThreshold && candidates.size() >= topK) {
+            return;
+        }
+        candidates.put(shortCode, estimate);
+        if (candidates.size() > topK) {
+            var weakest = candidates.entrySet().stream().min(Comparator.comparingLong(Map.Entry::getValue)).orElseThrow();
+            candidates.remove(weakest.getKey());
+        }
+        if (candidates.size() >= topK) {
+            admissionThreshold = candidates.values().stream().mapToLong(Long::longValue).min().orElse(0);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.hamamoto.shortifier.trending;
+
+import com.hamamoto.shortifier.cache.CachedUrl;
+import com.hamamoto.shortifier.cache.LocalUrlCache;
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import com.hamamoto.shortifier.dto.TrendingLink;
+import com.hamamoto.shortifier.entity.UrlMapping;
+import com.hamamoto.shortifier.repository.ArchivedMappingRepository;
+import com.hamamoto.shortifier.repository.UrlMappingRepository;
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps trending links pinned in the {@link LocalUrlCache}.
+ * At the end of every {@code shortifier.trending.window} it rotates the {@link HotKeyTracker}
+ * and reloads each code above {@code pin-min-rate} requests per second from the database, so a
+ * link that turns viral is served from memory for as long as the spike lasts, whether or not it
+ * was cached before. Codes that cooled down, expired or no longer exist are unpinned.
+ */
+@Service
+@Slf4j
+public class TrendingLinkPinner {
+    private final HotKeyTracker hotKeyTracker;
+    private final LocalUrlCache localUrlCache;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final UrlMappingRepository urlMappingRepository;
+    private final ArchivedMappingRepository archivedMappingRepository;
+    private final ShardRouter shardRouter;
+    private final boolean pinEnabled;
+    private final double pinMinRate;
+
+    public TrendingLinkPinner(HotKeyTracker hotKeyTracker,
+                              LocalUrlCache localUrlCache,
+                              ShortCodeGenerator shortCodeGenerator,
+                              UrlMappingRepository urlMappingRepository,
+                              ArchivedMappingRepository archivedMappingRepository,
+                              ShardRouter shardRouter,
+                              MeterRegistry meterRegistry,
+                              @Value("${shortifier.trending.pin.enabled:true}") boolean pinEnabled,
+                              @Value("${shortifier.trending.pin.min-rate:50}") double pinMinRate) {
+        this.hotKeyTracker = hotKeyTracker;
+        this.localUrlCache = localUrlCache;
+        this.shortCodeGenerator = shortCodeGenerator;
+        this.urlMappingRepository = urlMappingRepository;
+        this.archivedMappingRepository = archivedMappingRepository;
+        this.shardRouter = shardRouter;
+        this.pinEnabled = pinEnabled;
+        this.pinMinRate = pinMinRate;
+
+        Gauge.builder("shortifier.trending.pinned", localUrlCache, LocalUrlCache::pinnedCount)
+                .description("Trending short codes pinned in the local cache")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedRateString = "${shortifier.trending.window:PT10S}",
+            initialDelayString = "${shortifier.trending.window:PT10S}")
+    public void scheduledRefresh() {
+        if (!hotKeyTracker.isEnabled()) {
+            return;
+        }
+        hotKeyTracker.rotate();
+        if (pinEnabled) {
+            refreshPins();
+        }
+    }
+
+    /**
+     * @return the top codes of the last completed window, most requested first
+     */
+    public List<TrendingLink> trending() {
+        return hotKeyTracker.snapshot().stream()
+                .map(hotKey -> TrendingLink.builder()
+                        .shortCode(hotKey.shortCode())
+                        .requests(hotKey.requests())
+                        .requestsPerSecond(hotKey.requestsPerSecond())
+                        .share(hotKey.share())
+                        .pinned(localUrlCache.isPinned(hotKey.shortCode()))
+                        .build())
+                .toList();
+    }
+
+    void refreshPins() {
+        var pinned = new HashSet<String>();
+        for (var hotKey : hotKeyTracker.snapshot()) {
+            if (hotKey.requestsPerSecond() < pinMinRate) {
+                break;
+            }
+            try {
+                load(hotKey.shortCode()).ifPresent(url -> {
+                    localUrlCache.pin(hotKey.shortCode(), url);
+                    pinned.add(hotKey.shortCode());
+                });
+            } catch (RuntimeException e) {
+                if (localUrlCache.isPinned(hotKey.shortCode())) {
+                    pinned.add(hotKey.shortCode());
+                }
+                log.warn("Could not refresh trending short code {}: {}", hotKey.shortCode(), e.getMessage());
+            }
+        }
+        localUrlCache.retainPinned(pinned);
+    }
+
+    private Optional<CachedUrl> load(String shortCode) {
+        var id = shortCodeGenerator.decode(shortCode);
+        var found = find(shortCode, id);
+        if (found.isEmpty()) {
+            var legacyId = shortCodeGenerator.decodeLegacy(shortCode);
+            if (legacyId != id) {
+                found = find(shortCode, legacyId);
+            }
+        }
+        var now = LocalDateTime.now();
+        return found
+                .filter(mapping -> mapping.getExpiresAt() == null || !mapping.getExpiresAt().isBefore(now))
+                .map(TrendingLinkPinner::toCachedUrl);
+    }
+
+    private Optional<UrlMapping> find(String shortCode, long id) {
+        if (id <= 0) {
+            return Optional.empty();
+        }
+        var shard = shardRouter.shardFor(id);
+        var found = ShardContext.call(shard, () -> urlMappingRepository.findById(id));
+        if (found.isEmpty()) {
+            found = ShardContext.call(shard, () -> archivedMappingRepository.findById(id));
+        }
+        return found.filter(mapping -> shortCode.equals(mapping.getShortCode()));
+    }
+
+    private static CachedUrl toCachedUrl(UrlMapping mapping) {
+        return new CachedUrl(mapping.getId(), mapping.getOriginalUrl(), mapping.getExpiresAt());
+    }
+}
@@ -0,0 +1,68 @@
+package com.hamamoto.shortifier.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over 64-bit hashes.
+ * The {@code k} bit positions are derived from the two halves of the hash by double hashing,
+ * so callers must pass well-mixed values such as {@link UrlHash}. Bits are only ever set,
+ * which makes {@link #put} and {@link #mightContain} safe to call concurrently without locking.
+ */
+public final class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    /**
+     * @param expectedInsertions the number of hashes the filter is sized for
+     * @param falsePositiveRate  the target false positive rate at that size, between 0 and 1
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter sizing: " + expectedInsertions
+                    + " insertions at " + falsePositiveRate);
+        }
+        var optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        var wordCount = Math.clamp((optimalBits + 63) / 64, 1, Integer.MAX_VALUE - 8);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(long hash) {
+        var low = (int) hash;
+        var high = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            var bit = ((low + (long) i * high) & Long.MAX_VALUE) % bitCount;
+            var word = (int) (bit >>> 6);
+            var mask = 1L << bit;
+            var current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if the hash was definitely never added
+     */
+    public boolean mightContain(long hash) {
+        var low = (int) hash;
+        var high = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            var bit = ((low + (long) i * high) & Long.MAX_VALUE) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+}
@@ -0,0 +1,70 @@
+package com.hamamoto.shortifier.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Count-Min Sketch over 64-bit hashes.
+ * Each of the {@code depth} rows holds {@code width} counters; a hash increments one counter per
+ * row, chosen by double hashing as in {@link BloomFilter}, and its estimate is the smallest of
+ * them. Estimates never undercount and overcount by at most a small fraction of the total, in
+ * memory that does not grow with the number of distinct keys. Callers must pass well-mixed hashes.
+ */
+public final class CountMinSketch {
+    private final AtomicLongArray counters;
+    private final int depth;
+    private final int widthMask;
+
+    /**
+     * @param width the counters per row, rounded up to a power of two
+     * @param depth the number of rows
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || width > 1 << 24 || depth <= 0 || depth > 16) {
+            throw new IllegalArgumentException("Invalid Count-Min Sketch sizing: " + width + " x " + depth);
+        }
+        var roundedWidth = Integer.highestOneBit(width) == width ? width : Integer.highestOneBit(width) << 1;
+        this.counters = new AtomicLongArray(roundedWidth * depth);
+        this.depth = depth;
+        this.widthMask = roundedWidth - 1;
+    }
+
+    /**
+     * Counts one occurrence of the hash.
+     *
+     * @return the estimated count including this occurrence
+     */
+    public long add(long hash) {
+        var low = (int) hash;
+        var high = (int) (hash >>> 32);
+        var estimate = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            var index = i * (widthMask + 1) + ((low + (i + 1) * high) & widthMask);
+            estimate = Math.min(estimate, counters.incrementAndGet(index));
+        }
+        return estimate;
+    }
+
+    public long estimate(long hash) {
+        var low = (int) hash;
+        var high = (int) (hash >>> 32);
+        var estimate = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            var index = i * (widthMask + 1) + ((low + (i + 1) * high) & widthMask);
+            estimate = Math.min(estimate, counters.get(index));
+        }
+        return estimate;
+    }
+
+    /**
+     * Resets every counter. Concurrent {@link #add} calls may survive the reset in some rows.
+     */
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    public int width() {
+        return widthMask + 1;
+    }
+}
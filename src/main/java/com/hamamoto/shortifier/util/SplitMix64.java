@@ -0,0 +1,17 @@
+package com.hamamoto.shortifier.util;
+
+/**
+ * The SplitMix64 finalizer, which spreads sequential IDs evenly over all 64 bits.
+ */
+public final class SplitMix64 {
+
+    private SplitMix64() {
+    }
+
+    public static long mix(long value) {
+        var z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,29 @@
+package com.hamamoto.shortifier.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Fixed-width fingerprint of a URL: the first 8 bytes of its SHA-256 digest.
+ * Stored in {@code url_mapping.original_url_hash}, so the definition must never change.
+ * Each thread reuses one digest instead of looking the algorithm up per call.
+ */
+public final class UrlHash {
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private UrlHash() {
+    }
+
+    public static long of(String url) {
+        var digest = SHA_256.get().digest(url.getBytes(StandardCharsets.UTF_8));
+        return ByteBuffer.wrap(digest).getLong();
+    }
+}
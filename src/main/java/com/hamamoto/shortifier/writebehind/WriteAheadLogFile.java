@@ -0,0 +1,131 @@
+package com.hamamoto.shortifier.writebehind;
+
+import com.hamamoto.shortifier.entity.UrlMapping;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Record format of write-ahead log segments.
+ * Each record is its payload length, the CRC32 of the payload, and the payload: ID, creation
+ * and expiry time, a flag telling whether the URL hash is set, the URL hash (zero when it is not),
+ * then the short code and URL as length-prefixed UTF-8. A crash can
+ * only tear the last record of a segment, which then fails its length or checksum check and
+ * ends the replay of that segment.
+ */
+final class WriteAheadLogFile {
+    private static final int RECORD_HEADER_BYTES = 4 + 4;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final byte NO_URL_HASH = 0;
+    private static final byte URL_HASH = 1;
+
+    private WriteAheadLogFile() {
+    }
+
+    static ByteBuffer encode(List<UrlMapping> mappings) {
+        var payloads = new byte[mappings.size()][];
+        var size = 0;
+        for (int i = 0; i < mappings.size(); i++) {
+            payloads[i] = payload(mappings.get(i));
+            size += RECORD_HEADER_BYTES + payloads[i].length;
+        }
+        var buffer = ByteBuffer.allocate(size);
+        var crc = new CRC32();
+        for (var payload : payloads) {
+            crc.reset();
+            crc.update(payload);
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Passes every intact record of the segment to the consumer, in the order written.
+     *
+     * @return {@code true} if the whole segment was intact, {@code false} if it ended in a torn record
+     */
+    static boolean read(Path path, Consumer<UrlMapping> consumer) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            var crc = new CRC32();
+            while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+                var length = buffer.getInt();
+                var expectedCrc = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    return false;
+                }
+                var payload = buffer.slice(buffer.position(), length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != expectedCrc) {
+                    return false;
+                }
+                consumer.accept(decode(payload));
+                buffer.position(buffer.position() + length);
+            }
+            return !buffer.hasRemaining();
+        }
+    }
+
+    private static byte[] payload(UrlMapping mapping) {
+        var shortCode = mapping.getShortCode().getBytes(StandardCharsets.UTF_8);
+        var originalUrl = mapping.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+        var urlHash = mapping.getOriginalUrlHash();
+        var buffer = ByteBuffer.allocate(8 + 12 + 12 + 1 + 8 + 2 + shortCode.length + 4 + originalUrl.length);
+        buffer.putLong(mapping.getId());
+        putTime(buffer, mapping.getCreatedAt());
+        putTime(buffer, mapping.getExpiresAt());
+        buffer.put(urlHash != null ? URL_HASH : NO_URL_HASH).putLong(urlHash != null ? urlHash : 0L);
+        buffer.putShort((short) shortCode.length).put(shortCode);
+        buffer.putInt(originalUrl.length).put(originalUrl);
+        return buffer.array();
+    }
+
+    private static UrlMapping decode(ByteBuffer payload) {
+        var id = payload.getLong();
+        var createdAt = getTime(payload);
+        var expiresAt = getTime(payload);
+        var hasUrlHash = payload.get() == URL_HASH;
+        var urlHash = payload.getLong();
+        var shortCode = getString(payload, Short.toUnsignedInt(payload.getShort()));
+        var originalUrl = getString(payload, payload.getInt());
+        return UrlMapping.builder()
+                .id(id)
+                .shortCode(shortCode)
+                .originalUrl(originalUrl)
+                .originalUrlHash(hasUrlHash ? urlHash : null)
+                .createdAt(createdAt)
+                .expiresAt(expiresAt)
+                .accessCount(0L)
+                .build();
+    }
+
+    private static void putTime(ByteBuffer buffer, LocalDateTime time) {
+        if (time == null) {
+            buffer.putLong(NO_TIME).putInt(0);
+        } else {
+            buffer.putLong(time.toEpochSecond(ZoneOffset.UTC)).putInt(time.getNano());
+        }
+    }
+
+    private static LocalDateTime getTime(ByteBuffer buffer) {
+        var seconds = buffer.getLong();
+        var nanos = buffer.getInt();
+        return seconds == NO_TIME ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private static String getString(ByteBuffer buffer, int length) {
+        var bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,559 @@
+package com.hamamoto.shortifier.writebehind;
+
+import com.hamamoto.shortifier.cache.UrlCache;
+import com.hamamoto.shortifier.entity.UrlMapping;
+import com.hamamoto.shortifier.repository.UrlMappingBatchWriter;
+import com.hamamoto.shortifier.service.IdAllocator;
+import com.hamamoto.shortifier.sharding.ShardContext;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Makes new mappings durable on local disk and stores them in {@code url_mapping} shortly after.
+ * Request threads hand their mapping to a single log writer and wait until it is fsynced; the
+ * writer appends everything queued meanwhile and fsyncs once for the whole group, so the cost of
+ * an fsync is shared by all concurrent shortens. Durable mappings are kept in memory, where
+ * lookups find them, until a background drainer has inserted them with
+ * {@link UrlMappingBatchWriter#insertIfAbsent} in batches, one transaction per shard.
+ * The log is split into segments of about {@code segment-size} bytes, and a segment is deleted
+ * once it is closed and all its mappings are drained. On startup every remaining segment is
+ * replayed, the ID allocator is moved past the replayed IDs, and the drainer stores them again;
+ * rows that did make it before the restart are skipped.
+ * A mapping the database rejects for its content, such as a constraint violation, is isolated by
+ * splitting its batch and moved to {@value #DEAD_LETTER_FILE}, so it cannot stall its shard.
+ * Once {@code max-pending} mappings wait for the database, new shortens are stored synchronously,
+ * so an outage cannot grow the log and the memory holding it without bound.
+ */
+@Component
+@Slf4j
+public class WriteBehindLog implements SmartLifecycle {
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+
+    private final UrlMappingBatchWriter urlMappingBatchWriter;
+    private final IdAllocator idAllocator;
+    private final ShardRouter shardRouter;
+    private final UrlCache urlCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentSize;
+    private final int maxPending;
+    private final int batchSize;
+    private final long appendTimeoutNanos;
+    private final Duration drainInterval;
+    private final Duration shutdownTimeout;
+
+    private final BlockingQueue<Append> appends;
+    private final Map<Long, UrlMapping> pending = new ConcurrentHashMap<>();
+    private final Queue<Entry> undrained = new ConcurrentLinkedQueue<>();
+
+    private Segment segment;
+    private FileChannel channel;
+    private long nextSegment;
+    private Thread writerThread;
+    private Thread drainerThread;
+    private volatile boolean running;
+
+    private final Timer fsyncTimer;
+    private final DistributionSummary groupSize;
+    private final Counter drainedMappings;
+    private final Counter rejectedAppends;
+    private final Counter deadLetters;
+
+    public WriteBehindLog(UrlMappingBatchWriter urlMappingBatchWriter,
+                          IdAllocator idAllocator,
+                          ShardRouter shardRouter,
+                          UrlCache urlCache,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${shortifier.write-behind.enabled:false}") boolean enabled,
+                          @Value("${shortifier.write-behind.directory:data/wal}") Path directory,
+                          @Value("${shortifier.write-behind.segment-size:67108864}") long segmentSize,
+                          @Value("${shortifier.write-behind.queue-capacity:10000}") int queueCapacity,
+                          @Value("${shortifier.write-behind.max-pending:100000}") int maxPending,
+                          @Value("${shortifier.write-behind.batch-size:500}") int batchSize,
+                          @Value("${shortifier.write-behind.append-timeout:PT1S}") Duration appendTimeout,
+                          @Value("${shortifier.write-behind.drain-interval:PT0.1S}") Duration drainInterval,
+                          @Value("${shortifier.write-behind.shutdown-timeout:PT10S}") Duration shutdownTimeout) {
+        this.urlMappingBatchWriter = urlMappingBatchWriter;
+        this.idAllocator = idAllocator;
+        this.shardRouter = shardRouter;
+        this.urlCache = urlCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.appendTimeoutNanos = appendTimeout.toNanos();
+        this.drainInterval = drainInterval;
+        this.shutdownTimeout = shutdownTimeout;
+        this.appends = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.fsyncTimer = Timer.builder("shortifier.write-behind.fsync")
+                .description("Time spent writing and fsyncing one group of log records")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.groupSize = DistributionSummary.builder("shortifier.write-behind.group-size")
+                .description("Mappings made durable by one fsync")
+                .register(meterRegistry);
+        this.drainedMappings = Counter.builder("shortifier.write-behind.drained")
+                .description("Logged mappings stored in url_mapping")
+                .register(meterRegistry);
+        this.rejectedAppends = Counter.builder("shortifier.write-behind.rejected")
+                .description("Shortens that could not be logged and were stored synchronously instead")
+                .register(meterRegistry);
+        this.deadLetters = Counter.builder("shortifier.write-behind.dead-lettered")
+                .description("Logged mappings the database rejected, moved to the dead-letter log")
+                .register(meterRegistry);
+        Gauge.builder("shortifier.write-behind.pending", pending, Map::size)
+                .description("Logged mappings not yet stored in url_mapping")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends the mapping and waits until it is fsynced. From then on {@link #findPending} returns
+     * it until it is stored in {@code url_mapping}.
+     *
+     * @return {@code false} if the mapping could not be logged within {@code append-timeout}, or
+     * {@code max-pending} logged mappings are still waiting for the database; it is then
+     * guaranteed not to be stored by this log, and the caller must store it itself
+     */
+    public boolean append(UrlMapping mapping) {
+        if (!running || pending.size() >= maxPending) {
+            rejectedAppends.increment();
+            return false;
+        }
+        var append = new Append(mapping);
+        try {
+            if (!appends.offer(append, appendTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                rejectedAppends.increment();
+                return false;
+            }
+            try {
+                append.durable.get(appendTimeoutNanos, TimeUnit.NANOSECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                if (append.claimed.compareAndSet(false, true)) {
+                    rejectedAppends.increment();
+                    return false;
+                }
+                return awaitClaimed(append);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (append.claimed.compareAndSet(false, true)) {
+                rejectedAppends.increment();
+                return false;
+            }
+            return awaitClaimed(append);
+        } catch (ExecutionException | RuntimeException e) {
+            rejectedAppends.increment();
+            return false;
+        }
+    }
+
+    /**
+     * @return the logged mapping with this ID not yet stored in {@code url_mapping}, or {@code null}
+     */
+    public UrlMapping findPending(long id) {
+        return pending.isEmpty() ? null : pending.get(id);
+    }
+
+    private boolean awaitClaimed(Append append) {
+        try {
+            append.durable.join();
+            return true;
+        } catch (RuntimeException e) {
+            rejectedAppends.increment();
+            return false;
+        }
+    }
+
+    private void writeLoop() {
+        var batch = new ArrayList<Append>(batchSize);
+        while (running || !appends.isEmpty()) {
+            try {
+                var first = appends.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                appends.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Append> batch) {
+        var claimed = new ArrayList<UrlMapping>(batch.size());
+        var durable = new ArrayList<Append>(batch.size());
+        for (var append : batch) {
+            if (append.claimed.compareAndSet(false, true)) {
+                claimed.add(append.mapping);
+                durable.add(append);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        var start = System.nanoTime();
+        try {
+            var buffer = WriteAheadLogFile.encode(claimed);
+            if (segment == null || segment.size > 0 && segment.size + buffer.remaining() > segmentSize) {
+                roll();
+            }
+            var written = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            segment.size += written;
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not append {} mappings to the write-ahead log: {}", claimed.size(), e.getMessage());
+            closeChannel();
+            durable.forEach(append -> append.durable.completeExceptionally(e));
+            return;
+        }
+        fsyncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        groupSize.record(claimed.size());
+
+        for (var mapping : claimed) {
+            segment.outstanding.incrementAndGet();
+            pending.put(mapping.getId(), mapping);
+            undrained.add(new Entry(mapping, segment));
+        }
+        durable.forEach(append -> append.durable.complete(null));
+    }
+
+    private void roll() throws IOException {
+        closeChannel();
+        var path = directory.resolve(SEGMENT_PREFIX + String.format("%020d", nextSegment++) + SEGMENT_SUFFIX);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segment = new Segment(path);
+        syncDirectory();
+        log.debug("Writing new mappings to {}", path);
+    }
+
+    /**
+     * Fsyncs the log directory, so that a segment created or deleted before a crash stays created
+     * or deleted after it. Without this the entry of a new segment, and with it every acknowledged
+     * mapping in the segment, may be lost even though the file's own data was fsynced.
+     */
+    private void syncDirectory() throws IOException {
+        try (var directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Could not close write-ahead log segment {}: {}", segment.path, e.getMessage());
+            }
+            channel = null;
+        }
+        if (segment != null) {
+            close(segment);
+            segment = null;
+        }
+    }
+
+    private void drainLoop() {
+        var retry = new ArrayDeque<Entry>();
+        while ((running || !undrained.isEmpty() || !retry.isEmpty()) && !Thread.currentThread().isInterrupted()) {
+            var batch = new ArrayList<Entry>(batchSize);
+            while (batch.size() < batchSize && !retry.isEmpty()) {
+                batch.add(retry.poll());
+            }
+            Entry entry;
+            while (batch.size() < batchSize && (entry = undrained.poll()) != null) {
+                batch.add(entry);
+            }
+            if (batch.isEmpty()) {
+                if (!running) {
+                    return;
+                }
+                sleep(drainInterval);
+                continue;
+            }
+            if (!drain(batch, retry)) {
+                sleep(drainInterval.multipliedBy(10));
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if some shard could not be written; its entries are queued for retry
+     */
+    private boolean drain(List<Entry> batch, Queue<Entry> retry) {
+        var drained = true;
+        for (var shardEntries : shardRouter.partition(batch, entry -> entry.mapping().getId()).entrySet()) {
+            drained &= drainShard(shardEntries.getKey(), shardEntries.getValue(), retry);
+        }
+        return drained;
+    }
+
+    /**
+     * Stores one shard's entries in a single transaction. A batch rejected for its data rather than
+     * for the database's state is split in halves until the rejected mappings are isolated, and
+     * those are moved to the dead-letter log.
+     */
+    private boolean drainShard(int shard, List<Entry> entries, Queue<Entry> retry) {
+        var mappings = entries.stream().map(Entry::mapping).toList();
+        try {
+            ShardContext.run(shard, () -> transactionTemplate.executeWithoutResult(status ->
+                    urlMappingBatchWriter.insertIfAbsent(mappings)));
+        } catch (DataIntegrityViolationException e) {
+            if (entries.size() == 1) {
+                return deadLetter(entries.getFirst(), e, retry);
+            }
+            var half = entries.size() / 2;
+            var first = drainShard(shard, entries.subList(0, half), retry);
+            var second = drainShard(shard, entries.subList(half, entries.size()), retry);
+            return first && second;
+        } catch (RuntimeException e) {
+            log.warn("Could not store {} logged mappings, retrying: {}", entries.size(), e.getMessage());
+            retry.addAll(entries);
+            return false;
+        }
+        entries.forEach(this::settle);
+        drainedMappings.increment(entries.size());
+        return true;
+    }
+
+    /**
+     * Appends the rejected mapping to the dead-letter log for inspection and drops it from the
+     * write-ahead log and the caches. If the dead-letter log cannot be written, it is retried.
+     */
+    private boolean deadLetter(Entry entry, RuntimeException cause, Queue<Entry> retry) {
+        var mapping = entry.mapping();
+        var path = directory.resolve(DEAD_LETTER_FILE);
+        try {
+            var created = Files.notExists(path);
+            try (var deadLetterChannel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                var buffer = WriteAheadLogFile.encode(List.of(mapping));
+                while (buffer.hasRemaining()) {
+                    deadLetterChannel.write(buffer);
+                }
+                deadLetterChannel.force(false);
+            }
+            if (created) {
+                syncDirectory();
+            }
+        } catch (IOException e) {
+            log.error("Could not move logged mapping {} to {}, retrying: {}", mapping.getId(), path, e.getMessage());
+            retry.add(entry);
+            return false;
+        }
+        log.error("Database rejected logged mapping {} ({}), moved it to {}: {}", mapping.getId(),
+                mapping.getShortCode(), path, cause.getMessage());
+        deadLetters.increment();
+        urlCache.evict(mapping.getShortCode());
+        settle(entry);
+        return true;
+    }
+
+    /**
+     * Forgets an entry that no longer needs the log, deleting its segment once nothing else in it
+     * is outstanding.
+     */
+    private void settle(Entry entry) {
+        pending.remove(entry.mapping().getId(), entry.mapping());
+        if (entry.segment().outstanding.decrementAndGet() == 0 && entry.segment().closed) {
+            delete(entry.segment());
+        }
+    }
+
+    private void close(Segment closing) {
+        closing.closed = true;
+        if (closing.outstanding.get() == 0) {
+            delete(closing);
+        }
+    }
+
+    private void delete(Segment drained) {
+        try {
+            Files.deleteIfExists(drained.path);
+            syncDirectory();
+            log.debug("Deleted drained write-ahead log segment {}", drained.path);
+        } catch (IOException e) {
+            log.warn("Could not delete write-ahead log segment {}: {}", drained.path, e.getMessage());
+        }
+    }
+
+    private void replay() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .toList();
+        }
+
+        var maxId = 0L;
+        var replayed = 0;
+        for (var path : segments) {
+            var replaying = new Segment(path);
+            var intact = WriteAheadLogFile.read(path, mapping -> {
+                replaying.outstanding.incrementAndGet();
+                pending.put(mapping.getId(), mapping);
+                undrained.add(new Entry(mapping, replaying));
+            });
+            if (!intact) {
+                log.warn("Write-ahead log segment {} ends in a torn record, which was never acknowledged", path);
+            }
+            close(replaying);
+            var name = path.getFileName().toString();
+            nextSegment = Math.max(nextSegment, Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                    name.length() - SEGMENT_SUFFIX.length())) + 1);
+        }
+        for (var entry : undrained) {
+            maxId = Math.max(maxId, entry.mapping().getId());
+            replayed++;
+        }
+        if (replayed > 0) {
+            log.info("Replayed {} logged mappings from {}", replayed, directory);
+            idAllocator.advanceTo(maxId);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        try {
+            replay();
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Could not replay the write-ahead log in " + directory, e);
+        }
+        running = true;
+        writerThread = Thread.ofPlatform().daemon().name("write-behind-log").start(this::writeLoop);
+        drainerThread = Thread.ofPlatform().daemon().name("write-behind-drainer").start(this::drainLoop);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join();
+            drainerThread.join(shutdownTimeout.toMillis());
+            if (drainerThread.isAlive()) {
+                log.warn("{} logged mappings not stored before shutdown, they will be replayed on restart",
+                        pending.size());
+                drainerThread.interrupt();
+                drainerThread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeChannel();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * A mapping waiting for the log writer. Either the writer or a request thread that gave up
+     * waiting claims it first, so a mapping is never both logged and stored by its caller.
+     */
+    private static final class Append {
+        final UrlMapping mapping;
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        Append(UrlMapping mapping) {
+            this.mapping = mapping;
+        }
+    }
+
+    private record Entry(UrlMapping mapping, Segment segment) {
+    }
+
+    /**
+     * A log file and the number of its mappings not yet stored. Closed segments receive no more
+     * appends and are deleted when that number reaches zero.
+     */
+    private static final class Segment {
+        final Path path;
+        final AtomicInteger outstanding = new AtomicInteger();
+        volatile boolean closed;
+        long size;
+
+        Segment(Path path) {
+            this.path = path;
+        }
+    }
+}
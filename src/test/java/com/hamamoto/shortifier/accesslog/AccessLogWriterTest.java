@@ -0,0 +1,108 @@
+package com.hamamoto.shortifier.accesslog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogWriterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AccessLogWriter newWriter(int capacity, double sampleRate, AccessLogWriter.DropPolicy dropPolicy) {
+        return new AccessLogWriter(meterRegistry, true, capacity, sampleRate, 1.0, dropPolicy, 100);
+    }
+
+    private static AccessLogRecord record(String path) {
+        return new AccessLogRecord(0L, "GET", path, 302, 1_500_000L, "127.0.0.1");
+    }
+
+    @Test
+    void record_shouldWriteCompactJsonLine() {
+        // Given
+        var writer = newWriter(16, 1.0, AccessLogWriter.DropPolicy.DROP_NEWEST);
+        var request = new MockHttpServletRequest("GET", "/abc12345");
+        request.setRemoteAddr("10.0.0.1");
+        var lines = new ArrayList<String>();
+
+        // When
+        writer.record(request, 302, 2_000_000L);
+        writer.writeAvailable(lines::add);
+
+        // Then
+        assertThat(lines).hasSize(1);
+        assertThat(lines.getFirst())
+                .startsWith("{\"ts\":\"")
+                .contains("\"method\":\"GET\"", "\"path\":\"/abc12345\"", "\"status\":302",
+                        "\"micros\":2000", "\"remote\":\"10.0.0.1\"")
+                .endsWith("}");
+        assertThat(meterRegistry.counter("shortifier.access-log.written").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void record_withZeroSampleRate_shouldOnlyKeepErrors() {
+        // Given
+        var writer = newWriter(16, 0.0, AccessLogWriter.DropPolicy.DROP_NEWEST);
+        var lines = new ArrayList<String>();
+
+        // When
+        writer.record(new MockHttpServletRequest("GET", "/ok"), 302, 1000L);
+        writer.record(new MockHttpServletRequest("GET", "/missing"), 404, 1000L);
+        writer.writeAvailable(lines::add);
+
+        // Then
+        assertThat(lines).singleElement().asString().contains("\"path\":\"/missing\"");
+    }
+
+    @Test
+    void offer_whenFullWithDropNewest_shouldKeepQueuedRecordsAndCountDrops() {
+        // Given
+        var writer = newWriter(2, 1.0, AccessLogWriter.DropPolicy.DROP_NEWEST);
+        var lines = new ArrayList<String>();
+
+        // When
+        writer.offer(record("/1"));
+        writer.offer(record("/2"));
+        writer.offer(record("/3"));
+        writer.writeAvailable(lines::add);
+
+        // Then
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("\"path\":\"/1\"");
+        assertThat(lines.get(1)).contains("\"path\":\"/2\"");
+        assertThat(meterRegistry.counter("shortifier.access-log.dropped", "policy", "drop_newest").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void offer_whenFullWithDropOldest_shouldKeepNewestRecords() {
+        // Given
+        var writer = newWriter(2, 1.0, AccessLogWriter.DropPolicy.DROP_OLDEST);
+        var lines = new ArrayList<String>();
+
+        // When
+        writer.offer(record("/1"));
+        writer.offer(record("/2"));
+        writer.offer(record("/3"));
+        writer.writeAvailable(lines::add);
+
+        // Then
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("\"path\":\"/2\"");
+        assertThat(lines.get(1)).contains("\"path\":\"/3\"");
+        assertThat(meterRegistry.counter("shortifier.access-log.dropped", "policy", "drop_oldest").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void format_shouldEscapeQuotesAndControlCharacters() {
+        // When
+        var line = AccessLogWriter.format(record("/a\"b\\c\n"));
+
+        // Then
+        assertThat(line).contains("\"path\":\"/a\\\"b\\\\c\\u000a\"");
+    }
+}
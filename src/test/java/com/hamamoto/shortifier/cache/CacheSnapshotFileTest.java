@@ -0,0 +1,75 @@
+package com.hamamoto.shortifier.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CacheSnapshotFileTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void read_afterWrite_shouldRestoreEntriesAndSkipExpiredOnes() throws IOException {
+        // Given
+        var now = LocalDateTime.now();
+        var path = directory.resolve("cache.snapshot");
+        var entries = new LinkedHashMap<String, CachedUrl>();
+        entries.put("abc1234", new CachedUrl(1L, "https://example.com/é", null));
+        entries.put("def5678", new CachedUrl(2L, "https://example.com/later", now.plusDays(1).withNano(123_456_789)));
+        entries.put("ghi9012", new CachedUrl(3L, "https://example.com/gone", now.minusMinutes(1)));
+        CacheSnapshotFile.write(path, entries);
+
+        // When
+        var restored = new HashMap<String, CachedUrl>();
+        var loaded = CacheSnapshotFile.read(path, now, restored::put);
+
+        // Then
+        assertThat(loaded).isEqualTo(2);
+        assertThat(restored).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "abc1234", entries.get("abc1234"),
+                "def5678", entries.get("def5678")));
+    }
+
+    @Test
+    void read_withCorruptedPayload_shouldFailChecksum() throws IOException {
+        // Given
+        var path = directory.resolve("cache.snapshot");
+        CacheSnapshotFile.write(path, Map.of("abc1234", new CachedUrl(1L, "https://example.com/test", null)));
+        try (var channel = Files.newByteChannel(path, StandardOpenOption.WRITE)) {
+            channel.position(CacheSnapshotFile.HEADER_BYTES + 3);
+            channel.write(ByteBuffer.wrap(new byte[]{42}));
+        }
+
+        // When/Then
+        assertThatThrownBy(() -> CacheSnapshotFile.read(path, LocalDateTime.now(), (shortCode, url) -> {
+        }))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum");
+    }
+
+    @Test
+    void read_withForeignFile_shouldReject() throws IOException {
+        // Given
+        var path = directory.resolve("cache.snapshot");
+        Files.writeString(path, "definitely not a cache snapshot");
+
+        // When/Then
+        assertThatThrownBy(() -> CacheSnapshotFile.read(path, LocalDateTime.now(), (shortCode, url) -> {
+        }))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("magic");
+    }
+}
@@ -0,0 +1,94 @@
+package com.hamamoto.shortifier.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class LocalUrlCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LocalUrlCache cache = new LocalUrlCache(meterRegistry, 1_000, 0);
+
+    @Test
+    void put_shouldServeNonExpiringEntry() {
+        // Given
+        var url = new CachedUrl(1L, "https://example.com/test", null);
+
+        // When
+        cache.put("abc1234", url);
+
+        // Then
+        assertThat(cache.getIfPresent("abc1234")).isEqualTo(url);
+    }
+
+    @Test
+    void put_withExpiredEntry_shouldNotCacheIt() {
+        // When
+        cache.put("abc1234", new CachedUrl(1L, "https://example.com/test", LocalDateTime.now().minusSeconds(1)));
+
+        // Then
+        assertThat(cache.getIfPresent("abc1234")).isNull();
+    }
+
+    @Test
+    void getIfPresent_afterExpiresAt_shouldDropEntry() {
+        // Given
+        cache.put("abc1234", new CachedUrl(1L, "https://example.com/test", LocalDateTime.now().plusNanos(200_000_000)));
+
+        // When/Then
+        assertThat(cache.getIfPresent("abc1234")).isNotNull();
+        await().untilAsserted(() -> assertThat(cache.getIfPresent("abc1234")).isNull());
+    }
+
+    @Test
+    void getIfPresent_shouldRecordHitsAndMisses() {
+        // Given
+        cache.put("abc1234", new CachedUrl(1L, "https://example.com/test", null));
+
+        // When
+        cache.getIfPresent("abc1234");
+        cache.getIfPresent("missing");
+
+        // Then
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void pin_shouldKeepEntryBeyondMaximumSizeUntilUnpinned() {
+        // Given
+        var small = new LocalUrlCache(meterRegistry, 10, 0);
+        var url = new CachedUrl(1L, "https://example.com/viral", null);
+        small.pin("viral12", url);
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            small.put("code" + i, new CachedUrl(i + 2L, "https://example.com/" + i, null));
+        }
+
+        // Then
+        assertThat(small.getIfPresent("viral12")).isEqualTo(url);
+        small.retainPinned(Set.of());
+        assertThat(small.isPinned("viral12")).isFalse();
+    }
+
+    @Test
+    void hottest_shouldListPinnedEntriesFirstWithinLimit() {
+        // Given
+        cache.put("abc1234", new CachedUrl(1L, "https://example.com/1", null));
+        cache.put("def5678", new CachedUrl(2L, "https://example.com/2", null));
+        cache.pin("viral12", new CachedUrl(3L, "https://example.com/viral", null));
+
+        // When
+        var hottest = cache.hottest(2);
+
+        // Then
+        assertThat(hottest).hasSize(2);
+        assertThat(hottest.keySet().iterator().next()).isEqualTo("viral12");
+    }
+}
@@ -0,0 +1,58 @@
+package com.hamamoto.shortifier.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+class UrlCacheInvalidationIntegrationTest {
+
+    @Autowired
+    private LocalUrlCache localUrlCache;
+
+    @Autowired
+    private RedisUrlCache redisUrlCache;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Test
+    void publish_shouldReachListenerAndClearLocalEntries() {
+        // Given
+        localUrlCache.put("inv0001", new CachedUrl(1L, "https://example.com/one", null));
+        localUrlCache.pin("inv0002", new CachedUrl(2L, "https://example.com/two", null));
+        localUrlCache.put("inv0003", new CachedUrl(3L, "https://example.com/three", null));
+
+        // When
+        redisTemplate.convertAndSend(UrlCacheInvalidationListener.CHANNEL, "inv0001 inv0002");
+
+        // Then
+        await().untilAsserted(() -> {
+            assertThat(localUrlCache.getIfPresent("inv0001")).isNull();
+            assertThat(localUrlCache.getIfPresent("inv0002")).isNull();
+        });
+        assertThat(localUrlCache.isPinned("inv0002")).isFalse();
+        assertThat(localUrlCache.getIfPresent("inv0003")).isNotNull();
+    }
+
+    @Test
+    void evictAll_shouldClearLocalEntriesThroughTheChannel() {
+        // Given
+        var url = new CachedUrl(4L, "https://example.com/four", null);
+        localUrlCache.put("inv0004", url);
+        redisUrlCache.put("inv0004", url);
+
+        // When
+        redisUrlCache.evictAll(List.of("inv0004"));
+
+        // Then
+        await().untilAsserted(() -> assertThat(localUrlCache.getIfPresent("inv0004")).isNull());
+        assertThat(redisUrlCache.getIfPresent("inv0004")).isNull();
+    }
+}
@@ -0,0 +1,100 @@
+package com.hamamoto.shortifier.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UrlCacheTest {
+
+    @Mock
+    private LocalUrlCache localUrlCache;
+
+    @Mock
+    private RedisUrlCache redisUrlCache;
+
+    @InjectMocks
+    private UrlCache urlCache;
+
+    @Test
+    void getIfPresent_withLocalHit_shouldNotQueryRedis() {
+        // Given
+        var url = new CachedUrl(1L, "https://example.com/test", null);
+        when(localUrlCache.getIfPresent("abc1234")).thenReturn(url);
+
+        // When
+        var cached = urlCache.getIfPresent("abc1234");
+
+        // Then
+        assertThat(cached).isEqualTo(url);
+        verifyNoInteractions(redisUrlCache);
+    }
+
+    @Test
+    void getIfPresent_withSharedHit_shouldPromoteToLocal() {
+        // Given
+        var url = new CachedUrl(1L, "https://example.com/test", null);
+        when(redisUrlCache.getIfPresent("abc1234")).thenReturn(url);
+
+        // When
+        var cached = urlCache.getIfPresent("abc1234");
+
+        // Then
+        assertThat(cached).isEqualTo(url);
+        verify(localUrlCache).put("abc1234", url);
+    }
+
+    @Test
+    void getIfPresent_withExpiredSharedEntry_shouldReturnNull() {
+        // Given
+        var url = new CachedUrl(1L, "https://example.com/test", LocalDateTime.now().minusMinutes(1));
+        when(redisUrlCache.getIfPresent("abc1234")).thenReturn(url);
+
+        // When/Then
+        assertThat(urlCache.getIfPresent("abc1234")).isNull();
+        verify(localUrlCache, never()).put(any(), any());
+    }
+
+    @Test
+    void serialize_shouldRoundTripThroughRedisValue() {
+        // Given
+        var url = new CachedUrl(42L, "https://example.com/a|b", LocalDateTime.of(2030, 1, 2, 3, 4, 5));
+
+        // When
+        var restored = RedisUrlCache.deserialize(RedisUrlCache.serialize(url));
+
+        // Then
+        assertThat(restored).isEqualTo(url);
+        assertThat(RedisUrlCache.deserialize(RedisUrlCache.serialize(new CachedUrl(7L, "https://x.io", null))))
+                .isEqualTo(new CachedUrl(7L, "https://x.io", null));
+    }
+
+    @Test
+    void evict_shouldDropBothLevels() {
+        // When
+        urlCache.evict("abc1234");
+
+        // Then
+        verify(localUrlCache).invalidate("abc1234");
+        verify(redisUrlCache).evict("abc1234");
+    }
+
+    @Test
+    void evictAll_shouldDropEveryCodeFromBothLevels() {
+        // When
+        urlCache.evictAll(List.of("abc1234", "def5678"));
+
+        // Then
+        verify(localUrlCache).invalidate("abc1234");
+        verify(localUrlCache).invalidate("def5678");
+        verify(redisUrlCache).evictAll(List.of("abc1234", "def5678"));
+    }
+}
@@ -0,0 +1,139 @@
+package com.hamamoto.shortifier.component;
+
+import org.hashids.Hashids;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShortCodeGeneratorTest {
+    private static final String SALT = "test-salt";
+
+    private final ShortCodeGenerator shortCodeGenerator = new ShortCodeGenerator(SALT, true);
+
+    @Test
+    void generate_shouldRoundTripFixedLengthCodes() {
+        // Given
+        var random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < 10_000; i++) {
+            var id = i < 5_000 ? i + 1L : random.nextLong(1, FeistelCodec.MAX_ID);
+
+            // When
+            var code = shortCodeGenerator.generate(id);
+
+            // Then
+            assertThat(code).hasSize(FeistelCodec.CODE_LENGTH).matches("[0-9A-Za-z]+");
+            assertThat(shortCodeGenerator.decode(code)).isEqualTo(id);
+        }
+    }
+
+    @Test
+    void generate_sequentialIds_shouldProduceUnrelatedCodes() {
+        // When
+        var first = shortCodeGenerator.generate(1000);
+        var second = shortCodeGenerator.generate(1001);
+
+        // Then
+        assertThat(first).isNotEqualTo(second);
+        assertThat(first.substring(0, 4)).isNotEqualTo(second.substring(0, 4));
+    }
+
+    @Test
+    void generate_withDifferentSalt_shouldProduceDifferentCodes() {
+        // Given
+        var other = new ShortCodeGenerator("other-salt", false);
+
+        // When/Then
+        assertThat(other.generate(42)).isNotEqualTo(shortCodeGenerator.generate(42));
+    }
+
+    @Test
+    void generate_withIdOutOfRange_shouldThrow() {
+        assertThatThrownBy(() -> shortCodeGenerator.generate(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> shortCodeGenerator.generate(FeistelCodec.MAX_ID)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void decode_randomCodes_shouldMostlyBeRejected() {
+        // Given
+        var random = ThreadLocalRandom.current();
+        var alphabet = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+        var accepted = 0;
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            var code = new StringBuilder();
+            for (int c = 0; c < FeistelCodec.CODE_LENGTH; c++) {
+                code.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            if (shortCodeGenerator.decode(code.toString()) > 0) {
+                accepted++;
+            }
+        }
+
+        // Then
+        assertThat(accepted).isLessThan(200);
+    }
+
+    @Test
+    void decode_withLegacyHashidsCode_shouldDecodeInCompatibilityMode() {
+        // Given
+        var legacyCode = new Hashids(SALT, 7).encode(12345L);
+
+        // When/Then
+        assertThat(shortCodeGenerator.decode(legacyCode)).isEqualTo(12345L);
+        assertThat(new ShortCodeGenerator(SALT, false).decode(legacyCode)).isEqualTo(-1L);
+    }
+
+    @Test
+    void decode_withEightCharacterLegacyCode_shouldFallBackToHashids() {
+        // Given
+        var legacyHashids = new Hashids(SALT, 7);
+        var codec = new FeistelCodec(SALT);
+        var checked = 0;
+
+        for (long id = 20_000_000_000L; checked < 50 && id < 20_000_000_000L + 1_000 * 7_919L; id += 7_919) {
+            var legacyCode = legacyHashids.encode(id);
+            if (legacyCode.length() != FeistelCodec.CODE_LENGTH || codec.decode(legacyCode) > 0) {
+                continue;
+            }
+
+            // When/Then
+            assertThat(shortCodeGenerator.decode(legacyCode)).isEqualTo(id);
+            checked++;
+        }
+        assertThat(checked).isPositive();
+    }
+
+    @Test
+    void decodeLegacy_withLegacyCodeTheCodecAlsoAccepts_shouldReturnTheLegacyId() {
+        // Given
+        var legacyHashids = new Hashids(SALT, 7);
+        var codec = new FeistelCodec(SALT);
+        var checked = 0;
+
+        for (long id = 20_000_000_000L; checked < 5 && id < 20_000_000_000L + 100_000 * 7_919L; id += 7_919) {
+            var legacyCode = legacyHashids.encode(id);
+            if (legacyCode.length() != FeistelCodec.CODE_LENGTH || codec.decode(legacyCode) <= 0) {
+                continue;
+            }
+
+            // When/Then
+            assertThat(shortCodeGenerator.decode(legacyCode)).isEqualTo(codec.decode(legacyCode));
+            assertThat(shortCodeGenerator.decodeLegacy(legacyCode)).isEqualTo(id);
+            assertThat(new ShortCodeGenerator(SALT, false).decodeLegacy(legacyCode)).isEqualTo(-1L);
+            checked++;
+        }
+        assertThat(checked).isPositive();
+    }
+
+    @Test
+    void decode_withInvalidCharacters_shouldReturnMinusOne() {
+        assertThat(shortCodeGenerator.decode("abc-efgh")).isEqualTo(-1L);
+        assertThat(shortCodeGenerator.decode("")).isEqualTo(-1L);
+        assertThat(shortCodeGenerator.decode("not-a-code")).isEqualTo(-1L);
+    }
+}
@@ -0,0 +1,164 @@
+package com.hamamoto.shortifier.config.web;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hamamoto.shortifier.analytics.ClickEventCollector;
+import com.hamamoto.shortifier.controller.UrlShortenerController;
+import com.hamamoto.shortifier.exception.GlobalExceptionHandler;
+import com.hamamoto.shortifier.exception.ShortUrlExpiredException;
+import com.hamamoto.shortifier.exception.ShortUrlNotFoundException;
+import com.hamamoto.shortifier.service.UrlShortenerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedirectFilterTest {
+
+    @Mock
+    private UrlShortenerService urlShortenerService;
+
+    @Mock
+    private ClickEventCollector clickEventCollector;
+
+    private MockMvc mockMvc;
+    private MockMvc mvcOnly;
+
+    @BeforeEach
+    void setUp() {
+        var objectMapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        var exceptionHandler = new GlobalExceptionHandler();
+        mvcOnly = MockMvcBuilders
+                .standaloneSetup(new UrlShortenerController(urlShortenerService, null, clickEventCollector))
+                .setControllerAdvice(exceptionHandler)
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new UrlShortenerController(urlShortenerService, null, clickEventCollector))
+                .setControllerAdvice(exceptionHandler)
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+                .addFilters(new RedirectFilter(urlShortenerService, clickEventCollector, exceptionHandler, objectMapper))
+                .build();
+    }
+
+    @Test
+    void doFilter_withKnownShortCode_shouldReturn302AndRecordClick() throws Exception {
+        // Given
+        when(urlShortenerService.getOriginalUrl("aBc12")).thenReturn("https://example.com/original");
+
+        // When/Then
+        mockMvc.perform(get("/aBc12"))
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrl("https://example.com/original"));
+        verify(urlShortenerService, times(1)).getOriginalUrl("aBc12");
+        verify(clickEventCollector).record("aBc12");
+    }
+
+    @Test
+    void doFilter_withNonExistentShortCode_shouldReturn404() throws Exception {
+        // Given
+        when(urlShortenerService.getOriginalUrl("xxxxx")).thenThrow(new ShortUrlNotFoundException("xxxxx"));
+
+        // When/Then
+        mockMvc.perform(get("/xxxxx"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.message").value("Short URL not found: xxxxx"))
+                .andExpect(jsonPath("$.timestamp").exists());
+        verifyNoInteractions(clickEventCollector);
+    }
+
+    @Test
+    void doFilter_withNonExistentShortCode_shouldWriteTheSameBodyAsMvc() throws Exception {
+        // Given
+        when(urlShortenerService.getOriginalUrl("xxxxx")).thenThrow(new ShortUrlNotFoundException("xxxxx"));
+
+        // When
+        var filtered = mockMvc.perform(get("/xxxxx")).andReturn().getResponse();
+        var mvc = mvcOnly.perform(get("/xxxxx")).andReturn().getResponse();
+
+        // Then
+        var timestamp = "\"timestamp\":\"([^\"]+)\"";
+        var filteredBody = filtered.getContentAsString();
+        var matcher = Pattern.compile(timestamp).matcher(filteredBody);
+        assertThat(matcher.find()).isTrue();
+        assertThat(LocalDateTime.parse(matcher.group(1))).isCloseTo(LocalDateTime.now(), within(1, ChronoUnit.MINUTES));
+        assertThat(filteredBody.replaceAll(timestamp, "\"timestamp\":\"-\""))
+                .isEqualTo(mvc.getContentAsString().replaceAll(timestamp, "\"timestamp\":\"-\""));
+        assertThat(filtered.getContentLength()).isEqualTo(filtered.getContentAsByteArray().length);
+        assertThat(filtered.getContentType()).isEqualTo(mvc.getContentType());
+    }
+
+    @Test
+    void doFilter_withExpiredShortCode_shouldReturn410() throws Exception {
+        // Given
+        when(urlShortenerService.getOriginalUrl("expd1")).thenThrow(new ShortUrlExpiredException("expd1"));
+
+        // When/Then
+        mockMvc.perform(get("/expd1"))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.status").value(410))
+                .andExpect(jsonPath("$.message").value(containsString("Short URL has expired")))
+                .andExpect(jsonPath("$.timestamp").exists());
+        verifyNoInteractions(clickEventCollector);
+    }
+
+    @Test
+    void doFilter_withOtherPath_shouldContinueDownTheChain() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/unknown"))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(urlShortenerService);
+    }
+
+    @Test
+    void shortCodeOf_withAlphanumericSegment_shouldReturnShortCode() {
+        // Given
+        var request = new MockHttpServletRequest("GET", "/aBc12");
+
+        // When/Then
+        assertThat(RedirectFilter.shortCodeOf(request)).isEqualTo("aBc12");
+    }
+
+    @Test
+    void shortCodeOf_withContextPath_shouldStripIt() {
+        // Given
+        var request = new MockHttpServletRequest("GET", "/app/aBc12");
+        request.setContextPath("/app");
+
+        // When/Then
+        assertThat(RedirectFilter.shortCodeOf(request)).isEqualTo("aBc12");
+    }
+
+    @Test
+    void shortCodeOf_withOtherPaths_shouldReturnNull() {
+        // When/Then
+        assertThat(RedirectFilter.shortCodeOf(new MockHttpServletRequest("POST", "/aBc12"))).isNull();
+        assertThat(RedirectFilter.shortCodeOf(new MockHttpServletRequest("GET", "/"))).isNull();
+        assertThat(RedirectFilter.shortCodeOf(new MockHttpServletRequest("GET", "/api/shorten"))).isNull();
+        assertThat(RedirectFilter.shortCodeOf(new MockHttpServletRequest("GET", "/actuator"))).isNull();
+        assertThat(RedirectFilter.shortCodeOf(new MockHttpServletRequest("GET", "/favicon.ico"))).isNull();
+        assertThat(RedirectFilter.shortCodeOf(new MockHttpServletRequest("GET", "/abcdefghijk"))).isNull();
+    }
+}
@@ -0,0 +1,135 @@
+package com.hamamoto.shortifier.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import com.hamamoto.shortifier.dto.ShortenRequest;
+import com.hamamoto.shortifier.service.RedisCounterService;
+import com.hamamoto.shortifier.trending.HotKeyTracker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class AdminControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShortCodeGenerator shortCodeGenerator;
+
+    @Autowired
+    private RedisCounterService redisCounterService;
+
+    @Autowired
+    private HotKeyTracker hotKeyTracker;
+
+    @Test
+    void exportMappings_shouldWriteOneJsonLinePerMapping() throws Exception {
+        // Given
+        var createResponse = mockMvc.perform(post("/api/shorten")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ShortenRequest("https://example.com/export", null))))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        var shortCode = objectMapper.readTree(createResponse).get("shortCode").asText();
+
+        // When
+        var export = mockMvc.perform(get("/api/admin/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(AdminController.NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        // Then
+        var lines = export.lines().map(line -> {
+            try {
+                return objectMapper.readTree(line);
+            } catch (Exception e) {
+                throw new AssertionError("Invalid JSON line: " + line, e);
+            }
+        }).toList();
+        assertThat(lines).anySatisfy(line -> {
+            assertThat(line.get("shortCode").asText()).isEqualTo(shortCode);
+            assertThat(line.get("originalUrl").asText()).isEqualTo("https://example.com/export");
+        });
+    }
+
+    @Test
+    void importMappings_shouldInsertNewSkipDuplicatesAndRejectInvalid() throws Exception {
+        // Given
+        var id = redisCounterService.reserveRange(1) + 1_000_000;
+        var shortCode = shortCodeGenerator.generate(id);
+        var body = String.join("\n",
+                "{\"id\":" + id + ",\"shortCode\":\"" + shortCode + "\",\"originalUrl\":\"https://example.com/imported\"}",
+                "{\"shortCode\":\"" + shortCode + "\",\"originalUrl\":\"https://example.com/imported\"}",
+                "{\"id\":" + (id + 1) + ",\"shortCode\":\"" + shortCode + "\",\"originalUrl\":\"https://example.com/mismatch\"}",
+                "{\"id\":" + (id + 2) + ",\"originalUrl\":\"ftp://example.com/unsupported\"}");
+
+        // When/Then
+        mockMvc.perform(post("/api/admin/import")
+                        .contentType(AdminController.NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.read").value(4))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.skipped").value(1))
+                .andExpect(jsonPath("$.invalid").value(2));
+
+        mockMvc.perform(get("/" + shortCode))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "https://example.com/imported"));
+        assertThat(redisCounterService.getNextId()).isGreaterThan(id);
+    }
+
+    @Test
+    void importMappings_withMalformedLine_shouldReturnBadRequest() throws Exception {
+        // When/Then
+        mockMvc.perform(post("/api/admin/import")
+                        .contentType(AdminController.NDJSON)
+                        .content("{\"id\": 1, \"originalUrl\": "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+    }
+
+    @Test
+    void trending_shouldListMostRequestedShortCodes() throws Exception {
+        // Given
+        var createResponse = mockMvc.perform(post("/api/shorten")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ShortenRequest("https://example.com/viral", null))))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        var shortCode = objectMapper.readTree(createResponse).get("shortCode").asText();
+        for (int i = 0; i < 50; i++) {
+            mockMvc.perform(get("/" + shortCode)).andExpect(status().isFound());
+        }
+        hotKeyTracker.rotate();
+
+        // When/Then
+        mockMvc.perform(get("/api/admin/trending"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].shortCode").value(shortCode))
+                .andExpect(jsonPath("$[0].requests").value(50))
+                .andExpect(jsonPath("$[0].share").value(1.0));
+    }
+}
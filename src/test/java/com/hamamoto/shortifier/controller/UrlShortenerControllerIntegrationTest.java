@@ -10,6 +10,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hamamoto.shortifier.dto.ShortenRequest;
 import com.hamamoto.shortifier.repository.UrlMappingRepository;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -208,6 +210,28 @@ class UrlShortenerControllerIntegrationTest {
                 .andExpect(jsonPath("$.timestamp").exists());
     }
 
+    @Test
+    void redirect_withOrigin_shouldCarryCorsHeaders() throws Exception {
+        // Given
+        var request = new ShortenRequest("https://example.com/cors", null);
+        var createResponse = mockMvc.perform(post("/api/shorten")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        var shortCode = objectMapper.readTree(createResponse).get("shortCode").asText();
+
+        // When/Then
+        mockMvc.perform(get("/" + shortCode).header("Origin", "https://other.example"))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Access-Control-Allow-Origin", "*"));
+        mockMvc.perform(get("/xxxxx").header("Origin", "https://other.example"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string("Access-Control-Allow-Origin", "*"));
+    }
+
     @Test
     void redirect_withFutureExpiresAt_shouldRedirect() throws Exception {
         // Given - create a short URL with future expiration
@@ -228,4 +252,63 @@ class UrlShortenerControllerIntegrationTest {
                 .andExpect(status().isFound())
                 .andExpect(redirectedUrl("https://example.com/future"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shortenUrls_shouldCreateValidItemsAndReportInvalidOnes() throws Exception {
+        // Given
+        var requests = List.of(
+                new ShortenRequest("https://example.com/batch-1", null),
+                new ShortenRequest("not-a-valid-url", null),
+                new ShortenRequest("https://example.com/batch-2", LocalDateTime.now().plusDays(1)));
+
+        // When
+        var response = mockMvc.perform(post("/api/shorten/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results", hasSize(3)))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[0].result.originalUrl").value("https://example.com/batch-1"))
+                .andExpect(jsonPath("$.results[1].index").value(1))
+                .andExpect(jsonPath("$.results[1].status").value("INVALID"))
+                .andExpect(jsonPath("$.results[1].errors.url").value("URL must start with http:// or https://"))
+                .andExpect(jsonPath("$.results[2].status").value("CREATED"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        // Then
+        assertThat(urlMappingRepository.count()).isEqualTo(2);
+        var shortCode = objectMapper.readTree(response).at("/results/2/result/shortCode").asText();
+        mockMvc.perform(get("/" + shortCode))
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrl("https://example.com/batch-2"));
+    }
+
+    @Test
+    void shortenUrls_withEmptyBatch_shouldReturn400() throws Exception {
+        // When/Then
+        mockMvc.perform(post("/api/shorten/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Collections.emptyList())))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.message").value("Batch must contain at least one URL"));
+    }
+
+    @Test
+    void shortenUrls_withOversizedBatch_shouldReturn400() throws Exception {
+        // Given
+        var requests = Collections.nCopies(10_001, new ShortenRequest("https://example.com/too-many", null));
+
+        // When/Then
+        mockMvc.perform(post("/api/shorten/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Batch must contain at most 10000 URLs, got 10001"));
+        assertThat(urlMappingRepository.count()).isZero();
+    }
+}
@@ -0,0 +1,103 @@
+package com.hamamoto.shortifier.controller;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hamamoto.shortifier.analytics.ClickEventCollector;
+import com.hamamoto.shortifier.dto.ShortenRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class UrlStatsControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ClickEventCollector clickEventCollector;
+
+    private String createShortCode(String url) throws Exception {
+        var createResponse = mockMvc.perform(post("/api/shorten")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ShortenRequest(url, null))))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(createResponse).get("shortCode").asText();
+    }
+
+    @Test
+    void getStats_afterRedirects_shouldReturnRolledUpClicks() throws Exception {
+        // Given
+        var shortCode = createShortCode("https://example.com/stats");
+        mockMvc.perform(get("/" + shortCode)).andExpect(status().isFound());
+        mockMvc.perform(get("/" + shortCode)).andExpect(status().isFound());
+        clickEventCollector.flush();
+
+        // When/Then
+        mockMvc.perform(get("/api/urls/" + shortCode + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.shortCode").value(shortCode))
+                .andExpect(jsonPath("$.granularity").value("HOUR"))
+                .andExpect(jsonPath("$.totalClicks").value(2))
+                .andExpect(jsonPath("$.buckets", hasSize(1)))
+                .andExpect(jsonPath("$.buckets[0].clicks").value(2));
+    }
+
+    @Test
+    void getStats_withMinuteGranularity_shouldReturnMinuteBuckets() throws Exception {
+        // Given
+        var shortCode = createShortCode("https://example.com/stats-minute");
+        mockMvc.perform(get("/" + shortCode)).andExpect(status().isFound());
+        clickEventCollector.flush();
+
+        // When/Then
+        mockMvc.perform(get("/api/urls/" + shortCode + "/stats").param("granularity", "MINUTE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity").value("MINUTE"))
+                .andExpect(jsonPath("$.buckets[0].clicks").value(1));
+    }
+
+    @Test
+    void getStats_withoutRedirects_shouldReturnZeroClicks() throws Exception {
+        // Given
+        var shortCode = createShortCode("https://example.com/no-clicks");
+
+        // When/Then
+        mockMvc.perform(get("/api/urls/" + shortCode + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalClicks").value(0))
+                .andExpect(jsonPath("$.buckets", empty()));
+    }
+
+    @Test
+    void getStats_withUnknownShortCode_shouldReturn404() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/urls/xxxxx/stats"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value(containsString("Short URL not found")));
+    }
+
+    @Test
+    void getStats_withInvalidGranularity_shouldReturn400() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/urls/xxxxx/stats").param("granularity", "fortnight"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("granularity")));
+    }
+}
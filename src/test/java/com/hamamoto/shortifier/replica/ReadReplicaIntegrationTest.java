@@ -0,0 +1,125 @@
+package com.hamamoto.shortifier.replica;
+
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import com.hamamoto.shortifier.service.IssuedIdFilter;
+import com.hamamoto.shortifier.service.RedisCounterService;
+import com.hamamoto.shortifier.service.UrlShortenerService;
+import com.hamamoto.shortifier.sharding.ShardedSpringLiquibase;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-test-primary;DB_CLOSE_DELAY=-1",
+        "shortifier.read-replicas.enabled=true",
+        "shortifier.read-replicas.replicas[0].url=jdbc:h2:mem:replica-test-replica;DB_CLOSE_DELAY=-1",
+        "shortifier.read-replicas.replicas[0].username=sa"
+})
+class ReadReplicaIntegrationTest {
+    private static final String INSERT_SQL = """
+            INSERT INTO url_mapping (id, short_code, original_url, created_at, access_count)
+            VALUES (?, ?, ?, CURRENT_TIMESTAMP, 0)
+            """;
+
+    /**
+     * H2 does not replicate, so both databases are migrated and the replica is written directly.
+     */
+    @TestConfiguration
+    static class ReplicaSchemaConfiguration {
+
+        @Bean
+        public SpringLiquibase liquibase(HikariDataSource primaryDataSource, ReplicaPools replicaPools) {
+            var liquibase = new ShardedSpringLiquibase(List.of(primaryDataSource, replicaPools.all().getFirst()));
+            liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+            liquibase.setChangeLogParameters(Map.of("shortifierSalt", "test-salt-for-unit-tests"));
+            return liquibase;
+        }
+    }
+
+    @Autowired
+    private UrlShortenerService urlShortenerService;
+
+    @Autowired
+    private ShortCodeGenerator shortCodeGenerator;
+
+    @Autowired
+    private RedisCounterService redisCounterService;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private ReplicaPools replicaPools;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private IssuedIdFilter issuedIdFilter;
+
+    private double primaryLookups() {
+        return meterRegistry.get("shortifier.stage").tag("stage", "primary-lookup").timer().count();
+    }
+
+    @Test
+    void getOriginalUrl_shouldReadFromReplica() {
+        // Given
+        var id = redisCounterService.reserveRange(1) + 7_000_000;
+        var shortCode = shortCodeGenerator.generate(id);
+        new JdbcTemplate(primaryDataSource).update(INSERT_SQL, id, shortCode, "https://example.com/primary");
+        new JdbcTemplate(replicaPools.all().getFirst()).update(INSERT_SQL, id, shortCode, "https://example.com/replica");
+
+        // When
+        var originalUrl = urlShortenerService.getOriginalUrl(shortCode);
+
+        // Then
+        assertThat(originalUrl).isEqualTo("https://example.com/replica");
+    }
+
+    @Test
+    void getOriginalUrl_withMappingNotYetOnReplica_shouldFallBackToPrimary() {
+        // Given
+        var id = redisCounterService.reserveRange(1) + 7_000_000;
+        var shortCode = shortCodeGenerator.generate(id);
+        new JdbcTemplate(primaryDataSource).update(INSERT_SQL, id, shortCode, "https://example.com/lagging");
+        var before = primaryLookups();
+
+        // When
+        var originalUrl = urlShortenerService.getOriginalUrl(shortCode);
+
+        // Then
+        assertThat(originalUrl).isEqualTo("https://example.com/lagging");
+        assertThat(primaryLookups()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void issuedIdFilter_withMappingNotYetOnReplica_shouldLoadItFromPrimary() {
+        // Given
+        var id = redisCounterService.reserveRange(1) + 7_000_000;
+        new JdbcTemplate(primaryDataSource).update(INSERT_SQL, id, shortCodeGenerator.generate(id), "https://example.com/lagging");
+        new JdbcTemplate(replicaPools.all().getFirst())
+                .update(INSERT_SQL, id + 1, shortCodeGenerator.generate(id + 1), "https://example.com/replica-only");
+        var previous = ReflectionTestUtils.getField(issuedIdFilter, "snapshot");
+
+        // When
+        ReflectionTestUtils.setField(issuedIdFilter, "snapshot",
+                ReflectionTestUtils.invokeMethod(issuedIdFilter, "load", id + 1));
+
+        // Then
+        assertThat(issuedIdFilter.isDefinitelyAbsent(id)).isFalse();
+        assertThat(issuedIdFilter.isDefinitelyAbsent(id + 1)).isTrue();
+        ReflectionTestUtils.setField(issuedIdFilter, "snapshot", previous);
+    }
+}
@@ -0,0 +1,180 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.entity.UrlMapping;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import com.hamamoto.shortifier.writebehind.WriteBehindLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccessCountServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private WriteBehindLog writeBehindLog;
+
+    private AccessCountService accessCountService;
+
+    @BeforeEach
+    void setUp() {
+        accessCountService = new AccessCountService(jdbcTemplate, ShardRouter.single(), writeBehindLog,
+                new SimpleMeterRegistry(), 500);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<long[]> captureFlushedDeltas() {
+        var captor = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        return new ArrayList<long[]>(captor.getValue());
+    }
+
+    @Test
+    void flush_shouldWriteAccumulatedDeltasInOneBatch() {
+        // Given
+        accessCountService.recordAccess(2L);
+        accessCountService.recordAccess(1L);
+        accessCountService.recordAccess(2L);
+
+        // When
+        accessCountService.flush();
+
+        // Then
+        var deltas = captureFlushedDeltas();
+        assertThat(deltas).hasSize(2);
+        assertThat(deltas.get(0)).containsExactly(1L, 1L);
+        assertThat(deltas.get(1)).containsExactly(2L, 2L);
+    }
+
+    @Test
+    void flush_withNoHits_shouldNotTouchDatabase() {
+        // When
+        accessCountService.flush();
+
+        // Then
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void flush_whenDatabaseFails_shouldRetainDeltasForNextRun() {
+        // Given
+        accessCountService.recordAccess(1L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(new int[0][]);
+
+        // When
+        accessCountService.flush();
+        accessCountService.flush();
+
+        // Then
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), argThat((Collection<long[]> deltas) ->
+                deltas.size() == 1 && deltas.iterator().next()[1] == 1L), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void flush_withMappingStillInWriteBehindLog_shouldKeepDeltaUntilRowExists() {
+        // Given
+        accessCountService.recordAccess(5L);
+        accessCountService.recordAccess(5L);
+        when(writeBehindLog.findPending(5L)).thenReturn(UrlMapping.builder().id(5L).build(), (UrlMapping) null);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{0}}, new int[][]{{1}});
+
+        // When
+        accessCountService.flush();
+        accessCountService.flush();
+        accessCountService.flush();
+
+        // Then
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), argThat((Collection<long[]> deltas) ->
+                deltas.size() == 1 && deltas.iterator().next()[1] == 2L), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void flush_withMappingMissingAndNotInWriteBehindLog_shouldDropDelta() {
+        // Given
+        accessCountService.recordAccess(6L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{0}});
+
+        // When
+        accessCountService.flush();
+        accessCountService.flush();
+
+        // Then
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void flush_withShards_shouldWriteOneBatchPerShard() {
+        // Given
+        var shardedService = new AccessCountService(jdbcTemplate, new ShardRouter(2, ShardRouter.Strategy.RANGE, 10),
+                writeBehindLog, new SimpleMeterRegistry(), 500);
+        shardedService.recordAccess(3L);
+        shardedService.recordAccess(15L);
+        shardedService.recordAccess(4L);
+
+        // When
+        shardedService.flush();
+
+        // Then
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((Collection<long[]> deltas) -> deltas.size() == 2),
+                anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((Collection<long[]> deltas) ->
+                deltas.size() == 1 && deltas.iterator().next()[0] == 15L), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_concurrentWithHits_shouldCountEveryHitExactlyOnce() throws InterruptedException {
+        // Given
+        var flushed = new AtomicLong();
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    ((Collection<long[]>) invocation.getArgument(1)).forEach(delta -> flushed.addAndGet(delta[1]));
+                    return new int[0][];
+                });
+        var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    accessCountService.recordAccess(i % 8);
+                }
+            }));
+        }
+
+        // When
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            accessCountService.flush();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        accessCountService.flush();
+
+        // Then
+        assertThat(flushed.get()).isEqualTo(200_000L);
+    }
+}
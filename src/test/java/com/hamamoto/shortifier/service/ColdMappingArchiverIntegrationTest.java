@@ -0,0 +1,98 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import com.hamamoto.shortifier.repository.ArchivedMappingRepository;
+import com.hamamoto.shortifier.repository.UrlMappingRepository;
+import com.hamamoto.shortifier.util.UrlHash;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class ColdMappingArchiverIntegrationTest {
+
+    @Autowired
+    private ColdMappingArchiver coldMappingArchiver;
+
+    @Autowired
+    private UrlShortenerService urlShortenerService;
+
+    @Autowired
+    private UrlMappingRepository urlMappingRepository;
+
+    @Autowired
+    private ArchivedMappingRepository archivedMappingRepository;
+
+    @Autowired
+    private RedisCounterService redisCounterService;
+
+    @Autowired
+    private ShortCodeGenerator shortCodeGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long insertMapping(LocalDateTime createdAt, long accessCount) {
+        var id = redisCounterService.getNextId();
+        var originalUrl = "https://example.com/archive/" + id;
+        jdbcTemplate.update("""
+                        INSERT INTO url_mapping (id, short_code, original_url, original_url_hash, created_at, access_count)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        """,
+                id, shortCodeGenerator.generate(id), originalUrl, UrlHash.of(originalUrl),
+                Timestamp.valueOf(createdAt), accessCount);
+        return id;
+    }
+
+    @Test
+    void archive_shouldMoveOnlyOldMappingsThatWereNeverAccessed() {
+        // Given
+        var cold = insertMapping(LocalDateTime.now().minusYears(1), 0);
+        var oldButUsed = insertMapping(LocalDateTime.now().minusYears(1), 12);
+        var recent = insertMapping(LocalDateTime.now(), 0);
+
+        // When
+        var archived = coldMappingArchiver.archive();
+
+        // Then
+        assertThat(archived).isGreaterThanOrEqualTo(1);
+        assertThat(urlMappingRepository.existsById(cold)).isFalse();
+        assertThat(archivedMappingRepository.existsById(cold)).isTrue();
+        assertThat(urlMappingRepository.existsById(oldButUsed)).isTrue();
+        assertThat(urlMappingRepository.existsById(recent)).isTrue();
+    }
+
+    @Test
+    void getOriginalUrl_withArchivedMapping_shouldStillRedirect() {
+        // Given
+        var cold = insertMapping(LocalDateTime.now().minusYears(1), 0);
+        coldMappingArchiver.archive();
+
+        // When
+        var originalUrl = urlShortenerService.getOriginalUrl(shortCodeGenerator.generate(cold));
+
+        // Then
+        assertThat(originalUrl).isEqualTo("https://example.com/archive/" + cold);
+    }
+
+    @Test
+    void archive_shouldKeepTheUrlHash() {
+        // Given
+        var cold = insertMapping(LocalDateTime.now().minusYears(1), 0);
+
+        // When
+        coldMappingArchiver.archive();
+
+        // Then
+        assertThat(archivedMappingRepository.findById(cold)).hasValueSatisfying(mapping ->
+                assertThat(mapping.getOriginalUrlHash()).isEqualTo(UrlHash.of("https://example.com/archive/" + cold)));
+    }
+}
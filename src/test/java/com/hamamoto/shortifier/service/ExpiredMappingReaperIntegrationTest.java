@@ -0,0 +1,121 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.entity.UrlMapping;
+import com.hamamoto.shortifier.repository.UrlMappingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class ExpiredMappingReaperIntegrationTest {
+
+    @Autowired
+    private ExpiredMappingReaper expiredMappingReaper;
+
+    @Autowired
+    private UrlMappingRepository urlMappingRepository;
+
+    @Autowired
+    private RedisCounterService redisCounterService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long saveMapping(LocalDateTime expiresAt) {
+        var id = redisCounterService.getNextId();
+        urlMappingRepository.saveAndFlush(UrlMapping.builder()
+                .id(id)
+                .shortCode("r" + id)
+                .originalUrl("https://example.com/reaper/" + id)
+                .expiresAt(expiresAt)
+                .build());
+        return id;
+    }
+
+    private long saveArchivedMapping(LocalDateTime expiresAt) {
+        var id = redisCounterService.getNextId();
+        jdbcTemplate.update("""
+                INSERT INTO url_mapping_archive (id, short_code, original_url, created_at, expires_at, access_count, archived_at)
+                VALUES (?, ?, ?, ?, ?, 0, ?)
+                """, id, "a" + id, "https://example.com/archived/" + id, Timestamp.valueOf(LocalDateTime.now().minusDays(200)),
+                Timestamp.valueOf(expiresAt), Timestamp.valueOf(LocalDateTime.now()));
+        return id;
+    }
+
+    private void saveRollup(long id) {
+        jdbcTemplate.update("INSERT INTO click_rollup (url_mapping_id, granularity, bucket_start, clicks) VALUES (?, 'HOUR', ?, 3)",
+                id, Timestamp.valueOf(LocalDateTime.now().minusDays(5).withNano(0)));
+    }
+
+    private long rollupCount(long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM click_rollup WHERE url_mapping_id = ?", Long.class, id);
+    }
+
+    private boolean archived(long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM url_mapping_archive WHERE id = ?", Long.class, id) > 0;
+    }
+
+    @Test
+    void reap_shouldDeleteOnlyMappingsExpiredBeyondGracePeriod() {
+        // Given
+        var longExpired = saveMapping(LocalDateTime.now().minusDays(3));
+        var recentlyExpired = saveMapping(LocalDateTime.now().minusHours(1));
+        var active = saveMapping(LocalDateTime.now().plusDays(1));
+        var permanent = saveMapping(null);
+
+        // When
+        var reaped = expiredMappingReaper.reap();
+
+        // Then
+        assertThat(reaped).isGreaterThanOrEqualTo(1);
+        assertThat(urlMappingRepository.existsById(longExpired)).isFalse();
+        assertThat(urlMappingRepository.existsById(recentlyExpired)).isTrue();
+        assertThat(urlMappingRepository.existsById(active)).isTrue();
+        assertThat(urlMappingRepository.existsById(permanent)).isTrue();
+        assertThat(meterRegistry.get("shortifier.reaper.backlog").gauge().value()).isZero();
+    }
+
+    @Test
+    void reap_shouldDeleteClickRollupsOfReapedMappingsOnly() {
+        // Given
+        var longExpired = saveMapping(LocalDateTime.now().minusDays(3));
+        var active = saveMapping(LocalDateTime.now().plusDays(1));
+        saveRollup(longExpired);
+        saveRollup(active);
+
+        // When
+        expiredMappingReaper.reap();
+
+        // Then
+        assertThat(rollupCount(longExpired)).isZero();
+        assertThat(rollupCount(active)).isEqualTo(1);
+    }
+
+    @Test
+    void reap_shouldDeleteArchivedMappingsExpiredBeyondGracePeriod() {
+        // Given
+        var longExpired = saveArchivedMapping(LocalDateTime.now().minusDays(3));
+        var recentlyExpired = saveArchivedMapping(LocalDateTime.now().minusHours(1));
+        saveRollup(longExpired);
+
+        // When
+        expiredMappingReaper.reap();
+
+        // Then
+        assertThat(archived(longExpired)).isFalse();
+        assertThat(archived(recentlyExpired)).isTrue();
+        assertThat(rollupCount(longExpired)).isZero();
+    }
+}
@@ -0,0 +1,64 @@
+package com.hamamoto.shortifier.service;
+
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdAllocatorReconcilerTest {
+
+    @Mock
+    private IdAllocator idAllocator;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private IdAllocatorReconciler newReconciler() {
+        return new IdAllocatorReconciler(idAllocator, jdbcTemplate, ShardRouter.single(), true);
+    }
+
+    @Test
+    void afterPropertiesSet_shouldAdvancePastHighestStoredId() {
+        // Given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(42L);
+
+        // When
+        newReconciler().afterPropertiesSet();
+
+        // Then
+        verify(idAllocator).advanceTo(42L);
+    }
+
+    @Test
+    void afterPropertiesSet_withFailureAndAllocatorRequiringReconciliation_shouldFailStartup() {
+        // Given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class)))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+        when(idAllocator.requiresReconciliation()).thenReturn(true);
+
+        // When/Then
+        assertThatThrownBy(() -> newReconciler().afterPropertiesSet())
+                .isInstanceOf(IllegalStateException.class)
+                .hasCauseInstanceOf(DataAccessResourceFailureException.class);
+        verify(idAllocator, never()).advanceTo(anyLong());
+    }
+
+    @Test
+    void afterPropertiesSet_withFailureAndRedisCounter_shouldOnlyLog() {
+        // Given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class)))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+        when(idAllocator.requiresReconciliation()).thenReturn(false);
+
+        // When/Then
+        assertThatCode(() -> newReconciler().afterPropertiesSet()).doesNotThrowAnyException();
+    }
+}
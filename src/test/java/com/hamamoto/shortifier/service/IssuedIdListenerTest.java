@@ -0,0 +1,38 @@
+package com.hamamoto.shortifier.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IssuedIdListenerTest {
+
+    @Mock
+    private IssuedIdFilter issuedIdFilter;
+
+    @InjectMocks
+    private IssuedIdListener issuedIdListener;
+
+    @Test
+    void onMessage_withSeveralIds_shouldRecordEachOne() {
+        // Given
+        var message = new DefaultMessage(IssuedIdListener.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "17 42 1000000".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        issuedIdListener.onMessage(message, null);
+
+        // Then
+        verify(issuedIdFilter).recordStored(17L);
+        verify(issuedIdFilter).recordStored(42L);
+        verify(issuedIdFilter).recordStored(1_000_000L);
+        verifyNoMoreInteractions(issuedIdFilter);
+    }
+}
@@ -0,0 +1,51 @@
+package com.hamamoto.shortifier.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NodeIdAllocatorTest {
+
+    @Test
+    void getNextId_differentNodes_shouldNeverCollide() {
+        // Given
+        var first = new NodeIdAllocator(1, 4);
+        var second = new NodeIdAllocator(2, 4);
+        var issued = new HashSet<Long>();
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            issued.add(first.getNextId());
+            issued.add(second.getNextId());
+        }
+
+        // Then
+        assertThat(issued).hasSize(2_000);
+        assertThat(issued).allMatch(id -> (id & 0xF) == 1 || (id & 0xF) == 2);
+    }
+
+    @Test
+    void advanceTo_shouldIssueIdsAboveMinimum() {
+        // Given
+        var allocator = new NodeIdAllocator(3, 8);
+
+        // When
+        allocator.advanceTo(1_000_000);
+        var id = allocator.getNextId();
+
+        // Then
+        assertThat(id).isGreaterThan(1_000_000L);
+        assertThat(id & 0xFF).isEqualTo(3L);
+        assertThat(allocator.currentValue()).isGreaterThanOrEqualTo(id);
+        assertThat(allocator.isWatermarkGlobal()).isFalse();
+    }
+
+    @Test
+    void constructor_withNodeIdOutOfRange_shouldThrow() {
+        assertThatThrownBy(() -> new NodeIdAllocator(256, 8))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,226 @@
+package com.hamamoto.shortifier.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisCounterServiceTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final AtomicLong redisCounter = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(valueOperations.increment(eq("shortifier:counter"), anyLong()))
+                .thenAnswer(invocation -> redisCounter.addAndGet(invocation.getArgument(1)));
+    }
+
+    private RedisCounterService newService(long minBlockSize, long maxBlockSize) {
+        return new RedisCounterService(redisTemplate, meterRegistry, minBlockSize, maxBlockSize,
+                Duration.ofSeconds(10), 0.25, Duration.ofMinutes(1), false);
+    }
+
+    @Test
+    void getNextId_shouldServeSequentialIdsFromOneLease() {
+        // Given
+        var service = newService(100, 100);
+
+        // When
+        var first = service.getNextId();
+        var second = service.getNextId();
+        var third = service.getNextId();
+
+        // Then
+        assertThat(first).isEqualTo(1L);
+        assertThat(second).isEqualTo(2L);
+        assertThat(third).isEqualTo(3L);
+        verify(valueOperations, times(1)).increment("shortifier:counter", 100L);
+    }
+
+    @Test
+    void getNextId_shouldLeaseNextBlockWhenCurrentIsExhausted() {
+        // Given
+        var service = newService(10, 10);
+
+        // When
+        for (int i = 1; i <= 25; i++) {
+            assertThat(service.getNextId()).isEqualTo(i);
+        }
+
+        // Then
+        assertThat(redisCounter.get()).isGreaterThanOrEqualTo(30L);
+    }
+
+    @Test
+    void getNextId_concurrentCallers_shouldNeverReceiveDuplicateIds() throws Exception {
+        // Given
+        var service = newService(16, 1024);
+        var issued = ConcurrentHashMap.<Long>newKeySet();
+        var executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    issued.add(service.getNextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(issued).hasSize(40_000);
+    }
+
+    @Test
+    void releaseLease_shouldRecordRemainingIdsAsWasted() {
+        // Given
+        var service = newService(100, 100);
+        service.getNextId();
+
+        // When
+        service.releaseLease();
+
+        // Then
+        verify(valueOperations).increment("shortifier:counter:wasted", 99L);
+        assertThat(meterRegistry.get("shortifier.id.lease.wasted").counter().count()).isEqualTo(99.0);
+    }
+
+    @Test
+    void reserveRange_afterCounterReset_shouldAdvanceCounterPastLeasedIds() {
+        // Given
+        var service = newService(10, 10);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), eq("5"))).thenAnswer(invocation -> {
+            redisCounter.set(5);
+            return 5L;
+        });
+        service.reserveRange(5);
+        redisCounter.set(0);
+
+        // When
+        var first = service.reserveRange(5);
+
+        // Then
+        assertThat(first).isEqualTo(6L);
+        assertThat(meterRegistry.get("shortifier.id.lease.resets").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void reserveRange_concurrentLeasesFinishingOutOfOrder_shouldNotDetectReset() throws Exception {
+        // Given
+        var service = newService(10, 10);
+        var firstIncremented = new CountDownLatch(1);
+        var secondFinished = new CountDownLatch(1);
+        var calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            var end = redisCounter.addAndGet(invocation.getArgument(1));
+            if (calls.getAndIncrement() == 0) {
+                firstIncremented.countDown();
+                assertThat(secondFinished.await(10, TimeUnit.SECONDS)).isTrue();
+            }
+            return end;
+        }).when(valueOperations).increment(eq("shortifier:counter"), anyLong());
+
+        // When
+        var slow = CompletableFuture.supplyAsync(() -> service.reserveRange(5));
+        assertThat(firstIncremented.await(10, TimeUnit.SECONDS)).isTrue();
+        var fast = service.reserveRange(5);
+        secondFinished.countDown();
+
+        // Then
+        assertThat(slow.get(10, TimeUnit.SECONDS)).isEqualTo(1L);
+        assertThat(fast).isEqualTo(6L);
+        assertThat(redisCounter.get()).isEqualTo(10L);
+        assertThat(meterRegistry.get("shortifier.id.lease.resets").counter().count()).isZero();
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), anyString());
+    }
+
+    @Test
+    void reserveRange_concurrentCallersWithPrefetch_shouldNeverDetectReset() throws Exception {
+        // Given
+        var service = newService(16, 16);
+        var reserved = ConcurrentHashMap.<Long>newKeySet();
+        var executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    reserved.add(i % 2 == 0 ? service.reserveRange(3) : service.getNextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(reserved).hasSize(16_000);
+        assertThat(meterRegistry.get("shortifier.id.lease.resets").counter().count()).isZero();
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), anyString());
+    }
+
+    @Test
+    void advanceTo_concurrentCallers_shouldNeverIssueIdsAtOrBelowMinimumAfterwards() throws Exception {
+        // Given
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString())).thenAnswer(invocation ->
+                redisCounter.accumulateAndGet(Long.parseLong(invocation.getArgument(2)), Math::max));
+        var service = newService(1000, 1000);
+        var advanced = new AtomicBoolean();
+        var violations = new AtomicLong();
+        var executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    var afterAdvance = advanced.get();
+                    var id = service.getNextId();
+                    if (afterAdvance && id <= 500) {
+                        violations.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        // When
+        service.advanceTo(500);
+        advanced.set(true);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(violations.get()).isZero();
+        assertThat(service.getNextId()).isGreaterThan(500L);
+    }
+}
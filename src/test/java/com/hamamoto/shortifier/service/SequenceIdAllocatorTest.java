@@ -0,0 +1,77 @@
+package com.hamamoto.shortifier.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SequenceIdAllocatorTest {
+
+    private final JdbcTemplate jdbcTemplate =
+            new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:sequence-allocator;DB_CLOSE_DELAY=-1"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DROP SEQUENCE IF EXISTS shortifier_id_hi_seq");
+        jdbcTemplate.execute("CREATE SEQUENCE shortifier_id_hi_seq START WITH 1");
+    }
+
+    private SequenceIdAllocator newAllocator(long blockSize) {
+        return new SequenceIdAllocator(jdbcTemplate, new DataSourceTransactionManager(jdbcTemplate.getDataSource()),
+                meterRegistry, blockSize, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void getNextId_shouldServeOneBlockPerSequenceValue() {
+        // Given
+        var allocator = newAllocator(100);
+
+        // When
+        var first = allocator.getNextId();
+        for (int i = 0; i < 99; i++) {
+            allocator.getNextId();
+        }
+        var nextBlock = allocator.getNextId();
+
+        // Then
+        assertThat(first).isEqualTo(100L);
+        assertThat(nextBlock).isEqualTo(200L);
+        assertThat(meterRegistry.get("shortifier.id.sequence.reserved").counter().count()).isEqualTo(200.0);
+    }
+
+    @Test
+    void getNextId_twoInstances_shouldReserveDisjointBlocks() {
+        // Given
+        var first = newAllocator(100);
+        var second = newAllocator(100);
+
+        // When
+        var a = first.getNextId();
+        var b = second.getNextId();
+
+        // Then
+        assertThat(Math.abs(a - b)).isGreaterThanOrEqualTo(100L);
+    }
+
+    @Test
+    void advanceTo_shouldIssueIdsAboveMinimum() {
+        // Given
+        var allocator = newAllocator(100);
+        allocator.getNextId();
+
+        // When
+        allocator.advanceTo(12_345);
+        var id = allocator.getNextId();
+
+        // Then
+        assertThat(id).isGreaterThan(12_345L);
+        assertThat(allocator.currentValue()).isGreaterThan(id);
+    }
+}
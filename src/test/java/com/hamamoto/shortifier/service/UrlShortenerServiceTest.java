@@ -1,12 +1,22 @@
 package com.hamamoto.shortifier.service;
 
+import com.hamamoto.shortifier.cache.CachedUrl;
+import com.hamamoto.shortifier.cache.UrlCache;
 import com.hamamoto.shortifier.component.ShortCodeGenerator;
 import com.hamamoto.shortifier.dto.ShortenRequest;
 import com.hamamoto.shortifier.dto.ShortenResponse;
 import com.hamamoto.shortifier.entity.UrlMapping;
 import com.hamamoto.shortifier.exception.ShortUrlExpiredException;
 import com.hamamoto.shortifier.exception.ShortUrlNotFoundException;
+import com.hamamoto.shortifier.monitoring.ShortifierMetrics;
+import com.hamamoto.shortifier.monitoring.ShortifierMetrics.Outcome;
+import com.hamamoto.shortifier.monitoring.ShortifierMetrics.Stage;
+import com.hamamoto.shortifier.repository.ArchivedMappingRepository;
 import com.hamamoto.shortifier.repository.UrlMappingRepository;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import com.hamamoto.shortifier.trending.HotKeyTracker;
+import com.hamamoto.shortifier.util.UrlHash;
+import com.hamamoto.shortifier.writebehind.WriteBehindLog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -23,6 +33,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,11 +43,38 @@ class UrlShortenerServiceTest {
     private UrlMappingRepository urlMappingRepository;
 
     @Mock
-    private RedisCounterService redisCounterService;
+    private IdAllocator idAllocator;
 
     @Mock
     private ShortCodeGenerator shortCodeGenerator;
 
+    @Mock
+    private UrlCache urlCache;
+
+    @Mock
+    private AccessCountService accessCountService;
+
+    @Mock
+    private UrlDeduplicator urlDeduplicator;
+
+    @Mock
+    private IssuedIdFilter issuedIdFilter;
+
+    @Mock
+    private ShortifierMetrics metrics;
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Mock
+    private ArchivedMappingRepository archivedMappingRepository;
+
+    @Mock
+    private HotKeyTracker hotKeyTracker;
+
+    @Mock
+    private WriteBehindLog writeBehindLog;
+
     @InjectMocks
     private UrlShortenerService urlShortenerService;
 
@@ -58,9 +96,9 @@ class UrlShortenerServiceTest {
                 .accessCount(0L)
                 .build();
 
-        when(redisCounterService.getNextId()).thenReturn(1L);
+        when(idAllocator.getNextId()).thenReturn(1L);
         when(shortCodeGenerator.generate(1L)).thenReturn("abc12");
-        when(urlMappingRepository.save(any(UrlMapping.class))).thenReturn(savedMapping);
+        when(urlMappingRepository.saveAndFlush(any(UrlMapping.class))).thenReturn(savedMapping);
 
         // When
         var response = urlShortenerService.shortenUrl(request);
@@ -72,9 +110,64 @@ class UrlShortenerServiceTest {
         assertThat(response.getShortUrl()).isEqualTo("http://localhost:8080/abc12");
         assertThat(response.getCreatedAt()).isNotNull();
 
-        verify(redisCounterService, times(1)).getNextId();
+        verify(idAllocator, times(1)).getNextId();
         verify(shortCodeGenerator, times(1)).generate(1L);
-        verify(urlMappingRepository, times(1)).save(any(UrlMapping.class));
+        verify(urlMappingRepository, times(1)).saveAndFlush(any(UrlMapping.class));
+        verify(urlCache).putAfterCommit(eq("abc12"), any(CachedUrl.class));
+        verify(urlMappingRepository).saveAndFlush(argThat(mapping -> mapping.getId() == 1L));
+        verify(metrics).recordStage(eq(Stage.ID_ALLOCATION), anyLong());
+        verify(metrics).recordStage(eq(Stage.CODE_GENERATION), anyLong());
+        verify(metrics).recordStage(eq(Stage.DB_SAVE), anyLong());
+        verify(metrics).recordOutcome(Outcome.CREATED);
+    }
+
+    @Test
+    void shortenUrl_withDedupEnabledAndKnownUrl_shouldReuseExistingShortCode() {
+        // Given
+        var request = new ShortenRequest("https://example.com/popular", null);
+        var existing = UrlMapping.builder()
+                .id(7L)
+                .shortCode("pop77")
+                .originalUrl(request.getUrl())
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        when(urlDeduplicator.hashFor(request.getUrl(), null)).thenReturn(UrlHash.of(request.getUrl()));
+        when(urlDeduplicator.findExisting(eq(request.getUrl()), anyLong())).thenReturn(Optional.of(existing));
+
+        // When
+        var response = urlShortenerService.shortenUrl(request);
+
+        // Then
+        assertThat(response.getShortCode()).isEqualTo("pop77");
+        verify(idAllocator, never()).getNextId();
+        verify(urlMappingRepository, never()).saveAndFlush(any());
+        verify(metrics).recordOutcome(Outcome.REUSED);
+    }
+
+    @Test
+    void shortenUrl_withDedupEnabledAndExpiresAt_shouldAlwaysCreateNewMapping() {
+        // Given
+        var request = new ShortenRequest("https://example.com/popular", LocalDateTime.now().plusDays(1));
+        var savedMapping = UrlMapping.builder()
+                .id(8L)
+                .shortCode("new88")
+                .originalUrl(request.getUrl())
+                .createdAt(LocalDateTime.now())
+                .expiresAt(request.getExpiresAt())
+                .build();
+
+        when(idAllocator.getNextId()).thenReturn(8L);
+        when(shortCodeGenerator.generate(8L)).thenReturn("new88");
+        when(urlMappingRepository.saveAndFlush(any(UrlMapping.class))).thenReturn(savedMapping);
+
+        // When
+        var response = urlShortenerService.shortenUrl(request);
+
+        // Then
+        assertThat(response.getShortCode()).isEqualTo("new88");
+        verify(urlDeduplicator, never()).findExisting(anyString(), anyLong());
+        verify(urlMappingRepository).saveAndFlush(argThat(mapping -> mapping.getOriginalUrlHash() == null));
     }
 
     @Test
@@ -92,9 +185,9 @@ class UrlShortenerServiceTest {
                 .accessCount(0L)
                 .build();
 
-        when(redisCounterService.getNextId()).thenReturn(2L);
+        when(idAllocator.getNextId()).thenReturn(2L);
         when(shortCodeGenerator.generate(2L)).thenReturn("xyz99");
-        when(urlMappingRepository.save(any(UrlMapping.class))).thenReturn(savedMapping);
+        when(urlMappingRepository.saveAndFlush(any(UrlMapping.class))).thenReturn(savedMapping);
 
         // When
         var response = urlShortenerService.shortenUrl(request);
@@ -102,7 +195,7 @@ class UrlShortenerServiceTest {
         // Then
         assertThat(response).isNotNull();
         assertThat(response.getExpiresAt()).isEqualTo(expiresAt);
-        verify(redisCounterService, times(1)).getNextId();
+        verify(idAllocator, times(1)).getNextId();
         verify(shortCodeGenerator, times(1)).generate(2L);
     }
 
@@ -127,12 +220,12 @@ class UrlShortenerServiceTest {
                 .accessCount(0L)
                 .build();
 
-        when(redisCounterService.getNextId())
+        when(idAllocator.getNextId())
                 .thenReturn(1L)
                 .thenReturn(2L);
         when(shortCodeGenerator.generate(1L)).thenReturn("code1");
         when(shortCodeGenerator.generate(2L)).thenReturn("code2");
-        when(urlMappingRepository.save(any(UrlMapping.class)))
+        when(urlMappingRepository.saveAndFlush(any(UrlMapping.class)))
                 .thenReturn(savedMapping1)
                 .thenReturn(savedMapping2);
 
@@ -158,26 +251,80 @@ class UrlShortenerServiceTest {
                 .accessCount(0L)
                 .build();
 
-        when(urlMappingRepository.findByShortCode(shortCode)).thenReturn(Optional.of(urlMapping));
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(1L);
+        when(urlMappingRepository.findById(1L)).thenReturn(Optional.of(urlMapping));
 
         // When
         var originalUrl = urlShortenerService.getOriginalUrl(shortCode);
 
         // Then
         assertThat(originalUrl).isEqualTo("https://example.com/test");
-        verify(urlMappingRepository, times(1)).findByShortCode(shortCode);
+        verify(urlMappingRepository, times(1)).findById(1L);
+        verify(accessCountService).recordAccess(1L);
     }
 
     @Test
     void getOriginalUrl_shouldThrowNotFoundException() {
         // Given
         var shortCode = "xyz99";
-        when(urlMappingRepository.findByShortCode(shortCode)).thenReturn(Optional.empty());
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(99L);
+        when(urlMappingRepository.findById(99L)).thenReturn(Optional.empty());
 
         // When/Then
         assertThatThrownBy(() -> urlShortenerService.getOriginalUrl(shortCode))
                 .isInstanceOf(ShortUrlNotFoundException.class)
                 .hasMessageContaining("Short URL not found: xyz99");
+        verify(metrics).recordStage(eq(Stage.DB_LOOKUP), anyLong());
+        verify(metrics).recordOutcome(Outcome.NOT_FOUND);
+    }
+
+    @Test
+    void getOriginalUrl_withReadReplicasAndReplicaMiss_shouldFallBackToPrimary() {
+        // Given
+        ReflectionTestUtils.setField(urlShortenerService, "readReplicasEnabled", true);
+        var shortCode = "new12";
+        var urlMapping = UrlMapping.builder()
+                .id(7L)
+                .shortCode(shortCode)
+                .originalUrl("https://example.com/just-created")
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(7L);
+        when(urlMappingRepository.findById(7L)).thenReturn(Optional.empty());
+        when(urlMappingRepository.findByIdOnPrimary(7L)).thenReturn(Optional.of(urlMapping));
+
+        // When
+        var originalUrl = urlShortenerService.getOriginalUrl(shortCode);
+
+        // Then
+        assertThat(originalUrl).isEqualTo("https://example.com/just-created");
+        verify(metrics).recordStage(eq(Stage.PRIMARY_LOOKUP), anyLong());
+        verify(metrics).recordOutcome(Outcome.REDIRECTED);
+    }
+
+    @Test
+    void getOriginalUrl_withArchivedMapping_shouldFallBackToArchive() {
+        // Given
+        var shortCode = "old12";
+        var archived = UrlMapping.builder()
+                .id(3L)
+                .shortCode(shortCode)
+                .originalUrl("https://example.com/archived")
+                .createdAt(LocalDateTime.now().minusYears(1))
+                .build();
+
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(3L);
+        when(urlMappingRepository.findById(3L)).thenReturn(Optional.empty());
+        when(archivedMappingRepository.findById(3L)).thenReturn(Optional.of(archived));
+
+        // When
+        var originalUrl = urlShortenerService.getOriginalUrl(shortCode);
+
+        // Then
+        assertThat(originalUrl).isEqualTo("https://example.com/archived");
+        verify(metrics).recordStage(eq(Stage.ARCHIVE_LOOKUP), anyLong());
+        verify(urlCache).put(eq(shortCode), any());
     }
 
     @Test
@@ -193,12 +340,15 @@ class UrlShortenerServiceTest {
                 .accessCount(0L)
                 .build();
 
-        when(urlMappingRepository.findByShortCode(shortCode)).thenReturn(Optional.of(urlMapping));
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(1L);
+        when(urlMappingRepository.findById(1L)).thenReturn(Optional.of(urlMapping));
 
         // When/Then
         assertThatThrownBy(() -> urlShortenerService.getOriginalUrl(shortCode))
                 .isInstanceOf(ShortUrlExpiredException.class)
                 .hasMessageContaining("Short URL has expired: abc12");
+        verify(metrics).recordStage(eq(Stage.EXPIRY_CHECK), anyLong());
+        verify(metrics).recordOutcome(Outcome.EXPIRED);
     }
 
     @Test
@@ -214,7 +364,8 @@ class UrlShortenerServiceTest {
                 .accessCount(0L)
                 .build();
 
-        when(urlMappingRepository.findByShortCode(shortCode)).thenReturn(Optional.of(urlMapping));
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(1L);
+        when(urlMappingRepository.findById(1L)).thenReturn(Optional.of(urlMapping));
 
         // When
         var originalUrl = urlShortenerService.getOriginalUrl(shortCode);
@@ -236,7 +387,8 @@ class UrlShortenerServiceTest {
                 .accessCount(0L)
                 .build();
 
-        when(urlMappingRepository.findByShortCode(shortCode)).thenReturn(Optional.of(urlMapping));
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(1L);
+        when(urlMappingRepository.findById(1L)).thenReturn(Optional.of(urlMapping));
 
         // When
         var originalUrl = urlShortenerService.getOriginalUrl(shortCode);
@@ -244,4 +396,192 @@ class UrlShortenerServiceTest {
         // Then
         assertThat(originalUrl).isEqualTo("https://example.com/test");
     }
-}
\ No newline at end of file
+
+    @Test
+    void getOriginalUrl_withCachedEntry_shouldNotQueryDatabase() {
+        // Given
+        var shortCode = "abc12";
+        when(urlCache.getLocal(shortCode))
+                .thenReturn(new CachedUrl(1L, "https://example.com/cached", null));
+
+        // When
+        var originalUrl = urlShortenerService.getOriginalUrl(shortCode);
+
+        // Then
+        assertThat(originalUrl).isEqualTo("https://example.com/cached");
+        verifyNoInteractions(urlMappingRepository);
+        verify(accessCountService).recordAccess(1L);
+    }
+
+    @Test
+    void getOriginalUrl_withLegacyCodeCollidingWithCodecId_shouldRetryWithLegacyId() {
+        // Given
+        var shortCode = "lEgAcy12";
+        var codecMapping = UrlMapping.builder()
+                .id(5L)
+                .shortCode("n3wC0de5")
+                .originalUrl("https://example.com/other")
+                .createdAt(LocalDateTime.now())
+                .build();
+        var legacyMapping = UrlMapping.builder()
+                .id(20_000_000_000L)
+                .shortCode(shortCode)
+                .originalUrl("https://example.com/legacy")
+                .createdAt(LocalDateTime.now().minusYears(2))
+                .build();
+
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(5L);
+        when(shortCodeGenerator.decodeLegacy(shortCode)).thenReturn(20_000_000_000L);
+        when(urlMappingRepository.findById(5L)).thenReturn(Optional.of(codecMapping));
+        when(urlMappingRepository.findById(20_000_000_000L)).thenReturn(Optional.of(legacyMapping));
+
+        // When
+        var originalUrl = urlShortenerService.getOriginalUrl(shortCode);
+
+        // Then
+        assertThat(originalUrl).isEqualTo("https://example.com/legacy");
+        verify(urlCache).put(shortCode, new CachedUrl(20_000_000_000L, "https://example.com/legacy", null));
+        verify(accessCountService).recordAccess(20_000_000_000L);
+        verify(accessCountService, never()).recordAccess(5L);
+    }
+
+    @Test
+    void getOriginalUrl_withCodecIdStoredUnderAnotherCode_shouldThrowNotFoundException() {
+        // Given
+        var shortCode = "lEgAcy12";
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(5L);
+        when(shortCodeGenerator.decodeLegacy(shortCode)).thenReturn(-1L);
+        when(urlMappingRepository.findById(5L)).thenReturn(Optional.of(UrlMapping.builder()
+                .id(5L)
+                .shortCode("n3wC0de5")
+                .originalUrl("https://example.com/other")
+                .build()));
+
+        // When/Then
+        assertThatThrownBy(() -> urlShortenerService.getOriginalUrl(shortCode))
+                .isInstanceOf(ShortUrlNotFoundException.class);
+        verify(urlCache, never()).put(anyString(), any());
+    }
+
+    @Test
+    void getOriginalUrl_afterDatabaseHit_shouldPopulateCache() {
+        // Given
+        var shortCode = "abc12";
+        var urlMapping = UrlMapping.builder()
+                .id(1L)
+                .shortCode(shortCode)
+                .originalUrl("https://example.com/test")
+                .createdAt(LocalDateTime.now())
+                .accessCount(0L)
+                .build();
+
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(1L);
+        when(urlMappingRepository.findById(1L)).thenReturn(Optional.of(urlMapping));
+
+        // When
+        urlShortenerService.getOriginalUrl(shortCode);
+
+        // Then
+        verify(urlCache).put(shortCode, new CachedUrl(1L, "https://example.com/test", null));
+    }
+
+    @Test
+    void getOriginalUrl_withMalformedCode_shouldRejectWithoutLookup() {
+        // Given
+        var shortCode = "not-a-code";
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(-1L);
+
+        // When/Then
+        assertThatThrownBy(() -> urlShortenerService.getOriginalUrl(shortCode))
+                .isInstanceOf(ShortUrlNotFoundException.class)
+                .hasMessageContaining("Short URL not found: not-a-code");
+        verify(urlCache, never()).getShared(anyString());
+        verifyNoInteractions(urlMappingRepository);
+    }
+
+    @Test
+    void getOriginalUrl_withIdKnownToBeAbsent_shouldRejectWithoutLookup() {
+        // Given
+        var shortCode = "gone1";
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(42L);
+        when(issuedIdFilter.isDefinitelyAbsent(42L)).thenReturn(true);
+
+        // When/Then
+        assertThatThrownBy(() -> urlShortenerService.getOriginalUrl(shortCode))
+                .isInstanceOf(ShortUrlNotFoundException.class)
+                .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+        verify(urlCache, never()).getShared(anyString());
+        verifyNoInteractions(urlMappingRepository);
+    }
+
+    @Test
+    void getOriginalUrl_withSharedCacheHit_shouldNotQueryDatabase() {
+        // Given
+        var shortCode = "abc12";
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(1L);
+        when(urlCache.getShared(shortCode)).thenReturn(new CachedUrl(1L, "https://example.com/shared", null));
+
+        // When
+        var originalUrl = urlShortenerService.getOriginalUrl(shortCode);
+
+        // Then
+        assertThat(originalUrl).isEqualTo("https://example.com/shared");
+        verifyNoInteractions(urlMappingRepository);
+    }
+
+    @Test
+    void shortenUrlWriteBehind_shouldReturnOnceLoggedWithoutSaving() {
+        // Given
+        var request = new ShortenRequest("https://example.com/logged", null);
+        when(idAllocator.getNextId()).thenReturn(5L);
+        when(shortCodeGenerator.generate(5L)).thenReturn("log55");
+        when(writeBehindLog.append(any(UrlMapping.class))).thenReturn(true);
+
+        // When
+        var response = urlShortenerService.shortenUrlWriteBehind(request);
+
+        // Then
+        assertThat(response.getShortCode()).isEqualTo("log55");
+        assertThat(response.getCreatedAt()).isNotNull();
+        verify(urlMappingRepository, never()).saveAndFlush(any(UrlMapping.class));
+        verify(urlCache).put(eq("log55"), any(CachedUrl.class));
+        verify(metrics).recordStage(eq(Stage.LOG_APPEND), anyLong());
+    }
+
+    @Test
+    void shortenUrlWriteBehind_whenLogRejects_shouldStoreSynchronously() {
+        // Given
+        var request = new ShortenRequest("https://example.com/fallback", null);
+        when(idAllocator.getNextId()).thenReturn(6L);
+        when(shortCodeGenerator.generate(6L)).thenReturn("fal66");
+        when(writeBehindLog.append(any(UrlMapping.class))).thenReturn(false);
+        when(urlMappingRepository.saveAndFlush(any(UrlMapping.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        var response = urlShortenerService.shortenUrlWriteBehind(request);
+
+        // Then
+        assertThat(response.getShortCode()).isEqualTo("fal66");
+        verify(urlMappingRepository).saveAndFlush(argThat(mapping -> mapping.getId() == 6L));
+    }
+
+    @Test
+    void getOriginalUrl_withPendingWriteBehindMapping_shouldNotQueryDatabase() {
+        // Given
+        var shortCode = "pen88";
+        when(shortCodeGenerator.decode(shortCode)).thenReturn(8L);
+        when(writeBehindLog.findPending(8L)).thenReturn(UrlMapping.builder()
+                .id(8L)
+                .shortCode(shortCode)
+                .originalUrl("https://example.com/pending")
+                .build());
+
+        // When
+        var result = urlShortenerService.getOriginalUrl(shortCode);
+
+        // Then
+        assertThat(result).isEqualTo("https://example.com/pending");
+        verify(issuedIdFilter, never()).isDefinitelyAbsent(anyLong());
+        verify(urlMappingRepository, never()).findById(any());
+    }
+}
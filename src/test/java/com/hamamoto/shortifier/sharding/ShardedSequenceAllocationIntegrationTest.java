@@ -0,0 +1,74 @@
+package com.hamamoto.shortifier.sharding;
+
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import com.hamamoto.shortifier.dto.ShortenRequest;
+import com.hamamoto.shortifier.service.IdAllocator;
+import com.hamamoto.shortifier.service.SequenceIdAllocator;
+import com.hamamoto.shortifier.service.UrlShortenerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "shortifier.id-allocator.type=sequence",
+        "shortifier.id-allocator.sequence.block-size=5",
+        "shortifier.sharding.enabled=true",
+        "shortifier.sharding.strategy=HASH",
+        "shortifier.sharding.shards[0].url=jdbc:h2:mem:sequence-shard-test-0;DB_CLOSE_DELAY=-1",
+        "shortifier.sharding.shards[0].username=sa",
+        "shortifier.sharding.shards[1].url=jdbc:h2:mem:sequence-shard-test-1;DB_CLOSE_DELAY=-1",
+        "shortifier.sharding.shards[1].username=sa",
+        "shortifier.sharding.shards[2].url=jdbc:h2:mem:sequence-shard-test-2;DB_CLOSE_DELAY=-1",
+        "shortifier.sharding.shards[2].username=sa"
+})
+class ShardedSequenceAllocationIntegrationTest {
+
+    @Autowired
+    private UrlShortenerService urlShortenerService;
+
+    @Autowired
+    private IdAllocator idAllocator;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShortCodeGenerator shortCodeGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private boolean existsOn(int shard, long id) {
+        var count = ShardContext.call(shard, () ->
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM url_mapping WHERE id = ?", Long.class, id));
+        return count != null && count > 0;
+    }
+
+    @Test
+    void shortenUrl_refillingBlocksInsideTheTransaction_shouldStoreEachMappingOnItsShard() {
+        // Given
+        assertThat(idAllocator).isInstanceOf(SequenceIdAllocator.class);
+        var usedShards = new HashSet<Integer>();
+
+        for (int i = 0; i < 30; i++) {
+            // When
+            var url = "https://example.com/sequence-sharded/" + i;
+            var response = urlShortenerService.shortenUrl(new ShortenRequest(url, null));
+
+            // Then
+            var id = shortCodeGenerator.decode(response.getShortCode());
+            var shard = shardRouter.shardFor(id);
+            usedShards.add(shard);
+            for (int other : shardRouter.shards()) {
+                assertThat(existsOn(other, id)).isEqualTo(other == shard);
+            }
+            assertThat(urlShortenerService.getOriginalUrl(response.getShortCode())).isEqualTo(url);
+        }
+        assertThat(usedShards).hasSize(3);
+    }
+}
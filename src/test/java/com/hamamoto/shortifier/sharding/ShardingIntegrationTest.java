@@ -0,0 +1,123 @@
+package com.hamamoto.shortifier.sharding;
+
+import com.hamamoto.shortifier.component.ShortCodeGenerator;
+import com.hamamoto.shortifier.dto.ShortenRequest;
+import com.hamamoto.shortifier.service.RedisCounterService;
+import com.hamamoto.shortifier.service.UrlShortenerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "shortifier.sharding.enabled=true",
+        "shortifier.sharding.strategy=HASH",
+        "shortifier.sharding.shards[0].url=jdbc:h2:mem:shard-test-0;DB_CLOSE_DELAY=-1",
+        "shortifier.sharding.shards[0].username=sa",
+        "shortifier.sharding.shards[1].url=jdbc:h2:mem:shard-test-1;DB_CLOSE_DELAY=-1",
+        "shortifier.sharding.shards[1].username=sa",
+        "shortifier.sharding.shards[2].url=jdbc:h2:mem:shard-test-2;DB_CLOSE_DELAY=-1",
+        "shortifier.sharding.shards[2].username=sa"
+})
+class ShardingIntegrationTest {
+
+    @Autowired
+    private UrlShortenerService urlShortenerService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private ShortCodeGenerator shortCodeGenerator;
+
+    @Autowired
+    private RedisCounterService redisCounterService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private boolean existsOn(int shard, long id) {
+        var count = ShardContext.call(shard, () ->
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM url_mapping WHERE id = ?", Long.class, id));
+        return count != null && count > 0;
+    }
+
+    @Test
+    void shortenUrl_shouldStoreEachMappingOnlyOnItsShard() {
+        // Given
+        var usedShards = new HashSet<Integer>();
+
+        for (int i = 0; i < 30; i++) {
+            // When
+            var url = "https://example.com/sharded/" + i;
+            var response = urlShortenerService.shortenUrl(new ShortenRequest(url, null));
+
+            // Then
+            var id = shortCodeGenerator.decode(response.getShortCode());
+            var shard = shardRouter.shardFor(id);
+            usedShards.add(shard);
+            for (int other : shardRouter.shards()) {
+                assertThat(existsOn(other, id)).isEqualTo(other == shard);
+            }
+            assertThat(urlShortenerService.getOriginalUrl(response.getShortCode())).isEqualTo(url);
+        }
+        assertThat(usedShards).hasSize(3);
+    }
+
+    @Test
+    void rebalance_shouldMoveMisplacedMappingWithItsClicks() {
+        // Given
+        var id = redisCounterService.reserveRange(1) + 5_000_000;
+        var target = shardRouter.shardFor(id);
+        var source = (target + 1) % shardRouter.shardCount();
+        var bucket = Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS));
+        ShardContext.run(source, () -> {
+            jdbcTemplate.update("""
+                    INSERT INTO url_mapping (id, short_code, original_url, created_at, access_count)
+                    VALUES (?, ?, ?, CURRENT_TIMESTAMP, 3)
+                    """, id, shortCodeGenerator.generate(id), "https://example.com/misplaced");
+            jdbcTemplate.update("""
+                    INSERT INTO click_rollup (url_mapping_id, granularity, bucket_start, clicks)
+                    VALUES (?, 'HOUR', ?, 7)
+                    """, id, bucket);
+        });
+
+        // When
+        var response = shardRebalancer.rebalance();
+
+        // Then
+        assertThat(response.getMoved()).isGreaterThanOrEqualTo(1);
+        assertThat(existsOn(source, id)).isFalse();
+        assertThat(existsOn(target, id)).isTrue();
+        var clicks = ShardContext.call(target, () -> jdbcTemplate.queryForObject(
+                "SELECT clicks FROM click_rollup WHERE url_mapping_id = ?", Long.class, id));
+        assertThat(clicks).isEqualTo(7L);
+        assertThat(urlShortenerService.getOriginalUrl(shortCodeGenerator.generate(id)))
+                .isEqualTo("https://example.com/misplaced");
+
+        // When
+        var second = shardRebalancer.rebalance();
+
+        // Then
+        assertThat(second.getMoved()).isZero();
+    }
+
+    @Test
+    void status_shouldReportEveryShard() {
+        // When
+        var status = shardRebalancer.status();
+
+        // Then
+        assertThat(status).extracting("shard").containsExactly(0, 1, 2);
+    }
+}
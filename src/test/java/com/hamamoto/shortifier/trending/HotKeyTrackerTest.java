@@ -0,0 +1,65 @@
+package com.hamamoto.shortifier.trending;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotKeyTrackerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void rotate_withSkewedTraffic_shouldRankHeavyHittersFirst() {
+        // Given
+        var tracker = new HotKeyTracker(meterRegistry, true, 3, 4096, 4);
+        for (int i = 0; i < 10_000; i++) {
+            tracker.record("code" + i);
+            if (i % 2 == 0) {
+                tracker.record("viral");
+            }
+            if (i % 10 == 0) {
+                tracker.record("popular");
+            }
+        }
+
+        // When
+        tracker.rotate();
+
+        // Then
+        var snapshot = tracker.snapshot();
+        assertThat(snapshot).hasSizeLessThanOrEqualTo(3);
+        assertThat(snapshot.get(0).shortCode()).isEqualTo("viral");
+        assertThat(snapshot.get(0).requests()).isBetween(5_000L, 5_100L);
+        assertThat(snapshot.get(0).share()).isBetween(0.3, 0.32);
+        assertThat(snapshot.get(1).shortCode()).isEqualTo("popular");
+        assertThat(meterRegistry.get("shortifier.trending.top-share").gauge().value()).isGreaterThan(0.36);
+    }
+
+    @Test
+    void rotate_shouldStartNewWindow() {
+        // Given
+        var tracker = new HotKeyTracker(meterRegistry, true, 10, 1024, 4);
+        tracker.record("abc1234");
+        tracker.rotate();
+
+        // When
+        tracker.rotate();
+
+        // Then
+        assertThat(tracker.snapshot()).isEmpty();
+    }
+
+    @Test
+    void record_whenDisabled_shouldTrackNothing() {
+        // Given
+        var tracker = new HotKeyTracker(meterRegistry, false, 10, 1024, 4);
+
+        // When
+        tracker.record("abc1234");
+        tracker.rotate();
+
+        // Then
+        assertThat(tracker.snapshot()).isEmpty();
+    }
+}
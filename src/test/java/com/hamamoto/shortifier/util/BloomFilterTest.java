@@ -0,0 +1,51 @@
+package com.hamamoto.shortifier.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_afterPut_shouldNeverReportFalseNegatives() {
+        // Given
+        var filter = new BloomFilter(10_000, 0.01);
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UrlHash.of("https://example.com/" + i));
+        }
+
+        // Then
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain(UrlHash.of("https://example.com/" + i))).isTrue();
+        }
+    }
+
+    @Test
+    void mightContain_atExpectedSize_shouldStayNearTargetFalsePositiveRate() {
+        // Given
+        var filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UrlHash.of("https://example.com/" + i));
+        }
+
+        // When
+        var falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UrlHash.of("https://other.example.com/" + i))) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    void constructor_withInvalidSizing_shouldThrow() {
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,84 @@
+package com.hamamoto.shortifier.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedRingBufferTest {
+
+    @Test
+    void offer_shouldRoundCapacityUpToPowerOfTwo() {
+        assertThat(new BoundedRingBuffer<String>(1000).capacity()).isEqualTo(1024);
+        assertThat(new BoundedRingBuffer<String>(8).capacity()).isEqualTo(8);
+        assertThatThrownBy(() -> new BoundedRingBuffer<String>(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void offer_whenFull_shouldRejectWithoutBlocking() {
+        // Given
+        var buffer = new BoundedRingBuffer<Integer>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+
+        // When/Then
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+    }
+
+    @Test
+    void poll_shouldReturnElementsInOfferOrder() {
+        // Given
+        var buffer = new BoundedRingBuffer<Integer>(4);
+        for (int round = 0; round < 3; round++) {
+            buffer.offer(1);
+            buffer.offer(2);
+            buffer.offer(3);
+
+            // When
+            var drained = new ArrayList<Integer>();
+            buffer.drain(drained::add, Integer.MAX_VALUE);
+
+            // Then
+            assertThat(drained).containsExactly(1, 2, 3);
+            assertThat(buffer.poll()).isNull();
+        }
+    }
+
+    @Test
+    void offer_concurrentProducers_shouldDeliverEveryAcceptedElementOnce() throws Exception {
+        // Given
+        var buffer = new BoundedRingBuffer<Long>(1 << 16);
+        var received = ConcurrentHashMap.<Long>newKeySet();
+        var producers = Executors.newFixedThreadPool(4);
+
+        // When
+        for (long p = 0; p < 4; p++) {
+            var base = p * 1_000_000;
+            producers.execute(() -> {
+                for (long i = 0; i < 10_000; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+        }
+        while (received.size() < 40_000) {
+            var element = buffer.poll();
+            if (element != null) {
+                assertThat(received.add(element)).isTrue();
+            }
+        }
+        producers.shutdown();
+        assertThat(producers.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(buffer.poll()).isNull();
+    }
+}
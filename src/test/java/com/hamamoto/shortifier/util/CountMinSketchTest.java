@@ -0,0 +1,65 @@
+package com.hamamoto.shortifier.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CountMinSketchTest {
+
+    @Test
+    void estimate_shouldNeverUndercount() {
+        // Given
+        var sketch = new CountMinSketch(1024, 4);
+
+        // When
+        for (int key = 0; key < 5_000; key++) {
+            for (int i = 0; i <= key % 7; i++) {
+                sketch.add(SplitMix64.mix(key));
+            }
+        }
+
+        // Then
+        for (int key = 0; key < 5_000; key++) {
+            assertThat(sketch.estimate(SplitMix64.mix(key))).isGreaterThanOrEqualTo(key % 7 + 1);
+        }
+    }
+
+    @Test
+    void add_withHeavyHitter_shouldEstimateItClosely() {
+        // Given
+        var sketch = new CountMinSketch(4096, 4);
+        for (int key = 0; key < 20_000; key++) {
+            sketch.add(SplitMix64.mix(key));
+        }
+
+        // When
+        var estimate = 0L;
+        for (int i = 0; i < 10_000; i++) {
+            estimate = sketch.add(SplitMix64.mix(-1));
+        }
+
+        // Then
+        assertThat(estimate).isBetween(10_000L, 10_100L);
+    }
+
+    @Test
+    void clear_shouldResetEstimates() {
+        // Given
+        var sketch = new CountMinSketch(100, 2);
+        sketch.add(SplitMix64.mix(1));
+
+        // When
+        sketch.clear();
+
+        // Then
+        assertThat(sketch.estimate(SplitMix64.mix(1))).isZero();
+        assertThat(sketch.width()).isEqualTo(128);
+    }
+
+    @Test
+    void constructor_withInvalidSizing_shouldThrow() {
+        assertThatThrownBy(() -> new CountMinSketch(0, 4))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,56 @@
+package com.hamamoto.shortifier.writebehind;
+
+import com.hamamoto.shortifier.entity.UrlMapping;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteAheadLogFileTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void read_shouldRoundTripMappingsWithAndWithoutUrlHash() throws IOException {
+        // Given
+        var createdAt = LocalDateTime.of(2026, 1, 2, 3, 4, 5, 6_000);
+        var hashed = UrlMapping.builder()
+                .id(1L)
+                .shortCode("abc12")
+                .originalUrl("https://example.com/hashed")
+                .originalUrlHash(-42L)
+                .createdAt(createdAt)
+                .accessCount(0L)
+                .build();
+        var unhashed = UrlMapping.builder()
+                .id(2L)
+                .shortCode("def34")
+                .originalUrl("https://example.com/expiring")
+                .createdAt(createdAt)
+                .expiresAt(createdAt.plusDays(7))
+                .accessCount(0L)
+                .build();
+        var segment = directory.resolve("segment.log");
+        try (var channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            channel.write(WriteAheadLogFile.encode(List.of(hashed, unhashed)));
+        }
+
+        // When
+        var replayed = new ArrayList<UrlMapping>();
+        var intact = WriteAheadLogFile.read(segment, replayed::add);
+
+        // Then
+        assertThat(intact).isTrue();
+        assertThat(replayed).usingRecursiveFieldByFieldElementComparator().containsExactly(hashed, unhashed);
+        assertThat(replayed.get(1).getOriginalUrlHash()).isNull();
+    }
+}
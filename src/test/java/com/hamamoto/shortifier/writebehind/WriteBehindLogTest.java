@@ -0,0 +1,223 @@
+package com.hamamoto.shortifier.writebehind;
+
+import com.hamamoto.shortifier.cache.UrlCache;
+import com.hamamoto.shortifier.entity.UrlMapping;
+import com.hamamoto.shortifier.repository.UrlMappingBatchWriter;
+import com.hamamoto.shortifier.service.IdAllocator;
+import com.hamamoto.shortifier.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindLogTest {
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private UrlMappingBatchWriter urlMappingBatchWriter;
+
+    @Mock
+    private IdAllocator idAllocator;
+
+    @Mock
+    private UrlCache urlCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private WriteBehindLog newLog() {
+        return newLog(1_000);
+    }
+
+    private WriteBehindLog newLog(int maxPending) {
+        return new WriteBehindLog(urlMappingBatchWriter, idAllocator, ShardRouter.single(), urlCache,
+                transactionManager, meterRegistry, true, directory, 1 << 20, 100, maxPending, 100,
+                Duration.ofSeconds(1), Duration.ofMillis(10), Duration.ofMillis(200));
+    }
+
+    private static UrlMapping mapping(long id) {
+        return UrlMapping.builder()
+                .id(id)
+                .shortCode("code" + id)
+                .originalUrl("https://example.com/" + id)
+                .originalUrlHash(id * 31)
+                .createdAt(LocalDateTime.now())
+                .expiresAt(id % 2 == 0 ? LocalDateTime.now().plusDays(1) : null)
+                .accessCount(0L)
+                .build();
+    }
+
+    @Test
+    void append_shouldServePendingMappingUntilDrained() throws IOException {
+        // Given
+        var log = newLog();
+        log.start();
+
+        // When
+        var logged = log.append(mapping(1L));
+
+        // Then
+        assertThat(logged).isTrue();
+        await().untilAsserted(() -> {
+            verify(urlMappingBatchWriter).insertIfAbsent(argThat(mappings -> mappings.size() == 1
+                    && mappings.getFirst().getId() == 1L));
+            assertThat(log.findPending(1L)).isNull();
+        });
+        log.stop();
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void start_afterUndrainedShutdown_shouldReplayLoggedMappings() {
+        // Given
+        when(urlMappingBatchWriter.insertIfAbsent(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+        var first = newLog();
+        first.start();
+        assertThat(first.append(mapping(41L))).isTrue();
+        assertThat(first.append(mapping(42L))).isTrue();
+        first.stop();
+        reset(urlMappingBatchWriter);
+
+        // When
+        var second = newLog();
+        second.start();
+
+        // Then
+        verify(idAllocator).advanceTo(42L);
+        await().untilAsserted(() -> assertThat(second.findPending(42L)).isNull());
+        verify(urlMappingBatchWriter, atLeastOnce()).insertIfAbsent(anyList());
+        second.stop();
+    }
+
+    @Test
+    void append_whenNotStarted_shouldRejectSoCallerStoresSynchronously() {
+        // Given
+        var log = newLog();
+
+        // When
+        var logged = log.append(mapping(1L));
+
+        // Then
+        assertThat(logged).isFalse();
+        assertThat(log.findPending(1L)).isNull();
+        verifyNoInteractions(urlMappingBatchWriter);
+    }
+
+    @Test
+    void append_withMaxPendingReached_shouldRejectUntilTheBacklogDrains() {
+        // Given
+        var databaseUp = new AtomicBoolean();
+        when(urlMappingBatchWriter.insertIfAbsent(anyList())).thenAnswer(invocation -> {
+            if (!databaseUp.get()) {
+                throw new DataAccessResourceFailureException("database down");
+            }
+            return invocation.<List<UrlMapping>>getArgument(0).size();
+        });
+        var log = newLog(2);
+        log.start();
+        assertThat(log.append(mapping(1L))).isTrue();
+        assertThat(log.append(mapping(2L))).isTrue();
+
+        // When
+        var logged = log.append(mapping(3L));
+
+        // Then
+        assertThat(logged).isFalse();
+        assertThat(log.findPending(3L)).isNull();
+
+        // When
+        databaseUp.set(true);
+        await().untilAsserted(() -> assertThat(log.findPending(2L)).isNull());
+
+        // Then
+        assertThat(log.append(mapping(3L))).isTrue();
+        log.stop();
+    }
+
+    @Test
+    void drain_withMappingRejectedByDatabase_shouldDeadLetterOnlyThatMapping() throws IOException {
+        // Given
+        var segment = WriteAheadLogFile.encode(List.of(mapping(1L), mapping(2L), mapping(3L)));
+        try (var channel = FileChannel.open(directory.resolve("wal-00000000000000000000.log"),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            channel.write(segment);
+        }
+        when(urlMappingBatchWriter.insertIfAbsent(anyList())).thenAnswer(invocation -> {
+            List<UrlMapping> mappings = invocation.getArgument(0);
+            if (mappings.stream().anyMatch(mapping -> mapping.getId() == 2L)) {
+                throw new DataIntegrityViolationException("value too long for column original_url");
+            }
+            return mappings.size();
+        });
+        var log = newLog();
+
+        // When
+        log.start();
+
+        // Then
+        await().untilAsserted(() -> {
+            assertThat(log.findPending(1L)).isNull();
+            assertThat(log.findPending(2L)).isNull();
+            assertThat(log.findPending(3L)).isNull();
+        });
+        log.stop();
+        verify(urlMappingBatchWriter).insertIfAbsent(argThat(mappings -> mappings.size() == 3));
+        verify(urlCache).evict("code2");
+        assertThat(meterRegistry.get("shortifier.write-behind.dead-lettered").counter().count()).isEqualTo(1.0);
+
+        var deadLettered = new ArrayList<UrlMapping>();
+        WriteAheadLogFile.read(directory.resolve("dead-letter.log"), deadLettered::add);
+        assertThat(deadLettered).extracting(UrlMapping::getId).containsExactly(2L);
+        try (var files = Files.list(directory)) {
+            assertThat(files).extracting(path -> path.getFileName().toString()).containsExactly("dead-letter.log");
+        }
+    }
+
+    @Test
+    void read_afterEncode_shouldRestoreEveryField() throws IOException {
+        // Given
+        var path = directory.resolve("wal-test.log");
+        var mappings = List.of(mapping(1L), mapping(2L));
+        var buffer = WriteAheadLogFile.encode(mappings);
+        var bytes = new byte[buffer.remaining() + 5];
+        buffer.get(bytes, 0, bytes.length - 5);
+        Files.write(path, bytes);
+
+        // When
+        var restored = new ArrayList<UrlMapping>();
+        var intact = WriteAheadLogFile.read(path, restored::add);
+
+        // Then
+        assertThat(intact).isFalse();
+        assertThat(restored).containsExactlyElementsOf(mappings);
+    }
+}